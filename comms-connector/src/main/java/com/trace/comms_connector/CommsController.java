@@ -24,7 +24,8 @@ public class CommsController {
      */
     @Operation(
         summary = "Get all users for a given project ID",
-        description = "Returns a list of all platform user IDs / usernames for a given project ID."
+        description = "Returns a list of all platform user IDs / usernames for a given project ID. Members that left " +
+            "the integrated servers are not listed."
     )
     @GetMapping("/projects/{projectId}/comms/users")
     public ResponseEntity<?> getAllUsers(@PathVariable UUID projectId) {
@@ -41,7 +42,8 @@ public class CommsController {
      */
     @Operation(
         summary = "Get the users for a given platform connection",
-        description = "Returns a list of platform user IDs / usernames for a given project ID and given platform."
+        description = "Returns a list of platform user IDs / usernames for a given project ID and given platform. " +
+            "Members that left the integrated servers are not listed."
     )
     @GetMapping("/projects/{projectId}/comms/{platform}/users")
     public ResponseEntity<?> getPlatformUsers(@PathVariable UUID projectId, @PathVariable Platform platform) {
@@ -82,6 +84,36 @@ public class CommsController {
         }
     }
 
+    /**
+     * Refresh the comms integrations of a project on a platform, e.g. for Discord it adds newly created text
+     * channels and new server members and removes deleted ones
+     * 
+     * @param projectId
+     * @param platform
+     * @param serverId
+     * @return list of connections after the refresh
+     */
+    @Operation(
+        summary = "Refresh the communication integrations and the users in the platform",
+        description = "Compares the channels and users of the integrated servers with the saved connections and users " +
+            "of this project ID, and only adds the new ones and deletes the removed ones. Existing connections keep their " +
+            "last message ID and existing users keep their Trace UUID. The server ID only has to be specified for " +
+            "integrations that were added before servers were saved, it is saved for future refreshes."
+    )
+    @PostMapping("/projects/{projectId}/comms/{platform}/refresh")
+    public ResponseEntity<?> refreshCommsIntegration(
+        @PathVariable UUID projectId,
+        @PathVariable Platform platform,
+        @RequestParam(required = false) String serverId
+    ) {
+        try {
+            var connectionList = commsService.refreshCommsIntegration(projectId, platform, serverId);
+            return ResponseEntity.ok(connectionList);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(e.getMessage());
+        }
+    }
+
     /**
      * Add a platform user, can be used to update the trace ID for a give platform user ID
      * 
@@ -1,15 +1,30 @@
 package com.trace.comms_connector;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trace.comms_connector.connection.ConnectionCompositeKey;
@@ -19,6 +34,8 @@ import com.trace.comms_connector.discord.DiscordRestClient;
 import com.trace.comms_connector.model.CommsMessage;
 import com.trace.comms_connector.model.CommsPlatformRestClient;
 import com.trace.comms_connector.model.GenAiMessage;
+import com.trace.comms_connector.server.ServerEntity;
+import com.trace.comms_connector.server.ServerRepo;
 import com.trace.comms_connector.user.UserCompositeKey;
 import com.trace.comms_connector.user.UserEntity;
 import com.trace.comms_connector.user.UserRepo;
@@ -37,9 +54,30 @@ public class CommsService {
     @Autowired
     private DiscordRestClient discordClient;
 
+    @Autowired
+    private ServerRepo serverRepo;
+
     @Autowired
     private TraceRestClient traceClient;
 
+    @Autowired
+    @Qualifier("commsExecutor")
+    private Executor commsExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Defaults to the 24 hour cycle of the comms thread, which discovers every server again in each cycle
+    @Value("${trace.comms.discovery-ttl-minutes:1440}")
+    private long discoveryTtlMinutes;
+
+    private Logger logger = LoggerFactory.getLogger(CommsService.class);
+
+    // Channel and user IDs discovered on a platform server, cached so refreshes don't repeat platform calls
+    private record ServerDiscovery(Set<String> channelIds, Set<String> platformUserIds, Instant discoveredAt) {}
+
+    private final Map<String, ServerDiscovery> discoveryCache = new ConcurrentHashMap<>();
+
     // Save connection to the connection database
     @Transactional
     public ConnectionEntity saveConnection(
@@ -95,9 +133,9 @@ public class CommsService {
     public List<UserEntity> getUsersByProjectId(@NonNull UUID projectId, @Nullable Platform platform) {
         List<UserEntity> users;
         if (platform != null) {
-            users = userRepo.findAllByProjectIdAndPlatform(projectId, platform);
+            users = userRepo.findAllByProjectIdAndPlatformAndActiveTrue(projectId, platform);
         } else {
-            users = userRepo.findAllByProjectId(projectId);
+            users = userRepo.findAllByProjectIdAndActiveTrue(projectId);
         }
         return users;
     }
@@ -122,11 +160,84 @@ public class CommsService {
         }
     }
 
+    // Save the platform server of a communication integration, used to refresh its channels and users later
+    @Transactional
+    public ServerEntity saveServer(@NonNull UUID projectId, @NonNull String platformServerId, @NonNull Platform platform) {
+        ServerEntity serverEntity = new ServerEntity(projectId, platformServerId, platform);
+        serverEntity = serverRepo.save(serverEntity);
+        return serverEntity;
+    }
+
+    // Delete the saved platform servers of a project (optionally only in given platform)
+    @Transactional
+    public void deleteServers(@NonNull UUID projectId, @Nullable Platform platform) {
+        if (platform != null) {
+            serverRepo.deleteInBulkByProjectIdAndPlatform(projectId, platform);
+        } else {
+            serverRepo.deleteInBulkByProjectId(projectId);
+        }
+    }
+
     // Delete communication integrations for a given project (optionally only in given platform)
     @Transactional
     public void deleteCommsIntegration(@NonNull UUID projectId, @Nullable Platform platform) {
         this.deleteConnections(projectId, platform);
         this.deleteUsersByProjectId(projectId, platform);
+        this.deleteServers(projectId, platform);
+    }
+
+    // Get the channel and user IDs of a platform server, from the cache if they were discovered within the TTL
+    // and not before notBefore (if given)
+    private ServerDiscovery discoverServer(
+        @NonNull Platform platform,
+        @NonNull String serverId,
+        @Nullable Instant notBefore
+    ) throws Exception {
+        String cacheKey = platform.toString() + ":" + serverId;
+        ServerDiscovery cached = discoveryCache.get(cacheKey);
+        if (cached != null
+            && cached.discoveredAt().plus(Duration.ofMinutes(discoveryTtlMinutes)).isAfter(Instant.now())
+            && (notBefore == null || !cached.discoveredAt().isBefore(notBefore))) {
+            return cached;
+        }
+
+        ServerDiscovery discovery;
+        if (platform.equals(Platform.DISCORD)) {
+            discovery = new ServerDiscovery(
+                new LinkedHashSet<>(discordClient.getGuildChannelIds(serverId)),
+                new LinkedHashSet<>(discordClient.getGuildMemberNames(serverId)),
+                Instant.now()
+            );
+        } else {
+            throw new Exception("Platform not supported.");
+        }
+
+        discoveryCache.put(cacheKey, discovery);
+        return discovery;
+    }
+
+    // Get the channel and user IDs of all given servers
+    private ServerDiscovery discoverServers(
+        @NonNull Platform platform,
+        @NonNull List<ServerEntity> servers,
+        @Nullable Instant notBefore
+    ) throws Exception {
+        Set<String> channelIds = new HashSet<>();
+        Set<String> platformUserIds = new HashSet<>();
+        for (ServerEntity server : servers) {
+            ServerDiscovery discovery = this.discoverServer(platform, server.getPlatformServerId(), notBefore);
+            channelIds.addAll(discovery.channelIds());
+            platformUserIds.addAll(discovery.platformUserIds());
+        }
+        return new ServerDiscovery(channelIds, platformUserIds, Instant.now());
+    }
+
+    // Get the ID of the platform server a channel belongs to
+    private String findServerOfChannel(@NonNull Platform platform, @NonNull String channelId) throws Exception {
+        if (platform.equals(Platform.DISCORD)) {
+            return discordClient.getChannelGuildId(channelId);
+        }
+        throw new Exception("Platform not supported.");
     }
 
     // Add a communication integration to a project by saving the corresponding channel and user IDs in the repos
@@ -137,25 +248,164 @@ public class CommsService {
         @NonNull String serverId
     ) throws Exception {
         ArrayList<ConnectionEntity> connections = new ArrayList<ConnectionEntity>(); 
-        List<String> channelIdList, platformUserIdList;
+        ServerDiscovery discovery = this.discoverServer(platform, serverId, null);
 
-        if (platform.equals(Platform.DISCORD)) {
-            channelIdList = discordClient.getGuildChannelIds(serverId);
-            platformUserIdList = discordClient.getGuildMemberNames(serverId);
-        } else {
-            throw new Exception("Platform not supported.");
-        }
-
-        for (String channel : channelIdList) {
+        for (String channel : discovery.channelIds()) {
             var connection = this.saveConnection(projectId, channel, platform, null); 
             connections.add(connection);
         }
-        for (String platformUser : platformUserIdList) {
+        for (String platformUser : discovery.platformUserIds()) {
             this.saveUser(projectId, platformUser, platform, null);
         }
+        this.saveServer(projectId, serverId, platform);
         return connections;
     }
 
+    // Refresh the channels and users of the integrated servers of a project on a platform, only inserting newly
+    // discovered entries and deleting ones that no longer exist, so last message IDs and trace user IDs are kept
+    @Transactional
+    public List<ConnectionEntity> refreshCommsIntegration(
+        @NonNull UUID projectId,
+        @NonNull Platform platform,
+        @Nullable String serverId
+    ) throws Exception {
+        if (serverId != null) {
+            this.saveServer(projectId, serverId, platform);
+        }
+
+        List<ServerEntity> servers = serverRepo.findAllByProjectIdAndPlatform(projectId, platform);
+        if (servers.isEmpty()) {
+            // Nothing to compare against, the integration was added before servers were saved
+            return this.getConnections(projectId, platform);
+        }
+
+        return this.applyDiscovery(projectId, platform, this.discoverServers(platform, servers, null));
+    }
+
+    // Store the difference between the discovered and the stored channels and users, must run in a transaction.
+    // Users that are no longer members are only marked inactive and become active again if they rejoin
+    private List<ConnectionEntity> applyDiscovery(
+        @NonNull UUID projectId,
+        @NonNull Platform platform,
+        @NonNull ServerDiscovery discovery
+    ) {
+        Set<String> channelIds = new HashSet<>(discovery.channelIds());
+        Set<String> platformUserIds = new HashSet<>(discovery.platformUserIds());
+
+        // Diff the discovered channels against the stored connections
+        List<ConnectionEntity> removedConnections = new ArrayList<>();
+        for (ConnectionEntity connection : connectionRepo.findAllByProjectIdAndPlatform(projectId, platform)) {
+            if (!channelIds.remove(connection.getPlatformChannelId())) {
+                removedConnections.add(connection);
+            }
+        }
+        List<ConnectionEntity> addedConnections = channelIds.stream()
+            .map(channel -> new ConnectionEntity(projectId, channel, platform, "0"))
+            .toList();
+
+        // Diff the discovered members against the stored users
+        List<UserEntity> changedUsers = new ArrayList<>();
+        int removedUsers = 0;
+        int rejoinedUsers = 0;
+        for (UserEntity user : userRepo.findAllByProjectIdAndPlatform(projectId, platform)) {
+            boolean member = platformUserIds.remove(user.getPlatformUserId());
+            if (member != user.isActive()) {
+                user.setActive(member);
+                changedUsers.add(user);
+                if (member) {
+                    rejoinedUsers++;
+                } else {
+                    removedUsers++;
+                }
+            }
+        }
+        List<UserEntity> addedUsers = platformUserIds.stream()
+            .map(platformUser -> new UserEntity(projectId, platformUser, platform, null))
+            .toList();
+
+        connectionRepo.deleteAllInBatch(removedConnections);
+        connectionRepo.saveAll(addedConnections);
+        userRepo.saveAll(changedUsers);
+        userRepo.saveAll(addedUsers);
+
+        logger.info("Refreshed " + platform.toString() + " integration of project " + projectId.toString()
+            + ": " + addedConnections.size() + " channels added, " + removedConnections.size() + " channels removed, "
+            + addedUsers.size() + " users added, " + rejoinedUsers + " users rejoined, " + removedUsers
+            + " users removed");
+
+        return this.getConnections(projectId, platform);
+    }
+
+    // Refresh every integrated project, used for the thread that periodically pulls messages. The servers are
+    // discovered outside of any transaction and only once per cycle, even if several projects integrated them
+    public void refreshAllCommsIntegrations() {
+        Instant cycleStart = Instant.now();
+        Map<UUID, Map<Platform, List<ServerEntity>>> projectServers = new HashMap<>();
+        for (ServerEntity server : serverRepo.findAll()) {
+            projectServers.computeIfAbsent(server.getProjectId(), id -> new HashMap<>())
+                .computeIfAbsent(server.getPlatform(), platform -> new ArrayList<>())
+                .add(server);
+        }
+
+        for (Map.Entry<UUID, Map<Platform, List<ServerEntity>>> entry : projectServers.entrySet()) {
+            for (Map.Entry<Platform, List<ServerEntity>> servers : entry.getValue().entrySet()) {
+                try {
+                    ServerDiscovery discovery = this.discoverServers(servers.getKey(), servers.getValue(), cycleStart);
+                    // Calls within this bean bypass @Transactional, so each project is updated in its own transaction
+                    transactionTemplate.executeWithoutResult(
+                        status -> this.applyDiscovery(entry.getKey(), servers.getKey(), discovery));
+                } catch (Exception e) {
+                    logger.error("Failed to refresh " + servers.getKey().toString() + " integration of project "
+                        + entry.getKey().toString() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Save the servers of integrations that were added before servers were saved, so they are refreshed as well.
+    // The server of each channel is looked up until every channel of the integration belongs to a saved server
+    public void backfillServers() {
+        Map<UUID, Map<Platform, Set<String>>> projectChannels = new HashMap<>();
+        for (ConnectionEntity connection : connectionRepo.findAll()) {
+            projectChannels.computeIfAbsent(connection.getProjectId(), id -> new HashMap<>())
+                .computeIfAbsent(connection.getPlatform(), platform -> new LinkedHashSet<>())
+                .add(connection.getPlatformChannelId());
+        }
+
+        for (Map.Entry<UUID, Map<Platform, Set<String>>> entry : projectChannels.entrySet()) {
+            for (Map.Entry<Platform, Set<String>> channels : entry.getValue().entrySet()) {
+                UUID projectId = entry.getKey();
+                Platform platform = channels.getKey();
+                if (!serverRepo.findAllByProjectIdAndPlatform(projectId, platform).isEmpty()) {
+                    continue;
+                }
+
+                Set<String> remaining = new LinkedHashSet<>(channels.getValue());
+                List<ServerEntity> servers = new ArrayList<>();
+                for (String channelId : channels.getValue()) {
+                    if (!remaining.contains(channelId)) {
+                        continue;
+                    }
+                    try {
+                        String serverId = this.findServerOfChannel(platform, channelId);
+                        servers.add(new ServerEntity(projectId, serverId, platform));
+                        remaining.removeAll(this.discoverServer(platform, serverId, null).channelIds());
+                    } catch (Exception e) {
+                        // The channel may have been deleted, the other channels can still identify the server
+                        logger.warn("Failed to find the server of " + platform.toString() + " channel "
+                            + channelId + ": " + e.getMessage());
+                    }
+                }
+
+                serverRepo.saveAll(servers);
+                if (!servers.isEmpty()) {
+                    logger.info("Saved " + servers.size() + " " + platform.toString() + " servers of project "
+                        + projectId.toString() + " integrated before servers were saved");
+                }
+            }
+        }
+    }
+
     // Get all connections, used for the thread that periodically pulls messages
     public List<ConnectionEntity> getAllConnections() {
         return connectionRepo.findAll();
@@ -168,6 +418,16 @@ public class CommsService {
         return user.isPresent() ? user.get().getUserId() : null;
     }
 
+    // Select the REST client of a platform, null if the platform is not supported
+    private CommsPlatformRestClient getPlatformClient(Platform platform) {
+        switch (platform) {
+            case DISCORD:
+                return this.discordClient;
+            default:
+                return null;
+        }
+    }
+
     // Used for getting a batch of messages from a platform channel
     public String getMessageBatchFromChannel(
         UUID projectId,
@@ -177,16 +437,9 @@ public class CommsService {
         boolean updateLastMessageId,
         boolean sendToGenAi
     ) {
-        CommsPlatformRestClient client = null;
-        List<CommsMessage> messageBatch = new ArrayList<>();
-
-        // Select client
-        switch (platform) {
-            case DISCORD:
-                client = this.discordClient;
-                break;
-            default:
-                return "Platform not supported.";
+        CommsPlatformRestClient client = getPlatformClient(platform);
+        if (client == null) {
+            return "Platform not supported.";
         }
 
         if (lastMessageId == null) {
@@ -194,7 +447,48 @@ public class CommsService {
         }
 
         // Get the messages in batches
-        messageBatch.addAll(client.getChannelMessages(channelId, lastMessageId, projectId));
+        return processMessageBatch(projectId, platform, channelId,
+            client.getChannelMessages(channelId, lastMessageId, projectId), updateLastMessageId, sendToGenAi);
+    }
+
+    // Non-blocking variant used by the comms thread, so many channels can be fetched concurrently while
+    // the fetched batches are processed on the comms executor
+    public CompletableFuture<String> getMessageBatchFromChannelAsync(
+        UUID projectId,
+        Platform platform,
+        String channelId,
+        String lastMessageId,
+        boolean updateLastMessageId,
+        boolean sendToGenAi
+    ) {
+        CommsPlatformRestClient client = getPlatformClient(platform);
+        if (client == null) {
+            return CompletableFuture.completedFuture("Platform not supported.");
+        }
+
+        if (lastMessageId == null) {
+            try {
+                lastMessageId = connectionRepo.findById(new ConnectionCompositeKey(projectId, channelId, platform)).get().getLastMessageId();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return client.getChannelMessagesAsync(channelId, lastMessageId, projectId)
+            .thenApplyAsync(messages -> processMessageBatch(
+                projectId, platform, channelId, messages, updateLastMessageId, sendToGenAi), commsExecutor);
+    }
+
+    // Update the last message ID, convert a fetched batch to the gen AI format and optionally send it
+    private String processMessageBatch(
+        UUID projectId,
+        Platform platform,
+        String channelId,
+        List<? extends CommsMessage> messages,
+        boolean updateLastMessageId,
+        boolean sendToGenAi
+    ) {
+        List<CommsMessage> messageBatch = new ArrayList<>(messages);
 
         if (messageBatch.isEmpty()) {
             return "[]";
@@ -3,6 +3,15 @@ package com.trace.comms_connector;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +23,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class CommsThread extends Thread {
     private static CommsService commsService;
+    private static int maxConcurrentPulls = 8;
 
     private static boolean alive = false;
     private static CommsThread instance;
@@ -21,52 +31,40 @@ public class CommsThread extends Thread {
     private Logger logger = LoggerFactory.getLogger(CommsThread.class);
 
     /* 
-     * Thread that pulls messages from external communication platforms and sends
-     * these to the gen AI microservice every 24 hours
+     * Thread that refreshes the integrated channels and users, pulls messages from external
+     * communication platforms and sends these to the gen AI microservice every 24 hours
      */
     @Override
     public void run() {
+        // Integrations added before servers were saved would otherwise never be refreshed
+        try {
+            CommsThread.commsService.backfillServers();
+        } catch (Exception e) {
+            logger.error("Failed to save the servers of older comms integrations: " + e.getMessage());
+        }
+
         while (true) {
             Instant before = Instant.now();
 
+            logger.info("Refreshing comms integrations...");
+
+            // Pick up channels and users that were added or removed since the last cycle
+            CommsThread.commsService.refreshAllCommsIntegrations();
+
             List<ConnectionEntity> connections = CommsThread.commsService.getAllConnections();
 
             logger.info("Pulling messages...");
 
-            for (int i = 0; i < connections.size(); i++) {
-                ConnectionEntity connection = connections.get(i);
+            CompletableFuture<Void> pulls = pullAll(connections);
 
-                try {
-                    String msgs = "[]";
-
-                    do {
-                        msgs = CommsThread.commsService.getMessageBatchFromChannel(
-                            connection.getProjectId(),
-                            connection.getPlatform(),
-                            connection.getPlatformChannelId(),
-                            null,
-                            true,
-                            true
-                        );
-                    } while (!msgs.equals("[]"));
-
-                } catch (RuntimeException re) {
-                    
-                    logger.error("Failed to pull messages from platform "
-                        + connection.getPlatform().toString() + ", channel ID "
-                        + connection.getPlatformChannelId());
-                    
-                    try {
-                        sleep(Long.parseLong(re.getMessage()) * 1000);
-                        i--; // Retry the same connection after waiting
-                    } catch (Exception e) {
-                        logger.error("An error has occured in the comms thread: " + e.getMessage());
-                        logger.info("Stopping the comms thread...");
-                        CommsThread.alive = false;
-                        return;
-                    }
-                }
-                
+            try {
+                pulls.get();
+            } catch (InterruptedException e) {
+                pulls.cancel(true);
+                CommsThread.alive = false;
+                return;
+            } catch (ExecutionException e) {
+                logger.error("An error has occured in the comms thread: " + e.getMessage());
             }
 
             Instant after = Instant.now();
@@ -87,6 +85,77 @@ public class CommsThread extends Thread {
         }
     }
 
+    // Pull the channels concurrently, but at most maxConcurrentPulls at a time so a large number of connections
+    // does not hit the platform's rate limit all at once. The platform requests do not block any threads while
+    // in flight, each of the lanes takes the next channel once its current one is done
+    CompletableFuture<Void> pullAll(List<ConnectionEntity> connections) {
+        Queue<ConnectionEntity> pending = new ConcurrentLinkedQueue<>(connections);
+        CompletableFuture<?>[] lanes = IntStream.range(0, Math.min(CommsThread.maxConcurrentPulls, connections.size()))
+            .mapToObj(lane -> pullNext(pending))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(lanes);
+    }
+
+    private CompletableFuture<Void> pullNext(Queue<ConnectionEntity> pending) {
+        ConnectionEntity connection = pending.poll();
+        if (connection == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return pullChannel(connection)
+            .handle((ignored, error) -> {
+                if (error != null) {
+                    logger.error("An error has occured while pulling channel ID "
+                        + connection.getPlatformChannelId() + ": " + error.getMessage());
+                }
+                return null;
+            })
+            .thenCompose(ignored -> pullNext(pending));
+    }
+
+    // Pull the batches of a channel one after another until no new messages are returned, waiting
+    // for the platform's retry delay without holding a thread when the request was rate limited
+    private CompletableFuture<Void> pullChannel(ConnectionEntity connection) {
+        return CommsThread.commsService.getMessageBatchFromChannelAsync(
+                connection.getProjectId(),
+                connection.getPlatform(),
+                connection.getPlatformChannelId(),
+                null,
+                true,
+                true
+            )
+            .handle((msgs, error) -> {
+                if (error == null) {
+                    return msgs.equals("[]") ? CompletableFuture.<Void>completedFuture(null) : pullChannel(connection);
+                }
+
+                logger.error("Failed to pull messages from platform "
+                    + connection.getPlatform().toString() + ", channel ID "
+                    + connection.getPlatformChannelId());
+
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                long retryAfterMillis;
+                try {
+                    retryAfterMillis = (long) Math.ceil(Double.parseDouble(cause.getMessage()) * 1000);
+                } catch (Exception e) {
+                    logger.error("Skipping channel ID " + connection.getPlatformChannelId()
+                        + " until the next cycle: " + cause.getMessage());
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+
+                // Retry the same connection after waiting, rate limited channels don't all retry at the same time
+                Executor delayed = CompletableFuture.delayedExecutor(
+                    retryDelayMillis(retryAfterMillis), TimeUnit.MILLISECONDS);
+                return CompletableFuture.runAsync(() -> {}, delayed)
+                    .thenCompose(ignored -> pullChannel(connection));
+            })
+            .thenCompose(next -> next);
+    }
+
+    // Add up to half of the platform's retry delay as random jitter
+    static long retryDelayMillis(long retryAfterMillis) {
+        return retryAfterMillis + ThreadLocalRandom.current().nextLong(retryAfterMillis / 2 + 1);
+    }
+
     public void stopThread() throws RuntimeException {
         synchronized (CommsThread.class) {
             if (!CommsThread.alive) {
@@ -120,6 +189,12 @@ public class CommsThread extends Thread {
         }
     }
 
+    public static void setMaxConcurrentPulls(int maxConcurrentPulls) {
+        synchronized (CommsThread.class) {
+            CommsThread.maxConcurrentPulls = Math.max(1, maxConcurrentPulls);
+        }
+    }
+
     public static void setCommsService(CommsService service) {
         synchronized (CommsThread.class) {
             CommsThread.commsService = service;
@@ -1,6 +1,7 @@
 package com.trace.comms_connector;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -12,9 +13,13 @@ public class CommsThreadRunner {
     @Autowired
     private CommsService commsService;
 
+    @Value("${trace.comms.max-concurrent-pulls:8}")
+    private int maxConcurrentPulls;
+
     @EventListener(ApplicationReadyEvent.class)
     public void runCommsThreadOnStartup() {
         CommsThread.setCommsService(commsService);
+        CommsThread.setMaxConcurrentPulls(maxConcurrentPulls);
         CommsThread.getInstance().startThread();
     }
 
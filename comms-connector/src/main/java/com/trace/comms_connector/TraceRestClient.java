@@ -3,6 +3,7 @@ package com.trace.comms_connector;
 import java.util.HashSet;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
@@ -18,6 +19,9 @@ public final class TraceRestClient {
     @Value("${trace.project-management.base-url}")
     private String projectManagementBaseUrl;
 
+    @Autowired
+    private GenAiConcurrencyLimiter genAiLimiter;
+
     private RestClient getGenAiClient() {
         return RestClient.builder().baseUrl(genAiBaseUrl).build();
     }
@@ -29,11 +33,14 @@ public final class TraceRestClient {
     /**
      * Send a list of messages to the gen AI microservice
      * 
+     * The request is subject to the adaptive gen AI concurrency limit, and throws a
+     * GenAiConcurrencyLimiter.LimitExceededException if it could not be sent in time
+     * 
      * @param messageJsons is a JSON array of messages, according to the specification in the gen AI endpoint
      * @return reponse entity
      */
     public ResponseEntity<?> sendMessageListToGenAi(String messageJsons) {
-        return getGenAiClient()
+        return genAiLimiter.execute(() -> getGenAiClient()
             .post()
             .uri(uriBuilder -> uriBuilder
                 .path("/content")
@@ -41,7 +48,7 @@ public final class TraceRestClient {
             .contentType(MediaType.APPLICATION_JSON)
             .body(messageJsons)
             .retrieve()
-            .toBodilessEntity();
+            .toBodilessEntity());
     }
 
     /**
@@ -0,0 +1,22 @@
+package com.trace.comms_connector.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Small pool that processes fetched message batches (DB updates and gen AI calls), the platform
+    // requests themselves are non-blocking and do not hold any of these threads
+    @Bean(name = "commsExecutor")
+    public ThreadPoolTaskExecutor commsExecutor(@Value("${trace.comms.worker-threads:4}") int workerThreads) {
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setCorePoolSize(workerThreads);
+        exec.setMaxPoolSize(workerThreads);
+        exec.setThreadNamePrefix("comms-");
+        exec.initialize();
+        return exec;
+    }
+}
@@ -1,13 +1,24 @@
 package com.trace.comms_connector.discord;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trace.comms_connector.model.CommsPlatformRestClient;
 
 @Component
@@ -24,6 +35,14 @@ public class DiscordRestClient implements CommsPlatformRestClient {
     @Value("${trace.discord.base-url}")
     private String baseUrl;
 
+    // Shared non-blocking client for the async SPI, requests are multiplexed over its selector thread
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     private RestClient getRestClient() {
         return RestClient.builder().baseUrl(baseUrl + "/" + apiVersion).build();
     }
@@ -44,6 +63,19 @@ public class DiscordRestClient implements CommsPlatformRestClient {
             .toList();
     }
 
+    public String getChannelGuildId(String channelId) {
+        DiscordChannel channel = getRestClient()
+            .get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/channels/" + channelId)
+                .build())
+            .header("Authorization", token)
+            .retrieve()
+            .body(DiscordChannel.class);
+
+        return (String) channel.getDetails().get("guild_id");
+    }
+
     public List<String> getGuildMemberNames(String guildId) {
         List<DiscordGuildMember> guildMembers = getRestClient()
             .get()
@@ -81,4 +113,35 @@ public class DiscordRestClient implements CommsPlatformRestClient {
 
         return messages;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<List<DiscordMessage>> getChannelMessagesAsync(String channelId, String lastMessageId, UUID projectId) {
+        URI uri = UriComponentsBuilder.fromUriString(baseUrl + "/" + apiVersion)
+            .path("/channels/" + channelId + "/messages")
+            .queryParam("limit", 100)
+            .queryParam("after", lastMessageId)
+            .build()
+            .toUri();
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Authorization", token)
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                if (response.statusCode() >= 400) {
+                    // Same contract as the blocking client: the message is the number of seconds to wait
+                    throw new RuntimeException(response.headers().firstValue("Retry-After")
+                        .orElse("Discord responded with status " + response.statusCode()));
+                }
+
+                try {
+                    return objectMapper.readValue(response.body(), new TypeReference<List<DiscordMessage>>() {});
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not parse Discord messages: " + e.getMessage(), e);
+                }
+            });
+    }
+}
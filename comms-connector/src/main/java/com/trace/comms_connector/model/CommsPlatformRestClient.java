@@ -2,7 +2,21 @@ package com.trace.comms_connector.model;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface CommsPlatformRestClient {
     public List<? extends CommsMessage> getChannelMessages(String channelId, String lastMessageId, UUID projectId);
+
+    /**
+     * Non-blocking variant of getChannelMessages, no thread is held while waiting for the platform to respond.
+     * A rate limited or failed request completes the future exceptionally with a RuntimeException whose message
+     * is the number of seconds to wait before retrying, same as the synchronous variant.
+     * 
+     * @param channelId
+     * @param lastMessageId
+     * @param projectId
+     * @return future of the next page of messages after the last message ID
+     */
+    public CompletableFuture<? extends List<? extends CommsMessage>> getChannelMessagesAsync(
+        String channelId, String lastMessageId, UUID projectId);
 }
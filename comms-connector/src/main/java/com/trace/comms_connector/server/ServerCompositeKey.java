@@ -0,0 +1,15 @@
+package com.trace.comms_connector.server;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import com.trace.comms_connector.Platform;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+public class ServerCompositeKey implements Serializable {
+    private UUID projectId;
+    private String platformServerId;
+    private Platform platform;
+}
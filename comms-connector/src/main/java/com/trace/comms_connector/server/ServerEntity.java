@@ -0,0 +1,25 @@
+package com.trace.comms_connector.server;
+
+import java.util.UUID;
+
+import com.trace.comms_connector.Platform;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Platform server (e.g. Discord guild) a project is integrated with, used to refresh its channels and users
+@Entity
+@Table(name = "Servers")
+@IdClass(ServerCompositeKey.class)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+public class ServerEntity {
+    @Id
+    private UUID projectId;
+
+    @Id
+    private String platformServerId;
+
+    @Enumerated(EnumType.STRING)
+    @Id
+    private Platform platform;
+}
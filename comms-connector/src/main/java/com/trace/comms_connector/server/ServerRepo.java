@@ -0,0 +1,21 @@
+package com.trace.comms_connector.server;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.trace.comms_connector.Platform;
+
+@Repository
+public interface ServerRepo extends JpaRepository<ServerEntity, ServerCompositeKey> {
+
+    List<ServerEntity> findAllByProjectId(UUID projectId);
+
+    List<ServerEntity> findAllByProjectIdAndPlatform(UUID projectId, Platform platform);
+
+    void deleteInBulkByProjectId(UUID projectId);
+
+    void deleteInBulkByProjectIdAndPlatform(UUID projectId, Platform platform);
+}
@@ -23,4 +23,12 @@ public class UserEntity {
     private Platform platform;
 
     private UUID userId;
+
+    // Members that left the platform server are kept inactive, so their assigned trace user ID is not lost
+    @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
+    private boolean active = true;
+
+    public UserEntity(UUID projectId, String platformUserId, Platform platform, UUID userId) {
+        this(projectId, platformUserId, platform, userId, true);
+    }
 }
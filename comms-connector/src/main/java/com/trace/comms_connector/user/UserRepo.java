@@ -17,6 +17,10 @@ public interface UserRepo extends JpaRepository<UserEntity, UserCompositeKey> {
 
     List<UserEntity> findAllByProjectIdAndPlatform(UUID projectId, Platform platform);
 
+    List<UserEntity> findAllByProjectIdAndActiveTrue(UUID projectId);
+
+    List<UserEntity> findAllByProjectIdAndPlatformAndActiveTrue(UUID projectId, Platform platform);
+
     void deleteInBulkByProjectId(UUID projectId);
     
     void deleteInBulkByUserId(UUID userId);
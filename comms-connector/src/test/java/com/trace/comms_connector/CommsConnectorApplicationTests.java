@@ -7,8 +7,12 @@ import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +33,8 @@ import com.trace.comms_connector.discord.DiscordMessage;
 import com.trace.comms_connector.discord.DiscordRestClient;
 import com.trace.comms_connector.discord.DiscordUser;
 import com.trace.comms_connector.model.GenAiMessage;
+import com.trace.comms_connector.server.ServerEntity;
+import com.trace.comms_connector.server.ServerRepo;
 import com.trace.comms_connector.user.UserEntity;
 import com.trace.comms_connector.user.UserRepo;
 
@@ -46,6 +52,12 @@ class CommsConnectorApplicationTests {
 	@Autowired
 	private UserRepo userRepo;
 
+	@Autowired
+	private ServerRepo serverRepo;
+
+	@Autowired
+	private CommsService commsService;
+
 	@MockitoBean
 	private DiscordRestClient discordClientMock;
 
@@ -60,6 +72,7 @@ class CommsConnectorApplicationTests {
 	public void clearRepos() {
 		userRepo.deleteAll();
 		connectionRepo.deleteAll();
+		serverRepo.deleteAll();
 	}
 
 	// Test getting platform users when there are no connections added
@@ -190,6 +203,184 @@ class CommsConnectorApplicationTests {
 		);
 	}
 
+	// Test refreshing a connection, should only add new and remove deleted channels, users that left are kept inactive
+	@Test
+	public void test_refreshCommsIntegration() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+		// Unique server ID so no discovery cached by another test is used
+		String serverId = UUID.randomUUID().toString();
+
+		serverRepo.save(new ServerEntity(projectId, serverId, platform));
+		connectionRepo.save(new ConnectionEntity(projectId, "2", platform, "0"));
+		connectionRepo.save(new ConnectionEntity(projectId, "3", platform, "42"));
+		userRepo.save(new UserEntity(projectId, "user1", platform, null));
+		userRepo.save(new UserEntity(projectId, "user2", platform, userId));
+
+		when(discordClientMock.getGuildChannelIds(serverId)).thenReturn(Arrays.asList("3", "4"));
+		when(discordClientMock.getGuildMemberNames(serverId)).thenReturn(Arrays.asList("user2", "user3"));
+
+		mockMvc.perform(
+			post("/projects/{projectId}/comms/{platform}/refresh", projectId, platform)
+		).andExpectAll(
+			status().is2xxSuccessful()
+		);
+
+		assertEquals(
+			new HashSet<>(connectionRepo.findAll()),
+			new HashSet<>(Arrays.asList(
+				new ConnectionEntity(projectId, "3", platform, "42"),
+				new ConnectionEntity(projectId, "4", platform, "0")
+			))
+		);
+
+		assertEquals(
+			new HashSet<>(userRepo.findAll()),
+			new HashSet<>(Arrays.asList(
+				new UserEntity(projectId, "user1", platform, null, false),
+				new UserEntity(projectId, "user2", platform, userId),
+				new UserEntity(projectId, "user3", platform, null)
+			))
+		);
+	}
+
+	// Test refreshing a connection when a user that left rejoins, should keep the assigned trace user ID
+	@Test
+	public void test_refreshCommsIntegration_rejoinedUser() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+		String serverId = UUID.randomUUID().toString();
+
+		serverRepo.save(new ServerEntity(projectId, serverId, platform));
+		userRepo.save(new UserEntity(projectId, "user1", platform, userId, false));
+
+		when(discordClientMock.getGuildChannelIds(serverId)).thenReturn(Arrays.asList());
+		when(discordClientMock.getGuildMemberNames(serverId)).thenReturn(Arrays.asList("user1"));
+
+		mockMvc.perform(
+			post("/projects/{projectId}/comms/{platform}/refresh", projectId, platform)
+		).andExpectAll(
+			status().is2xxSuccessful()
+		);
+
+		assertEquals(
+			userRepo.findAll(),
+			Arrays.asList(new UserEntity(projectId, "user1", platform, userId))
+		);
+	}
+
+	// Test getting platform users, users that left the server should not be listed
+	@Test
+	public void test_getPlatformUsers_inactive() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+
+		UserEntity activeUser = new UserEntity(projectId, "user1", platform, null);
+		userRepo.save(activeUser);
+		userRepo.save(new UserEntity(projectId, "user2", platform, UUID.randomUUID(), false));
+
+		mockMvc.perform(
+			get("/projects/{projectId}/comms/{platform}/users", projectId, platform)
+		).andExpectAll(
+			status().is2xxSuccessful(),
+			content().string(new ObjectMapper().writeValueAsString(Arrays.asList(activeUser)))
+		);
+	}
+
+	// Test the periodic refresh, a server integrated by two projects should only be requested once
+	@Test
+	public void test_refreshAllCommsIntegrations() throws Exception {
+		UUID projectId1 = UUID.randomUUID();
+		UUID projectId2 = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+		String serverId = UUID.randomUUID().toString();
+
+		serverRepo.save(new ServerEntity(projectId1, serverId, platform));
+		serverRepo.save(new ServerEntity(projectId2, serverId, platform));
+		connectionRepo.save(new ConnectionEntity(projectId1, "2", platform, "42"));
+
+		when(discordClientMock.getGuildChannelIds(serverId)).thenReturn(Arrays.asList("2", "3"));
+		when(discordClientMock.getGuildMemberNames(serverId)).thenReturn(Arrays.asList("user1"));
+
+		commsService.refreshAllCommsIntegrations();
+
+		assertEquals(
+			new HashSet<>(connectionRepo.findAll()),
+			new HashSet<>(Arrays.asList(
+				new ConnectionEntity(projectId1, "2", platform, "42"),
+				new ConnectionEntity(projectId1, "3", platform, "0"),
+				new ConnectionEntity(projectId2, "2", platform, "0"),
+				new ConnectionEntity(projectId2, "3", platform, "0")
+			))
+		);
+		assertEquals(2, userRepo.findAll().size());
+		verify(discordClientMock, times(1)).getGuildChannelIds(serverId);
+		verify(discordClientMock, times(1)).getGuildMemberNames(serverId);
+
+		// The refresh endpoint uses the discovery of the cycle
+		mockMvc.perform(
+			post("/projects/{projectId}/comms/{platform}/refresh", projectId1, platform)
+		).andExpectAll(
+			status().is2xxSuccessful()
+		);
+		verify(discordClientMock, times(1)).getGuildChannelIds(serverId);
+
+		// The next cycle discovers the server again
+		commsService.refreshAllCommsIntegrations();
+		verify(discordClientMock, times(2)).getGuildChannelIds(serverId);
+	}
+
+	// Test saving the servers of integrations added before servers were saved, a server is only looked up once
+	@Test
+	public void test_backfillServers() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+		String serverId = UUID.randomUUID().toString();
+
+		connectionRepo.save(new ConnectionEntity(projectId, "2", platform, "42"));
+		connectionRepo.save(new ConnectionEntity(projectId, "3", platform, "0"));
+
+		when(discordClientMock.getChannelGuildId("2")).thenReturn(serverId);
+		when(discordClientMock.getGuildChannelIds(serverId)).thenReturn(Arrays.asList("2", "3"));
+		when(discordClientMock.getGuildMemberNames(serverId)).thenReturn(Arrays.asList("user1"));
+
+		commsService.backfillServers();
+
+		assertEquals(
+			serverRepo.findAll(),
+			Arrays.asList(new ServerEntity(projectId, serverId, platform))
+		);
+		verify(discordClientMock, times(1)).getChannelGuildId(anyString());
+
+		// Projects that already have saved servers are skipped
+		commsService.backfillServers();
+		verify(discordClientMock, times(1)).getChannelGuildId(anyString());
+	}
+
+	// Test refreshing a connection without saved servers, should not change any connections
+	@Test
+	public void test_refreshCommsIntegration_noServers() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+
+		ConnectionEntity connectionEntity = new ConnectionEntity(projectId, "2", platform, "0");
+		connectionRepo.save(connectionEntity);
+
+		mockMvc.perform(
+			post("/projects/{projectId}/comms/{platform}/refresh", projectId, platform)
+		).andExpectAll(
+			status().is2xxSuccessful()
+		);
+
+		assertEquals(
+			connectionRepo.findAll(),
+			Arrays.asList(connectionEntity)
+		);
+		verifyNoInteractions(discordClientMock);
+	}
+
 	// Test adding a connection without specifying server ID, should return bad request
 	@Test
 	public void test_addCommsIntegration_noServerId() throws Exception {
@@ -551,6 +742,89 @@ class CommsConnectorApplicationTests {
 		);
 	}
 
+	// Test getting channel messages with the non-blocking client used by the comms thread
+	@Test
+	public void test_getMessageBatchFromChannelAsync() throws Exception {
+		UUID projectId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		Platform platform = Platform.DISCORD;
+		String platformChannelId = "1";
+		String discordUsername = "user1";
+		String lastMessageId = "0";
+
+		connectionRepo.save(new ConnectionEntity(projectId, platformChannelId, platform, lastMessageId));
+		userRepo.save(new UserEntity(projectId, discordUsername, platform, userId));
+
+		DiscordUser author = new DiscordUser();
+		author.setId("id1");
+		author.setUsername(discordUsername);
+		author.setGlobal_name("First User");
+
+		DiscordMessage message = new DiscordMessage();
+		message.setId("m1");
+		message.setChannel_id(platformChannelId);
+		message.setAuthor(author);
+		message.setContent("this is the first message");
+		message.setTimestamp("2025-06-17T13:44:17.385000+00:00");
+
+		String messageJsonResponse = new ObjectMapper().writeValueAsString(
+			Arrays.asList(message.getGenAiMessage(userId, projectId)));
+
+		when(discordClientMock.getChannelMessagesAsync(platformChannelId, lastMessageId, projectId))
+			.thenReturn(CompletableFuture.completedFuture(Arrays.asList(message)));
+
+		String result = commsService.getMessageBatchFromChannelAsync(
+			projectId, platform, platformChannelId, null, true, true).get();
+
+		assertEquals(messageJsonResponse, result);
+		assertEquals("m1", connectionRepo.findAll().get(0).getLastMessageId());
+		verify(traceClientMock).sendMessageListToGenAi(messageJsonResponse);
+		verify(discordClientMock, never()).getChannelMessages(any(), any(), any());
+	}
+
+	// Test that the comms thread pulls at most the configured number of channels at a time
+	@Test
+	public void test_commsThread_limitsConcurrentPulls() throws Exception {
+		CommsService commsServiceMock = mock(CommsService.class);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		when(commsServiceMock.getMessageBatchFromChannelAsync(any(), any(), any(), any(), anyBoolean(), anyBoolean()))
+			.thenAnswer(invocation -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				return CompletableFuture.supplyAsync(() -> {
+					inFlight.decrementAndGet();
+					return "[]";
+				}, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+			});
+
+		List<ConnectionEntity> connections = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			connections.add(new ConnectionEntity(UUID.randomUUID(), String.valueOf(i), Platform.DISCORD, "0"));
+		}
+
+		try {
+			CommsThread.setCommsService(commsServiceMock);
+			CommsThread.setMaxConcurrentPulls(2);
+			new CommsThread().pullAll(connections).get(5, TimeUnit.SECONDS);
+		} finally {
+			CommsThread.setMaxConcurrentPulls(8);
+			CommsThread.setCommsService(commsService);
+		}
+
+		assertEquals(2, maxInFlight.get());
+		verify(commsServiceMock, times(6))
+			.getMessageBatchFromChannelAsync(any(), any(), any(), any(), anyBoolean(), anyBoolean());
+	}
+
+	// Test that rate limited retries are spread over up to half of the retry delay
+	@Test
+	public void test_commsThread_retryDelayJitter() {
+		for (int i = 0; i < 100; i++) {
+			long delay = CommsThread.retryDelayMillis(1000);
+			assertTrue(delay >= 1000 && delay <= 1500);
+		}
+	}
+
 	// Test get messages with no channel ID, should return bad request
 	@Test
 	public void test_getMessagesFromChannel_noChannelId() throws Exception {
@@ -0,0 +1,46 @@
+package com.trace.comms_connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class GenAiConcurrencyLimiterTest {
+
+	// A failed call cuts the limit by the backoff ratio
+	@Test
+	void test_decreasesLimitOnErrors() {
+		GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 2.0, 100, 1000);
+
+		assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+			throw new IllegalStateException("GenAI unavailable");
+		}));
+
+		assertEquals(4, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	// Uniformly slow calls raise the latency threshold, only a spike cuts the limit
+	@Test
+	void test_adaptsLatencyThresholdToEndpoint() {
+		GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 3.0, 1, 1000);
+
+		for (int i = 0; i < 3; i++) {
+			limiter.execute(() -> sleep(30));
+		}
+		assertEquals(8, limiter.getLimit());
+		assertTrue(limiter.getLatencyThresholdMillis() >= 90);
+
+		limiter.execute(() -> sleep(300));
+		assertEquals(4, limiter.getLimit());
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
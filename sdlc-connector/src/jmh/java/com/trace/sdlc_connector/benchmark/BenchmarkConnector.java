@@ -0,0 +1,107 @@
+package com.trace.sdlc_connector.benchmark;
+
+import com.trace.sdlc_connector.SupportedSystem;
+import com.trace.sdlc_connector.github.*;
+import com.trace.sdlc_connector.github.archive.WebhookArchive;
+import com.trace.sdlc_connector.github.fanin.GithubRoutingIndex;
+import com.trace.sdlc_connector.github.fanin.GithubSubscriptionRepo;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.message.PayloadShaper;
+import com.trace.sdlc_connector.token.TokenEntity;
+import com.trace.sdlc_connector.token.TokenRepo;
+import com.trace.sdlc_connector.token.WebhookKeyCache;
+import com.trace.sdlc_connector.user.UserIdentityCache;
+import com.trace.sdlc_connector.user.UserMappingRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A GithubConnector wired like in the application, with the repositories replaced by in-memory stubs: the project
+ * has one webhook secret and no user mappings. Events are processed synchronously by calling the connector directly.
+ */
+final class BenchmarkConnector implements AutoCloseable {
+
+    static final String SECRET = "benchmark-webhook-secret";
+
+    final UUID projectId = UUID.randomUUID();
+    final GithubConnector connector;
+
+    private final WebhookDispatcher dispatcher;
+    private final WebhookAdmission admission;
+    private final CiEventCoalescer coalescer;
+    private final WebhookArchive archive;
+    private final Path spoolDir;
+
+    BenchmarkConnector(boolean typedContent) throws IOException {
+        TokenRepo tokenRepo = repository(TokenRepo.class,
+                List.of(new TokenEntity(SECRET, projectId, SupportedSystem.GITHUB)));
+        UserMappingRepo userMappingRepo = repository(UserMappingRepo.class, List.of());
+
+        MessageProcessor discard = new MessageProcessor() {
+            @Override
+            public void processMessage(UUID projectId, Message message) {
+            }
+        };
+
+        this.spoolDir = Files.createTempDirectory("sdlc-benchmark-spool");
+        this.dispatcher = new WebhookDispatcher(1, 1000);
+        this.admission = new WebhookAdmission(dispatcher, 50, 200, 256, 16, spoolDir.toString(), 100000);
+        var dedupStore = new DeliveryDedupStore(4320, 100000, false, null);
+        this.coalescer = new CiEventCoalescer(discard, dedupStore, false, 30000, 600000, 10000);
+        // the webhook endpoint is not benchmarked
+        this.archive = new WebhookArchive(false, spoolDir.toString(), 67108864, 60, 30);
+
+        this.connector = new GithubConnector(
+                new WebhookKeyCache(tokenRepo, 300),
+                discard,
+                new UserIdentityCache(userMappingRepo, 300),
+                admission,
+                dedupStore,
+                new PayloadShaper(new StandardEnvironment(), true, 100, 10000),
+                coalescer,
+                new WebhookMetrics(new SimpleMeterRegistry()),
+                archive,
+                // the fan-in endpoint is not benchmarked either
+                new GithubRoutingIndex(repository(GithubSubscriptionRepo.class, List.of()), 0),
+                typedContent,
+                List.of()
+        );
+    }
+
+    @Override
+    public void close() throws Exception {
+        admission.shutdown();
+        coalescer.shutdown();
+        archive.shutdown();
+        dispatcher.shutdown();
+        Files.deleteIfExists(spoolDir);
+    }
+
+    /**
+     * @return a repository whose finder methods all return the entities, other methods are not supported
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, List<?> entities) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("findAllBy")) {
+                return entities;
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
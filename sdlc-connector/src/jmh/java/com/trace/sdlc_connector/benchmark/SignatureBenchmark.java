@@ -0,0 +1,49 @@
+package com.trace.sdlc_connector.benchmark;
+
+import com.trace.sdlc_connector.github.GithubConnector;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of the X-Hub-Signature-256 header of a delivery, including the lookup of the cached key of the
+ * project. Small, typical and large payloads show the part of the cost that grows with the payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+
+    @Param({"delete", "pull_request", "push_large"})
+    public String event;
+
+    private BenchmarkConnector fixture;
+    private byte[] payload;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new BenchmarkConnector(false);
+        String json = WebhookPayloads.load(event);
+        payload = json.getBytes(StandardCharsets.UTF_8);
+        signature = "sha256=" + GithubConnector.calculateSignature(BenchmarkConnector.SECRET, json);
+
+        if (!fixture.connector.verifySignature(fixture.projectId, payload, signature)) {
+            throw new IllegalStateException("Signature of " + event + " is not valid");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return fixture.connector.verifySignature(fixture.projectId, payload, signature);
+    }
+}
@@ -0,0 +1,95 @@
+package com.trace.sdlc_connector.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Webhook payloads of every event type with a handler, in the shape GitHub delivers them
+ * (payloads/&lt;event type&gt;.json). The repository, organization and sender objects that GitHub adds to every
+ * event are kept once in payloads/common.json. Besides the event types there are variants for the bursts that
+ * matter most: a push of 1000 commits (push_large) and a job with 300 steps (workflow_job_large).
+ */
+final class WebhookPayloads {
+
+    static final String LARGE_SUFFIX = "_large";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private WebhookPayloads() {
+    }
+
+    /**
+     * @return the event type of a payload name, without the variant suffix
+     */
+    static String eventType(String name) {
+        return name.endsWith(LARGE_SUFFIX) ? name.substring(0, name.length() - LARGE_SUFFIX.length()) : name;
+    }
+
+    /**
+     * @return the payload as GitHub sends it
+     */
+    static String load(String name) {
+        String eventType = eventType(name);
+        ObjectNode payload = read(eventType);
+
+        // GitHub adds these to every event, they are part of the bytes a handler has to skip
+        Iterator<Map.Entry<String, JsonNode>> common = read("common").fields();
+        while (common.hasNext()) {
+            var field = common.next();
+            if (!payload.has(field.getKey())) {
+                payload.set(field.getKey(), field.getValue());
+            }
+        }
+
+        if (name.endsWith(LARGE_SUFFIX)) {
+            switch (eventType) {
+                case "push" -> repeat((ArrayNode) payload.get("commits"), 1000, "id");
+                case "workflow_job" -> repeat((ArrayNode) payload.get("workflow_job").get("steps"), 300, "number");
+                default -> throw new IllegalArgumentException("No large variant of " + eventType);
+            }
+        }
+
+        try {
+            return MAPPER.writeValueAsString(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectNode read(String name) {
+        try (InputStream in = WebhookPayloads.class.getResourceAsStream("/payloads/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No recorded payload " + name);
+            }
+            return (ObjectNode) MAPPER.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fills the array up to the size with copies of its first element, each with its own id.
+     */
+    private static void repeat(ArrayNode array, int size, String idField) {
+        ObjectNode template = (ObjectNode) array.get(0);
+        array.removeAll();
+        for (int i = 0; i < size; i++) {
+            ObjectNode copy = template.deepCopy();
+            if (idField.equals("number")) {
+                copy.put(idField, i + 1);
+            } else {
+                copy.put(idField, HexFormat.of().toHexDigits(i) + copy.get(idField).asText().substring(8));
+            }
+            array.add(copy);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.trace.sdlc_connector.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processing of one webhook event as a worker does it: parse and extract the payload with the handler of the event
+ * type, shape the content and serialize the MessageDTO that is persisted or forwarded. Throughput and the sampled
+ * latency (p99) come from the two benchmark modes, the allocation per event from the gc profiler
+ * (gc.alloc.rate.norm).
+ * <p>
+ * The typed content model is measured with -p typedContent=true, it only applies to push, pull_request, issues and
+ * workflow_run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookProcessingBenchmark {
+
+    @Param({
+            "commit_comment", "create", "delete", "deployment", "deployment_review", "deployment_status",
+            "discussion", "discussion_comment", "issue_comment", "issues", "milestone", "package", "pull_request",
+            "pull_request_review", "pull_request_review_comment", "pull_request_review_thread", "push",
+            "push_large", "registry_package", "release", "status", "sub_issues", "workflow_dispatch",
+            "workflow_job", "workflow_job_large", "workflow_run"
+    })
+    public String event;
+
+    @Param({"false"})
+    public boolean typedContent;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkConnector fixture;
+    private String eventType;
+    private String payload;
+    private UUID eventId;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new BenchmarkConnector(typedContent);
+        eventType = WebhookPayloads.eventType(event);
+        payload = WebhookPayloads.load(event);
+        eventId = UUID.randomUUID();
+
+        if (fixture.connector.processWebhookEvent(eventType, eventId, fixture.projectId, payload, 0L) == null) {
+            throw new IllegalStateException("Payload " + event + " is not handled");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] process() throws Exception {
+        Message message = fixture.connector.processWebhookEvent(eventType, eventId, fixture.projectId, payload,
+                System.currentTimeMillis());
+        return objectMapper.writeValueAsBytes(new MessageDTO(message));
+    }
+}
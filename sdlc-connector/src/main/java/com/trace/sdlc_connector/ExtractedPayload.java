@@ -0,0 +1,60 @@
+package com.trace.sdlc_connector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of applying an {@link ExtractionPlan} to a payload.
+ */
+public class ExtractedPayload {
+
+    private final Map<String, Object> content = new HashMap<>();
+    private final Map<String, Object> fields = new HashMap<>();
+
+    /**
+     * @return The extracted content paths, structured as nested objects based on the paths.
+     */
+    public Map<String, Object> content() {
+        return content;
+    }
+
+    /**
+     * Reads a field path of the plan.
+     *
+     * @param path The path as passed to the plan, e.g. '$.action'.
+     * @param type The expected type. Scalars are converted if a String is requested.
+     * @return The value or null if the path was missing, null or not part of the plan.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(String path, Class<T> type) {
+        Object value = fields.get(path);
+        if (value == null) {
+            return null;
+        }
+        if (type == String.class && !(value instanceof Map) && !(value instanceof Iterable)) {
+            return (T) value.toString();
+        }
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    void putContent(String[] segments, Object value) {
+        Map<String, Object> current = content;
+        for (int i = 0; i < segments.length - 1; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            current.putIfAbsent(segment, new HashMap<String, Object>());
+            current = (Map<String, Object>) current.get(segment);
+        }
+
+        // Add the value at the final level
+        current.put(segments[segments.length - 1], value);
+    }
+
+    void putField(String path, Object value) {
+        fields.put(path, value);
+    }
+}
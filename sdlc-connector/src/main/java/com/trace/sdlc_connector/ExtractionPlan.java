@@ -0,0 +1,141 @@
+package com.trace.sdlc_connector;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A compiled set of JSON paths that is extracted from a payload in a single streaming pass.
+ * The paths are in the format of JSONPath, restricted to object members (e.g. '$.sender.id').
+ * <p>
+ * Content paths are copied into the content map, structured as nested objects based on the paths.
+ * Field paths are only read and can be looked up by their path, e.g. to build the message type.
+ * Subtrees that are not part of the plan are skipped by the parser without being materialized.
+ * <p>
+ * Plans are immutable and meant to be built once per handler.
+ */
+public final class ExtractionPlan {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private String[] contentSegments;
+        private String fieldPath;
+
+        private boolean captures() {
+            return contentSegments != null || fieldPath != null;
+        }
+    }
+
+    private final List<String> contentPaths;
+    private final List<String> fieldPaths;
+    private final Node root = new Node();
+
+    private ExtractionPlan(List<String> contentPaths, List<String> fieldPaths) {
+        this.contentPaths = contentPaths;
+        this.fieldPaths = fieldPaths;
+
+        for (String path : contentPaths) {
+            node(path).contentSegments = path.substring(2).split("\\.");
+        }
+        for (String path : fieldPaths) {
+            node(path).fieldPath = path;
+        }
+    }
+
+    /**
+     * Creates a plan that copies the given paths into the content. Paths not starting with '$.' are ignored.
+     */
+    public static ExtractionPlan content(String... paths) {
+        return new ExtractionPlan(validPaths(List.of(), paths), List.of());
+    }
+
+    /**
+     * Returns a new plan that additionally reads the given paths without copying them into the content.
+     */
+    public ExtractionPlan fields(String... paths) {
+        return new ExtractionPlan(contentPaths, validPaths(fieldPaths, paths));
+    }
+
+    /**
+     * Extracts the planned paths from the given JSON payload.
+     *
+     * @param json The raw JSON payload.
+     * @return The extracted content and fields. Paths that are missing or null are left out.
+     * @throws IOException If the payload is not valid JSON.
+     */
+    public ExtractedPayload extract(byte[] json) throws IOException {
+        var result = new ExtractedPayload();
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                walkObject(parser, root, result);
+            }
+        }
+
+        return result;
+    }
+
+    private void walkObject(JsonParser parser, Node node, ExtractedPayload result) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Node child = node.children.get(parser.currentName());
+            JsonToken token = parser.nextToken();
+
+            if (child == null) {
+                // not part of the plan, skip without materializing
+                parser.skipChildren();
+            } else if (child.captures()) {
+                capture(child, MAPPER.readValue(parser, Object.class), result);
+            } else if (token == JsonToken.START_OBJECT) {
+                walkObject(parser, child, result);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void capture(Node node, Object value, ExtractedPayload result) {
+        if (value == null) {
+            return;
+        }
+
+        if (node.contentSegments != null) {
+            result.putContent(node.contentSegments, value);
+        }
+        if (node.fieldPath != null) {
+            result.putField(node.fieldPath, value);
+        }
+
+        // deeper paths are resolved from the already materialized value
+        if (value instanceof Map<?, ?> map) {
+            for (var child : node.children.entrySet()) {
+                capture(child.getValue(), map.get(child.getKey()), result);
+            }
+        }
+    }
+
+    private Node node(String path) {
+        Node current = root;
+        for (String segment : path.substring(2).split("\\.")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            current = current.children.computeIfAbsent(segment, key -> new Node());
+        }
+        return current;
+    }
+
+    private static List<String> validPaths(List<String> existing, String... paths) {
+        List<String> result = new ArrayList<>(existing);
+        for (String path : paths) {
+            if (path.startsWith("$.")) {
+                result.add(path);
+            }
+        }
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,43 @@
+package com.trace.sdlc_connector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields that are kept of the objects in an extracted content, applied by the PayloadShaper.
+ * Paths are relative to the content root in the format of {@link ExtractionPlan}, with '[*]' for the elements
+ * of an array (e.g. '$.commits[*]'). Objects without a rule are kept as they are.
+ * <p>
+ * Shapes are immutable and meant to be built once per handler.
+ */
+public final class PayloadShape {
+
+    public static final PayloadShape NONE = new PayloadShape(Map.of());
+
+    private final Map<String, Set<String>> allowedFields;
+
+    private PayloadShape(Map<String, Set<String>> allowedFields) {
+        this.allowedFields = allowedFields;
+    }
+
+    public static PayloadShape of() {
+        return NONE;
+    }
+
+    /**
+     * Returns a new shape that keeps only the given fields of the object at the path.
+     */
+    public PayloadShape allow(String path, String... fields) {
+        Map<String, Set<String>> result = new HashMap<>(allowedFields);
+        result.put(path, Set.of(fields));
+        return new PayloadShape(Map.copyOf(result));
+    }
+
+    /**
+     * @return The fields to keep of the object at the path, or null if all fields are kept
+     */
+    public Set<String> allowedFields(String path) {
+        return allowedFields.get(path);
+    }
+}
@@ -0,0 +1,139 @@
+package com.trace.sdlc_connector.config;
+
+import com.trace.sdlc_connector.github.CiEventCoalescer;
+import com.trace.sdlc_connector.github.DeliveryDedupStore;
+import com.trace.sdlc_connector.github.WebhookAdmission;
+import com.trace.sdlc_connector.github.archive.WebhookArchive;
+import com.trace.sdlc_connector.message.BatchBuffer;
+import com.trace.sdlc_connector.message.PayloadShaper;
+import com.trace.sdlc_connector.message.forward.GenAiConcurrencyLimiter;
+import com.trace.sdlc_connector.message.forward.MessageForward;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.message.pipeline.OutboxRelay;
+import com.trace.sdlc_connector.message.search.MessageSearchIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the components of the webhook pipeline keep anyway as meters, so they are only read when
+ * the metrics are scraped. The persist, forward, outbox and search meters exist in the profiles that use them.
+ */
+@Component
+public class PipelineMetrics implements MeterBinder {
+
+    private final DeliveryDedupStore deliveryDedupStore;
+    private final WebhookAdmission webhookAdmission;
+    private final CiEventCoalescer ciEventCoalescer;
+    private final PayloadShaper payloadShaper;
+    private final WebhookArchive webhookArchive;
+    private final GenAiConcurrencyLimiter genAiLimiter;
+    private final ObjectProvider<MessagePersist> messagePersist;
+    private final ObjectProvider<MessageForward> messageForward;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+    private final ObjectProvider<MessageSearchIndex> messageSearchIndex;
+
+    public PipelineMetrics(DeliveryDedupStore deliveryDedupStore, WebhookAdmission webhookAdmission,
+                           CiEventCoalescer ciEventCoalescer, PayloadShaper payloadShaper,
+                           WebhookArchive webhookArchive, GenAiConcurrencyLimiter genAiLimiter, ObjectProvider<MessagePersist> messagePersist,
+                           ObjectProvider<MessageForward> messageForward, ObjectProvider<OutboxRelay> outboxRelay,
+                           ObjectProvider<MessageSearchIndex> messageSearchIndex) {
+        this.deliveryDedupStore = deliveryDedupStore;
+        this.webhookAdmission = webhookAdmission;
+        this.ciEventCoalescer = ciEventCoalescer;
+        this.payloadShaper = payloadShaper;
+        this.webhookArchive = webhookArchive;
+        this.genAiLimiter = genAiLimiter;
+        this.messagePersist = messagePersist;
+        this.messageForward = messageForward;
+        this.outboxRelay = outboxRelay;
+        this.messageSearchIndex = messageSearchIndex;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "sdlc.webhook.dedup.accepted", deliveryDedupStore, DeliveryDedupStore::getAccepted);
+        counter(registry, "sdlc.webhook.dedup.duplicates", deliveryDedupStore, DeliveryDedupStore::getDuplicates);
+        gauge(registry, "sdlc.webhook.dedup.size", deliveryDedupStore, DeliveryDedupStore::getSize);
+
+        FunctionCounter.builder("sdlc.webhook.admission", webhookAdmission, WebhookAdmission::getAdmittedEvents)
+                .tag("result", "admitted").register(registry);
+        FunctionCounter.builder("sdlc.webhook.admission", webhookAdmission, WebhookAdmission::getSpooledEvents)
+                .tag("result", "spooled").register(registry);
+        FunctionCounter.builder("sdlc.webhook.admission", webhookAdmission, WebhookAdmission::getRejectedEvents)
+                .tag("result", "rejected").register(registry);
+        gauge(registry, "sdlc.webhook.spooled", webhookAdmission, WebhookAdmission::getSpooled);
+        gauge(registry, "sdlc.webhook.in.flight", webhookAdmission, WebhookAdmission::getInFlight);
+
+        counter(registry, "sdlc.coalesce.events", ciEventCoalescer, CiEventCoalescer::getCoalescedEvents);
+        counter(registry, "sdlc.coalesce.summaries", ciEventCoalescer, CiEventCoalescer::getEmittedSummaries);
+        gauge(registry, "sdlc.coalesce.pending.groups", ciEventCoalescer, CiEventCoalescer::getPendingGroups);
+
+        counter(registry, "sdlc.shaping.messages", payloadShaper, PayloadShaper::getShapedMessages);
+        counter(registry, "sdlc.shaping.dropped.fields", payloadShaper, PayloadShaper::getDroppedFields);
+        counter(registry, "sdlc.shaping.truncated.arrays", payloadShaper, PayloadShaper::getTruncatedArrays);
+        counter(registry, "sdlc.shaping.truncated.strings", payloadShaper, PayloadShaper::getTruncatedStrings);
+        FunctionCounter.builder("sdlc.shaping.saved", payloadShaper, PayloadShaper::getBytesSaved)
+                .baseUnit("bytes").register(registry);
+
+        counter(registry, "sdlc.archive.events", webhookArchive, WebhookArchive::getArchivedEvents);
+        bindBatchBuffer(registry, webhookArchive.getBatchBuffer());
+
+        gauge(registry, "sdlc.genai.limit", genAiLimiter, GenAiConcurrencyLimiter::getLimit);
+        gauge(registry, "sdlc.genai.in.flight", genAiLimiter, GenAiConcurrencyLimiter::getInFlight);
+
+        messagePersist.ifAvailable(persist -> {
+            bindBatchBuffer(registry, persist.getBatchBuffer());
+            bindBatchBuffer(registry, persist.getReplayBuffer());
+            counter(registry, "sdlc.persist.rejected", persist, MessagePersist::getRejectedMessages);
+        });
+        messageForward.ifAvailable(forward -> bindBatchBuffer(registry, forward.getBatchBuffer()));
+
+        outboxRelay.ifAvailable(relay -> {
+            counter(registry, "sdlc.outbox.forwarded", relay, OutboxRelay::getForwardedEntries);
+            counter(registry, "sdlc.outbox.failed.batches", relay, OutboxRelay::getFailedBatches);
+            counter(registry, "sdlc.outbox.dead.lettered", relay, OutboxRelay::getDeadLetteredEntries);
+            // counts the table on each scrape
+            gauge(registry, "sdlc.outbox.size", relay, OutboxRelay::getSize);
+            gauge(registry, "sdlc.outbox.dead.letters", relay, OutboxRelay::getDeadLetters);
+        });
+
+        messageSearchIndex.ifAvailable(index -> {
+            counter(registry, "sdlc.search.indexed", index, MessageSearchIndex::getIndexedMessages);
+            counter(registry, "sdlc.search.failed", index, MessageSearchIndex::getFailedMessages);
+        });
+    }
+
+    private static void bindBatchBuffer(MeterRegistry registry, BatchBuffer<?> buffer) {
+        String name = buffer.getName();
+        FunctionTimer.builder("sdlc.batch.write", buffer, BatchBuffer::getWriteAttempts,
+                        BatchBuffer::getWriteNanos, TimeUnit.NANOSECONDS)
+                .description("Time to write a batch, including failed attempts")
+                .tag("buffer", name).register(registry);
+        FunctionCounter.builder("sdlc.batch.written.items", buffer, BatchBuffer::getWrittenItems)
+                .tag("buffer", name).register(registry);
+        FunctionCounter.builder("sdlc.batch.written.batches", buffer, BatchBuffer::getWrittenBatches)
+                .tag("buffer", name).register(registry);
+        FunctionCounter.builder("sdlc.batch.retried.batches", buffer, BatchBuffer::getRetriedBatches)
+                .tag("buffer", name).register(registry);
+        FunctionCounter.builder("sdlc.batch.dropped.items", buffer, BatchBuffer::getDroppedItems)
+                .tag("buffer", name).register(registry);
+        Gauge.builder("sdlc.batch.pending", buffer, BatchBuffer::getPending)
+                .tag("buffer", name).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T object, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, object, count).register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T object, ToDoubleFunction<T> value) {
+        Gauge.builder(name, object, value).register(registry);
+    }
+}
@@ -43,6 +43,8 @@ public class SecurityConfig {
                         .requestMatchers("/public/**").permitAll() // public routes
                         .requestMatchers("/v3/api-docs", "/swagger-ui/index.html").permitAll() // OpenAPI docs
                         .requestMatchers("projects/{projectId}/webhook/**").permitAll() // allow webhook access
+                        .requestMatchers("github/webhook").permitAll() // organization or GitHub App webhook
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // scraped by Prometheus
                         .anyRequest().authenticated() // all others require auth
                 )
                 .oauth2ResourceServer(resourceServer -> {
@@ -0,0 +1,337 @@
+package com.trace.sdlc_connector.github;
+
+import com.trace.sdlc_connector.SupportedSystem;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageDTO;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.message.Metadata;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the bursts of CI events into summaries. The workflow_run and workflow_job events of one run attempt and
+ * the status events of one commit are held until no event arrived for trace.sdlc.coalesce.window-ms (or for at most
+ * max-hold-ms) and are then emitted as one 'workflow_run summary' or 'status summary' message with the latest state
+ * of the run and of each job or status context.
+ * <p>
+ * Held events exist only in memory, so their deliveries are removed from the DeliveryDedupStore while they are held
+ * and recorded again once the summary was processed. A redelivery after a crash is therefore processed again instead
+ * of being dropped. Coalescing is off by default (trace.sdlc.coalesce.enabled), as consumers then get summaries
+ * instead of the single events.
+ */
+@Component
+public class CiEventCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CiEventCoalescer.class);
+
+    static final String SUMMARY_ACTION = "summary";
+
+    private static final List<String> JOB_STATES = List.of("queued", "waiting", "in_progress", "completed");
+
+    private static final class Group {
+        private final String kind;
+        private final UUID projectId;
+        private final UUID firstEventId;
+        private final long createdAt = System.currentTimeMillis();
+        private final Set<UUID> deliveryIds = new HashSet<>();
+        private long updatedAt = createdAt;
+
+        private UUID userId;
+        private long firstTimestamp = Long.MAX_VALUE;
+        private long lastTimestamp = 0;
+        private int events = 0;
+
+        private Object sender;
+        private Map<String, Object> run;
+        private Object workflow;
+        private final Map<Object, Map<String, Object>> jobs = new LinkedHashMap<>();
+        private final Map<Object, Map<String, Object>> statuses = new LinkedHashMap<>();
+        private Object sha;
+        private Object branches;
+
+        private Group(String kind, UUID projectId, UUID firstEventId) {
+            this.kind = kind;
+            this.projectId = projectId;
+            this.firstEventId = firstEventId;
+        }
+    }
+
+    private final MessageProcessor messageProcessor;
+    private final DeliveryDedupStore deliveryDedupStore;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long maxHoldMillis;
+    private final int maxGroups;
+
+    // project id + key of the run or commit -> group, in order of creation
+    private final LinkedHashMap<String, Group> groups = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "ci-event-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong emittedSummaries = new AtomicLong();
+
+    public CiEventCoalescer(MessageProcessor messageProcessor, DeliveryDedupStore deliveryDedupStore,
+                            @Value("${trace.sdlc.coalesce.enabled:false}") boolean enabled,
+                            @Value("${trace.sdlc.coalesce.window-ms:30000}") long windowMillis,
+                            @Value("${trace.sdlc.coalesce.max-hold-ms:600000}") long maxHoldMillis,
+                            @Value("${trace.sdlc.coalesce.max-groups:10000}") int maxGroups) {
+        this.messageProcessor = messageProcessor;
+        this.deliveryDedupStore = deliveryDedupStore;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxHoldMillis = maxHoldMillis;
+        this.maxGroups = Math.max(1, maxGroups);
+
+        long interval = Math.clamp(windowMillis / 4, 10, 1000);
+        flusher.scheduleWithFixedDelay(this::flushExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean offer(UUID projectId, Message message) {
+        return offer(projectId, message, null);
+    }
+
+    /**
+     * Holds the message if it is a CI event.
+     *
+     * @param deliveryId The delivery the message was extracted from, or null if it was not received as a webhook
+     * @return false if the message is not coalesced and has to be processed by the caller
+     */
+    public boolean offer(UUID projectId, Message message, UUID deliveryId) {
+        if (!enabled || message.getMetadata().getType() == null) {
+            return false;
+        }
+
+        String type = message.getMetadata().getType();
+        String eventType = type.contains(" ") ? type.substring(0, type.indexOf(' ')) : type;
+        if (!eventType.equals("workflow_run") && !eventType.equals("workflow_job") && !eventType.equals("status")) {
+            return false;
+        }
+
+        Map<String, Object> content = message.getContent() != null
+                ? message.getContent()
+                : MessageDTO.typedContentToMap(message.getTypedContent(), null);
+        String key = key(eventType, content);
+        if (key == null) {
+            return false;
+        }
+
+        // until the summary is processed a redelivery has to be accepted, the held event would be lost on a crash
+        if (deliveryId != null) {
+            deliveryDedupStore.forget(deliveryId);
+        }
+
+        Group evicted = null;
+        synchronized (groups) {
+            var group = groups.computeIfAbsent(projectId + " " + key, groupKey -> new Group(
+                    eventType.equals("status") ? "status" : "workflow_run", projectId, message.getMetadata().getEventId()));
+            if (deliveryId != null && !group.deliveryIds.add(deliveryId)) {
+                // redelivered while it is held
+                return true;
+            }
+            add(group, eventType, message, content);
+
+            if (groups.size() > maxGroups) {
+                var eldest = groups.entrySet().iterator();
+                evicted = eldest.next().getValue();
+                eldest.remove();
+            }
+        }
+        coalescedEvents.incrementAndGet();
+
+        if (evicted != null) {
+            emit(evicted);
+        }
+        return true;
+    }
+
+    /**
+     * Emits all held summaries.
+     */
+    public void flush() {
+        List<Group> pending;
+        synchronized (groups) {
+            pending = new ArrayList<>(groups.values());
+            groups.clear();
+        }
+        pending.forEach(this::emit);
+    }
+
+    public int getPendingGroups() {
+        synchronized (groups) {
+            return groups.size();
+        }
+    }
+
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    public long getEmittedSummaries() {
+        return emittedSummaries.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void flushExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            List<Group> expired = new ArrayList<>();
+            synchronized (groups) {
+                var iterator = groups.values().iterator();
+                while (iterator.hasNext()) {
+                    var group = iterator.next();
+                    if (now - group.updatedAt >= windowMillis || now - group.createdAt >= maxHoldMillis) {
+                        expired.add(group);
+                        iterator.remove();
+                    }
+                }
+            }
+            expired.forEach(this::emit);
+        } catch (Exception e) {
+            logger.error("Error emitting coalesced CI events", e);
+        }
+    }
+
+    // the group is no longer in groups, so it is not modified concurrently
+    private void emit(Group group) {
+        Message summary = summarize(group);
+        emittedSummaries.incrementAndGet();
+        messageProcessor.processMessage(summary.getMetadata().getProjectId(), summary);
+        group.deliveryIds.forEach(deliveryDedupStore::restore);
+    }
+
+    private static String key(String eventType, Map<String, Object> content) {
+        return switch (eventType) {
+            case "workflow_run" -> runKey(content.get("workflow_run"), "id");
+            case "workflow_job" -> runKey(content.get("workflow_job"), "run_id");
+            default -> content.get("sha") != null ? "status " + content.get("sha") : null;
+        };
+    }
+
+    private static String runKey(Object object, String idField) {
+        if (!(object instanceof Map<?, ?> map) || map.get(idField) == null) {
+            return null;
+        }
+        // a re-run is a new attempt of the same run
+        Object attempt = map.get("run_attempt");
+        return "run " + map.get(idField) + " " + (attempt == null ? 1 : attempt);
+    }
+
+    // caller must hold the lock on groups
+    @SuppressWarnings("unchecked")
+    private static void add(Group group, String eventType, Message message, Map<String, Object> content) {
+        var metadata = message.getMetadata();
+        group.updatedAt = System.currentTimeMillis();
+        group.events++;
+        group.firstTimestamp = Math.min(group.firstTimestamp, metadata.getTimestamp());
+        if (metadata.getTimestamp() >= group.lastTimestamp) {
+            group.lastTimestamp = metadata.getTimestamp();
+            group.userId = metadata.getUserId();
+            group.sender = content.get("sender");
+        }
+
+        switch (eventType) {
+            case "workflow_run" -> {
+                var run = (Map<String, Object>) content.get("workflow_run");
+                if (group.run == null || isNewer(run, group.run)) {
+                    group.run = run;
+                }
+                if (content.get("workflow") != null) {
+                    group.workflow = content.get("workflow");
+                }
+            }
+            case "workflow_job" -> {
+                var job = summarizeJob((Map<String, Object>) content.get("workflow_job"));
+                var previous = group.jobs.get(job.get("id"));
+                if (previous == null || isNewer(job, previous)) {
+                    group.jobs.put(job.get("id"), job);
+                }
+            }
+            default -> {
+                group.sha = content.get("sha");
+                if (content.get("branches") != null) {
+                    group.branches = content.get("branches");
+                }
+                Map<String, Object> status = new LinkedHashMap<>(content);
+                status.keySet().removeAll(List.of("platform", "sender", "sha", "branches", "eventId"));
+                group.statuses.put(status.get("context"), status);
+            }
+        }
+    }
+
+    /**
+     * @return true if the state of the update is not behind the current one, as deliveries can be out of order
+     */
+    private static boolean isNewer(Map<String, Object> update, Map<String, Object> current) {
+        return JOB_STATES.indexOf(String.valueOf(update.get("status")))
+                >= JOB_STATES.indexOf(String.valueOf(current.get("status")));
+    }
+
+    private static Map<String, Object> summarizeJob(Map<String, Object> job) {
+        Map<String, Object> summary = new LinkedHashMap<>(job);
+        summary.remove("steps");
+
+        // keep only the names of the steps that did not succeed
+        if (job.get("steps") instanceof List<?> steps) {
+            List<Object> failedSteps = new ArrayList<>();
+            for (Object step : steps) {
+                if (step instanceof Map<?, ?> stepMap && stepMap.get("conclusion") != null
+                        && !List.of("success", "skipped").contains(String.valueOf(stepMap.get("conclusion")))) {
+                    failedSteps.add(stepMap.get("name"));
+                }
+            }
+            if (!failedSteps.isEmpty()) {
+                summary.put("failed_steps", failedSteps);
+            }
+        }
+        return summary;
+    }
+
+    private static Message summarize(Group group) {
+        Map<String, Object> content = new HashMap<>();
+        content.put("platform", SupportedSystem.GITHUB);
+        content.put("sender", group.sender);
+        content.put("coalesced_events", group.events);
+        content.put("first_event_at", group.firstTimestamp);
+
+        if (group.kind.equals("status")) {
+            content.put("sha", group.sha);
+            if (group.branches != null) {
+                content.put("branches", group.branches);
+            }
+            content.put("statuses", new ArrayList<>(group.statuses.values()));
+        } else {
+            if (group.run != null) {
+                content.put("workflow_run", group.run);
+            }
+            if (group.workflow != null) {
+                content.put("workflow", group.workflow);
+            }
+            content.put("jobs", new ArrayList<>(group.jobs.values()));
+        }
+
+        return new Message(
+                new Metadata(group.firstEventId, group.kind + " " + SUMMARY_ACTION, group.userId,
+                        group.lastTimestamp, group.projectId),
+                content
+        );
+    }
+}
@@ -0,0 +1,152 @@
+package com.trace.sdlc_connector.github;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the delivery ids (X-GitHub-Delivery) of recently received webhooks, so deliveries that GitHub or an
+ * operator sends again are dropped before they are parsed. The in-memory store is bounded by size and time window.
+ * With trace.sdlc.dedup.persistent the ids are also recorded in the webhook_delivery table, which catches
+ * redeliveries across restarts and instances.
+ */
+@Component
+public class DeliveryDedupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryDedupStore.class);
+
+    // purge expired rows of the persistent store every n recorded deliveries
+    private static final int PURGE_INTERVAL = 1000;
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final JdbcTemplate jdbcTemplate;
+
+    // delivery id -> time received, in insertion order
+    private final LinkedHashMap<UUID, Long> deliveries = new LinkedHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    public DeliveryDedupStore(@Value("${trace.sdlc.dedup.window-minutes:4320}") long windowMinutes,
+                              @Value("${trace.sdlc.dedup.max-entries:100000}") int maxEntries,
+                              @Value("${trace.sdlc.dedup.persistent:false}") boolean persistent,
+                              ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.windowMillis = Duration.ofMinutes(windowMinutes).toMillis();
+        this.maxEntries = Math.max(1, maxEntries);
+        this.jdbcTemplate = persistent ? jdbcTemplate.getObject() : null;
+    }
+
+    /**
+     * Records a delivery.
+     *
+     * @return true if the delivery was not seen within the window and should be processed
+     */
+    public boolean markDelivered(UUID deliveryId) {
+        long now = System.currentTimeMillis();
+
+        synchronized (deliveries) {
+            evict(now);
+            if (deliveries.containsKey(deliveryId)) {
+                duplicates.incrementAndGet();
+                return false;
+            }
+            deliveries.put(deliveryId, now);
+        }
+
+        if (jdbcTemplate != null && !markPersisted(deliveryId, now)) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Forgets a delivery that could not be processed, so a redelivery is accepted.
+     */
+    public void forget(UUID deliveryId) {
+        synchronized (deliveries) {
+            deliveries.remove(deliveryId);
+        }
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("DELETE FROM webhook_delivery WHERE id = ?", deliveryId);
+        }
+    }
+
+    /**
+     * Records a forgotten delivery again once it was processed, without counting it as accepted.
+     */
+    public void restore(UUID deliveryId) {
+        long now = System.currentTimeMillis();
+        synchronized (deliveries) {
+            evict(now);
+            deliveries.put(deliveryId, now);
+        }
+        if (jdbcTemplate != null) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO webhook_delivery (id, received_at) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                        deliveryId, new Timestamp(now));
+            } catch (Exception e) {
+                logger.warn("Could not record webhook delivery {}", deliveryId, e);
+            }
+        }
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public int getSize() {
+        synchronized (deliveries) {
+            return deliveries.size();
+        }
+    }
+
+    // caller must hold the lock on deliveries
+    private void evict(long now) {
+        Iterator<Map.Entry<UUID, Long>> iterator = deliveries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var eldest = iterator.next();
+            if (deliveries.size() < maxEntries && now - eldest.getValue() < windowMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private boolean markPersisted(UUID deliveryId, long now) {
+        try {
+            int inserted = jdbcTemplate.update(
+                    "INSERT INTO webhook_delivery (id, received_at) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                    deliveryId, new Timestamp(now));
+
+            if (accepted.get() % PURGE_INTERVAL == 0) {
+                jdbcTemplate.update("DELETE FROM webhook_delivery WHERE received_at < ?",
+                        new Timestamp(now - windowMillis));
+            }
+            return inserted > 0;
+        } catch (Exception e) {
+            // the in-memory store already covers this instance, dont drop events because of the backing store
+            logger.warn("Could not record webhook delivery {}", deliveryId, e);
+            return true;
+        }
+    }
+}
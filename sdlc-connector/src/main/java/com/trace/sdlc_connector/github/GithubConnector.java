@@ -1,25 +1,30 @@
 package com.trace.sdlc_connector.github;
 
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
 import com.trace.sdlc_connector.*;
+import com.trace.sdlc_connector.github.archive.ArchivedWebhook;
+import com.trace.sdlc_connector.github.archive.WebhookArchive;
 import com.trace.sdlc_connector.github.eventhandler.*;
+import com.trace.sdlc_connector.github.fanin.GithubRoutingIndex;
 import com.trace.sdlc_connector.message.Message;
 import com.trace.sdlc_connector.message.MessageProcessor;
-import com.trace.sdlc_connector.token.TokenRepo;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.message.PayloadShaper;
+import com.trace.sdlc_connector.token.WebhookKeyCache;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Formatter;
-import java.util.Map;
-import java.util.UUID;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,88 +34,333 @@ public class GithubConnector {
 
     private static final Logger logger = LoggerFactory.getLogger(GithubConnector.class);
 
-    private final TokenRepo tokenRepo;
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    // GitHub does not send larger payloads
+    private static final int MAX_PAYLOAD_BYTES = 25 * 1024 * 1024;
+
+    // archived with the payload, the remaining headers are added by proxies
+    private static final String[] ARCHIVED_HEADERS = {
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.USER_AGENT, "X-Hub-Signature-256"
+    };
+
+    // read in addition to the content of a fan-in delivery to find the subscribed projects
+    private static final String REPOSITORY_ID = "$.repository.id";
+    private static final String OWNER_ID = "$.repository.owner.id";
+    private static final String ORGANIZATION_ID = "$.organization.id";
+    private static final String SENDER_ID = "$.sender.id";
+
+    // typed content is bound separately, so the routing fields are read in a second pass that skips the rest
+    private static final ExtractionPlan ROUTING_PLAN = ExtractionPlan.content()
+            .fields(REPOSITORY_ID, OWNER_ID, ORGANIZATION_ID, SENDER_ID);
+
+    private final WebhookKeyCache webhookKeyCache;
     private final MessageProcessor messageProcessor;
+    private final WebhookAdmission webhookAdmission;
+    private final DeliveryDedupStore deliveryDedupStore;
+    private final PayloadShaper payloadShaper;
+    private final CiEventCoalescer ciEventCoalescer;
+    private final WebhookMetrics webhookMetrics;
+    private final WebhookArchive webhookArchive;
+    private final GithubRoutingIndex routingIndex;
 
     private final Map<String, GithubEventHandler> eventHandler;
+    // the plans of the handlers extended by the routing fields
+    private final Map<String, ExtractionPlan> routingPlans;
+
+    // prototypes of the secrets of the organization or GitHub App webhook
+    private final List<Mac> fanInMacs;
 
-    public GithubConnector(TokenRepo tokenRepo, MessageProcessor messageProcessor, UserMappingRepo userMappingRepo) {
-        this.tokenRepo = tokenRepo;
+    // use the typed content model for the event families that have one
+    private final boolean typedContent;
+
+    public GithubConnector(WebhookKeyCache webhookKeyCache, MessageProcessor messageProcessor, UserIdentityCache userIdentityCache,
+                           WebhookAdmission webhookAdmission, DeliveryDedupStore deliveryDedupStore,
+                           PayloadShaper payloadShaper, CiEventCoalescer ciEventCoalescer, WebhookMetrics webhookMetrics,
+                           WebhookArchive webhookArchive, GithubRoutingIndex routingIndex,
+                           @Value("${trace.sdlc.typed-content:false}") boolean typedContent,
+                           @Value("${trace.sdlc.github.fan-in.secrets:}") List<String> fanInSecrets) {
+        this.webhookKeyCache = webhookKeyCache;
         this.messageProcessor = messageProcessor;
+        this.webhookAdmission = webhookAdmission;
+        this.deliveryDedupStore = deliveryDedupStore;
+        this.payloadShaper = payloadShaper;
+        this.ciEventCoalescer = ciEventCoalescer;
+        this.webhookMetrics = webhookMetrics;
+        this.webhookArchive = webhookArchive;
+        this.routingIndex = routingIndex;
+        this.typedContent = typedContent;
+        this.fanInMacs = initMacs(fanInSecrets);
 
         this.eventHandler = Stream.of(
-                        new CreateEventHandler(userMappingRepo),
-                        new DeleteEventHandler(userMappingRepo),
-                        new CommitCommentEventHandler(userMappingRepo),
-                        new DeploymentEventHandler(userMappingRepo),
-                        new DeploymentStatusEventHandler(userMappingRepo),
-                        new DeploymentReviewEventHandler(userMappingRepo),
-                        new DiscussionCommentEventHandler(userMappingRepo),
-                        new DiscussionEventHandler(userMappingRepo),
-                        new IssueCommentEventHandler(userMappingRepo),
-                        new IssueEventHandler(userMappingRepo),
-                        new MilestoneEventHandler(userMappingRepo),
-                        new PackageEventHandler(userMappingRepo),
-                        new PullRequestEventHandler(userMappingRepo),
-                        new PullRequestReviewCommentEventHandler(userMappingRepo),
-                        new PullRequestReviewEventHandler(userMappingRepo),
-                        new PullRequestReviewThreadEventHandler(userMappingRepo),
-                        new PushEventHandler(userMappingRepo),
-                        new RegistryPackageEventHandler(userMappingRepo),
-                        new ReleaseEventHandler(userMappingRepo),
-                        new StatusEventHandler(userMappingRepo),
-                        new SubIssueEventHandler(userMappingRepo),
-                        new WorkflowDispatchEventHandler(userMappingRepo),
-                        new WorkflowJobEventHandler(userMappingRepo),
-                        new WorkflowRunEventHandler(userMappingRepo)
+                        new CreateEventHandler(userIdentityCache),
+                        new DeleteEventHandler(userIdentityCache),
+                        new CommitCommentEventHandler(userIdentityCache),
+                        new DeploymentEventHandler(userIdentityCache),
+                        new DeploymentStatusEventHandler(userIdentityCache),
+                        new DeploymentReviewEventHandler(userIdentityCache),
+                        new DiscussionCommentEventHandler(userIdentityCache),
+                        new DiscussionEventHandler(userIdentityCache),
+                        new IssueCommentEventHandler(userIdentityCache),
+                        new IssueEventHandler(userIdentityCache),
+                        new MilestoneEventHandler(userIdentityCache),
+                        new PackageEventHandler(userIdentityCache),
+                        new PullRequestEventHandler(userIdentityCache),
+                        new PullRequestReviewCommentEventHandler(userIdentityCache),
+                        new PullRequestReviewEventHandler(userIdentityCache),
+                        new PullRequestReviewThreadEventHandler(userIdentityCache),
+                        new PushEventHandler(userIdentityCache),
+                        new RegistryPackageEventHandler(userIdentityCache),
+                        new ReleaseEventHandler(userIdentityCache),
+                        new StatusEventHandler(userIdentityCache),
+                        new SubIssueEventHandler(userIdentityCache),
+                        new WorkflowDispatchEventHandler(userIdentityCache),
+                        new WorkflowJobEventHandler(userIdentityCache),
+                        new WorkflowRunEventHandler(userIdentityCache)
                 )
                 .collect(Collectors.toMap(GithubEventHandler::getEventType, handler -> handler));
+        this.routingPlans = eventHandler.values().stream()
+                .collect(Collectors.toMap(GithubEventHandler::getEventType,
+                        handler -> handler.getPlan().fields(REPOSITORY_ID, OWNER_ID, ORGANIZATION_ID)));
 
+        webhookAdmission.start(this::processAdmittedEvent);
     }
 
     @PostMapping("projects/{projectId}/webhook/github")
     public ResponseEntity<?> webhookHandler(
             @PathVariable UUID projectId,
-            @RequestBody String payload,
+            InputStream body,
             @RequestHeader("X-GitHub-Delivery") UUID eventId,
             @RequestHeader("X-GitHub-Event") String eventType,
-            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature) {
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestHeader HttpHeaders headers) throws IOException {
 
         var now = System.currentTimeMillis();
 
-        // validate signature header if present
-        if (signature != null && !signature.isEmpty()) {
-            var secrets = tokenRepo.findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB);
+        // validate signature header if present, the body is signed while it is read
+        boolean signed = signature != null && !signature.isEmpty();
+        byte[] expected = signed ? parseSignature(signature) : null;
+        List<Mac> macs = expected != null ? webhookKeyCache.getMacs(projectId, SupportedSystem.GITHUB) : List.of();
 
-            // try all tokens
-            String validSecret = null;
-            for (var secret : secrets) {
-                if (validateWebhookSignature(payload, secret.getToken(), signature)) {
-                    validSecret = secret.getToken();
-                    break;
-                }
-            }
+        SignedBody signedBody;
+        try {
+            signedBody = SignedBody.read(body, headers.getContentLength(), macs, MAX_PAYLOAD_BYTES);
+        } catch (SignedBody.TooLargeException e) {
+            logger.warn("Rejecting webhook event {} for project {}: {}", eventId, projectId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(e.getMessage());
+        }
+        byte[] bytes = signedBody.bytes();
+        webhookMetrics.received(eventType, bytes.length);
 
-            // if no valid secret found, return bad request
-            if (validSecret == null) {
+        if (signed) {
+            if (expected != null && macs.isEmpty()) {
+                logger.warn("Webhook secret not configured");
+            }
+            long start = System.nanoTime();
+            boolean valid = expected != null && signedBody.matches(expected);
+            webhookMetrics.signatureVerified(signedBody.macNanos() + System.nanoTime() - start, valid);
+            if (!valid) {
                 logger.warn("Invalid webhook signature");
                 return ResponseEntity.badRequest().body("No valid secret for signature");
             }
         }
 
-        Message message = processWebhookEvent(eventType, eventId, projectId, payload, now);
+        return accept(new WebhookEvent(projectId, eventId, eventType, bytes, now), headers);
+    }
+
+    /**
+     * Receives the deliveries of an organization or GitHub App webhook. Each delivery is verified, admitted and
+     * parsed once and its message is fanned out to all projects subscribed to the repository or to the account
+     * (see GithubSubscriptionController). Projects using it should not register their own repository webhooks as
+     * well, GitHub sends those with other delivery ids, so they would be stored twice.
+     */
+    @PostMapping("github/webhook")
+    public ResponseEntity<?> fanInWebhookHandler(
+            InputStream body,
+            @RequestHeader("X-GitHub-Delivery") UUID eventId,
+            @RequestHeader("X-GitHub-Event") String eventType,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestHeader(value = "X-GitHub-Hook-Installation-Target-ID", required = false) String targetId,
+            @RequestHeader HttpHeaders headers) throws IOException {
+
+        var now = System.currentTimeMillis();
+
+        // anyone can post here, so unlike the project webhooks the signature is required
+        if (signature == null || signature.isEmpty()) {
+            logger.warn("Fan-in webhook without signature");
+            return ResponseEntity.badRequest().body("Missing signature");
+        }
+        if (fanInMacs.isEmpty()) {
+            logger.warn("Fan-in webhook secret not configured");
+            return ResponseEntity.badRequest().body("No valid secret for signature");
+        }
+        byte[] expected = parseSignature(signature);
+
+        SignedBody signedBody;
+        try {
+            signedBody = SignedBody.read(body, headers.getContentLength(),
+                    expected != null ? copies(fanInMacs) : List.of(), MAX_PAYLOAD_BYTES);
+        } catch (SignedBody.TooLargeException e) {
+            logger.warn("Rejecting fan-in webhook event {}: {}", eventId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(e.getMessage());
+        }
+        byte[] bytes = signedBody.bytes();
+        webhookMetrics.received(eventType, bytes.length);
+
+        long start = System.nanoTime();
+        boolean valid = expected != null && signedBody.matches(expected);
+        webhookMetrics.signatureVerified(signedBody.macNanos() + System.nanoTime() - start, valid);
+        if (!valid) {
+            logger.warn("Invalid fan-in webhook signature");
+            return ResponseEntity.badRequest().body("No valid secret for signature");
+        }
+
+        // the projects are looked up when the event is processed, until then the events of an organization or
+        // app installation share the admission limits and are processed in order
+        UUID sourceId = UUID.nameUUIDFromBytes(("github:" + targetId).getBytes(StandardCharsets.UTF_8));
+        return accept(new WebhookEvent(sourceId, eventId, eventType, bytes, now, true), headers);
+    }
+
+    private ResponseEntity<?> accept(WebhookEvent event, HttpHeaders headers) {
+        if (!eventHandler.containsKey(event.eventType())) {
+            webhookMetrics.unhandled(event.eventType());
+            logger.warn("Unhandled GitHub event type: {}", event.eventType());
+            return ResponseEntity.badRequest().body("Unhandled event type: " + event.eventType());
+        }
+
+        // drop redeliveries before parsing them
+        if (!deliveryDedupStore.markDelivered(event.eventId())) {
+            logger.info("Ignoring duplicate delivery {} for project {}", event.eventId(), event.projectId());
+            return ResponseEntity.ok("Duplicate delivery ignored");
+        }
+
+        // acknowledge right away and process the event in the background, so slow processing (e.g. forwarding
+        // to GenAi) does not run into GitHub's delivery timeout. Bursts of a project are spooled and processed later.
+        var result = webhookAdmission.submit(event);
 
-        if (message == null) {
-            logger.warn("Unhandled GitHub event type: {}", eventType);
-            return ResponseEntity.badRequest().body("Unhandled event type: " + eventType);
+        if (result == WebhookAdmission.Result.REJECTED) {
+            deliveryDedupStore.forget(event.eventId());
+            logger.warn("Webhook spool full, rejecting event {} for project {}", event.eventId(), event.projectId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Webhook spool full");
         }
-        messageProcessor.processMessage(projectId, message);
+
+        // keep the raw delivery, so it can be extracted again by changed handlers
+        webhookArchive.append(new ArchivedWebhook(event.projectId(), event.eventId(), event.eventType(),
+                event.receivedAt(), archivedHeaders(headers), event.body()));
 
         // dont return data as github will receive the response
-        return ResponseEntity.ok("Webhook received");
+        return ResponseEntity.accepted().body("Webhook received");
+    }
+
+    private void processAdmittedEvent(WebhookEvent event) {
+        try {
+            if (event.fanIn()) {
+                for (Message message : processFanInEvent(event.eventType(), event.eventId(), event.body(),
+                        event.receivedAt())) {
+                    process(message.getMetadata().getProjectId(), message, event.eventId());
+                }
+                return;
+            }
+
+            Message message = processWebhookEvent(event.eventType(), event.eventId(), event.projectId(),
+                    event.body(), event.receivedAt());
+            if (message != null) {
+                process(event.projectId(), message, event.eventId());
+            }
+        } catch (RuntimeException e) {
+            // the delivery was marked when it was accepted, a redelivery has to be processed again. Messages that
+            // were already stored (e.g. for some projects of a fan-in) keep their ids and are not stored twice.
+            deliveryDedupStore.forget(event.eventId());
+            throw e;
+        }
+    }
+
+    private void process(UUID projectId, Message message, UUID deliveryId) {
+        // bursts of CI events are held and processed as one summary
+        if (!ciEventCoalescer.offer(projectId, message, deliveryId)) {
+            messageProcessor.processMessage(projectId, message);
+        }
+    }
+
+    /**
+     * Extracts a delivery of the organization or GitHub App webhook once and returns a message for each subscribed
+     * project. The messages get an id derived from the project and the delivery, so they stay distinct when stored.
+     *
+     * @return The messages, empty if no project subscribed to the repository or account or the payload is invalid
+     */
+    public List<Message> processFanInEvent(String eventType, UUID deliveryId, byte[] payload, Long now) {
+        logger.info("Processing GitHub fan-in webhook event: {}", eventType);
+
+        GithubEventHandler handler = eventHandler.getOrDefault(eventType, null);
+
+        if (handler == null) {
+            logger.info("Unhandled GitHub event type: {}", eventType);
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            boolean typed = typedContent && handler.getContentType() != null;
+            ExtractedPayload extracted = (typed ? ROUTING_PLAN : routingPlans.get(eventType)).extract(payload);
+
+            // repositories of users have no organization, their owner is the account
+            Long accountId = readId(extracted, ORGANIZATION_ID);
+            List<UUID> projects = routingIndex.route(readId(extracted, REPOSITORY_ID),
+                    accountId != null ? accountId : readId(extracted, OWNER_ID));
+            webhookMetrics.fannedOut(projects.size());
+            if (projects.isEmpty()) {
+                outcome = "success";
+                logger.info("No project subscribed to GitHub delivery {}", deliveryId);
+                return List.of();
+            }
+
+            UUID first = projects.getFirst();
+            Message message;
+            if (typed) {
+                message = handler.handleTypedEvent(first, fanOutEventId(first, deliveryId), payload, now);
+            } else {
+                message = handler.handleEvent(first, fanOutEventId(first, deliveryId), extracted, now);
+            }
+            outcome = "success";
+            message = payloadShaper.shape(eventType, handler.getShape(), message);
+
+            List<Message> messages = new ArrayList<>(projects.size());
+            messages.add(message);
+            String senderId = extracted.read(SENDER_ID, String.class);
+            for (UUID projectId : projects.subList(1, projects.size())) {
+                messages.add(handler.forProject(message, projectId, fanOutEventId(projectId, deliveryId), senderId));
+            }
+            return messages;
+        } catch (IOException e) {
+            logger.warn("Could not parse GitHub webhook event {}", deliveryId, e);
+            return List.of();
+        } finally {
+            webhookMetrics.handled(eventType, handler.getClass().getSimpleName(), outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return The id of the message of a fan-in delivery in a project
+     */
+    public static UUID fanOutEventId(UUID projectId, UUID deliveryId) {
+        return UUID.nameUUIDFromBytes((projectId + ":" + deliveryId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long readId(ExtractedPayload extracted, String path) {
+        String value = extracted.read(path, String.class);
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     public Message processWebhookEvent(String eventType, UUID eventId, UUID projectId, String payload, Long now) {
+        return processWebhookEvent(eventType, eventId, projectId, payload.getBytes(StandardCharsets.UTF_8), now);
+    }
+
+    public Message processWebhookEvent(String eventType, UUID eventId, UUID projectId, byte[] payload, Long now) {
         logger.info("Processing GitHub webhook event: {}", eventType);
 
         GithubEventHandler handler = eventHandler.getOrDefault(eventType, null);
@@ -120,55 +370,119 @@ public class GithubConnector {
             return null;
         }
 
-        var json = JsonPath.using(Configuration.builder()
-                .options(Option.SUPPRESS_EXCEPTIONS).build()
-        ).parse(payload);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Message message;
+            if (typedContent && handler.getContentType() != null) {
+                message = handler.handleTypedEvent(projectId, eventId, payload, now);
+            } else {
+                ExtractedPayload extracted = handler.getPlan().extract(payload);
+                message = handler.handleEvent(projectId, eventId, extracted, now);
+            }
+            outcome = "success";
+
+            // store and forward only the compact form of large subtrees, typed records included
+            return payloadShaper.shape(eventType, handler.getShape(), message);
+        } catch (IOException e) {
+            logger.warn("Could not parse GitHub webhook event {}", eventId, e);
+            return null;
+        } finally {
+            webhookMetrics.handled(eventType, handler.getClass().getSimpleName(), outcome, System.nanoTime() - start);
+        }
+    }
 
-        return handler.handleEvent(projectId, eventId, json, now);
+    private static Map<String, String> archivedHeaders(HttpHeaders headers) {
+        Map<String, String> archived = new LinkedHashMap<>();
+        headers.forEach((name, values) -> {
+            if (name.regionMatches(true, 0, "X-GitHub-", 0, "X-GitHub-".length()) && !values.isEmpty()) {
+                archived.put(name, values.getFirst());
+            }
+        });
+        for (String name : ARCHIVED_HEADERS) {
+            String value = headers.getFirst(name);
+            if (value != null) {
+                archived.put(name, value);
+            }
+        }
+        return archived;
     }
 
     /**
-     * Validates a GitHub webhook payload using the X-Hub-Signature-256 header
+     * Validates a GitHub webhook payload using the X-Hub-Signature-256 header against all secrets of the project
      *
+     * @param projectId The project the webhook was sent to
      * @param payload   The raw webhook payload
      * @param signature The X-Hub-Signature-256 header value
-     * @return true if the signature is valid
+     * @return true if the signature is valid for one of the secrets
      */
-    public boolean validateWebhookSignature(String payload, String webhookSecret, String signature) {
-        if (webhookSecret == null || webhookSecret.isEmpty()) {
+    public boolean verifySignature(UUID projectId, byte[] payload, String signature) {
+        var macs = webhookKeyCache.getMacs(projectId, SupportedSystem.GITHUB);
+        if (macs.isEmpty()) {
             logger.warn("Webhook secret not configured");
             return false;
         }
 
-        try {
-            String computedSignature = calculateSignature(webhookSecret, payload);
-            return ("sha256=" + computedSignature).equalsIgnoreCase(signature);
-        } catch (Exception e) {
-            logger.error("Error validating webhook signature", e);
-            return false;
-        }
+        return verifySignature(macs, payload, signature);
     }
 
-    public static String calculateSignature(String secret, String payload) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(
-                secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(secretKeySpec);
-        byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    private static boolean verifySignature(List<Mac> macs, byte[] payload, String signature) {
+        byte[] expected = parseSignature(signature);
+        if (expected == null) {
+            return false;
+        }
 
-        return toHexString(digest);
+        // try all secrets, comparing in constant time
+        for (Mac mac : macs) {
+            if (MessageDigest.isEqual(expected, mac.doFinal(payload))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Helper method to convert byte array to hex string
+     * @return The digest of a X-Hub-Signature-256 header value, null if it is malformed
      */
-    private static String toHexString(byte[] bytes) {
-        Formatter formatter = new Formatter();
-        for (byte b : bytes) {
-            formatter.format("%02x", b);
-        }
-        String result = formatter.toString();
-        formatter.close();
-        return result;
+    private static byte[] parseSignature(String signature) {
+        if (!signature.regionMatches(true, 0, SIGNATURE_PREFIX, 0, SIGNATURE_PREFIX.length())) {
+            return null;
+        }
+
+        try {
+            return HexFormat.of().parseHex(signature, SIGNATURE_PREFIX.length(), signature.length());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<Mac> copies(List<Mac> prototypes) {
+        List<Mac> macs = new ArrayList<>(prototypes.size());
+        for (Mac prototype : prototypes) {
+            macs.add(WebhookKeyCache.copy(prototype));
+        }
+        return macs;
+    }
+
+    private static List<Mac> initMacs(List<String> secrets) {
+        List<Mac> macs = new ArrayList<>();
+        for (String secret : secrets) {
+            if (secret == null || secret.isBlank()) {
+                continue;
+            }
+            try {
+                macs.add(WebhookKeyCache.initMac(secret.trim()));
+            } catch (GeneralSecurityException e) {
+                logger.error("Could not initialize fan-in webhook key", e);
+            }
+        }
+        return List.copyOf(macs);
+    }
+
+    public static String calculateSignature(String secret, String payload) throws Exception {
+        Mac mac = WebhookKeyCache.initMac(secret);
+        byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+
+        return HexFormat.of().formatHex(digest);
     }
 }
@@ -0,0 +1,113 @@
+package com.trace.sdlc_connector.github;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A webhook request body read once as bytes. The HMACs of the secrets are updated with each chunk as it arrives,
+ * so the body is neither decoded into a String nor passed over again for each secret, and the same buffer is
+ * parsed afterwards.
+ */
+public final class SignedBody {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Thrown when the body is larger than allowed, before it is read completely.
+     */
+    public static final class TooLargeException extends IOException {
+        private TooLargeException(int maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    private final byte[] bytes;
+    private final List<Mac> macs;
+    private final long macNanos;
+
+    private SignedBody(byte[] bytes, List<Mac> macs, long macNanos) {
+        this.bytes = bytes;
+        this.macs = macs;
+        this.macNanos = macNanos;
+    }
+
+    /**
+     * @param contentLength The announced length, or -1 if unknown. The buffer is allocated once if it is known.
+     * @param macs          Initialized HMACs that are updated with the body, may be empty
+     */
+    public static SignedBody read(InputStream in, long contentLength, List<Mac> macs, int maxBytes)
+            throws IOException {
+        if (contentLength > maxBytes) {
+            throw new TooLargeException(maxBytes);
+        }
+
+        byte[] buffer = new byte[contentLength >= 0 ? (int) contentLength : Math.min(CHUNK_SIZE, maxBytes)];
+        int length = 0;
+        long macNanos = 0;
+        while (true) {
+            if (length == buffer.length) {
+                // the announced length is reached or the buffer is full, check for more before growing
+                int next = in.read();
+                if (next < 0) {
+                    break;
+                }
+                if (length >= maxBytes) {
+                    throw new TooLargeException(maxBytes);
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min(maxBytes, Math.max(CHUNK_SIZE, 2L * buffer.length)));
+                buffer[length] = (byte) next;
+                macNanos += update(macs, buffer, length, 1);
+                length++;
+            }
+
+            int read = in.read(buffer, length, Math.min(CHUNK_SIZE, buffer.length - length));
+            if (read < 0) {
+                break;
+            }
+            macNanos += update(macs, buffer, length, read);
+            length += read;
+        }
+
+        return new SignedBody(length == buffer.length ? buffer : Arrays.copyOf(buffer, length), macs, macNanos);
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The time spent computing the HMACs while the body was read
+     */
+    public long macNanos() {
+        return macNanos;
+    }
+
+    /**
+     * Completes the HMACs and compares them to the expected signature in constant time. Can only be called once.
+     *
+     * @return true if the signature matches one of the secrets
+     */
+    public boolean matches(byte[] expected) {
+        boolean matches = false;
+        for (Mac mac : macs) {
+            // complete all, so the HMACs can not be reused by accident
+            matches |= MessageDigest.isEqual(expected, mac.doFinal());
+        }
+        return matches;
+    }
+
+    private static long update(List<Mac> macs, byte[] buffer, int offset, int length) {
+        if (macs.isEmpty() || length == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        for (Mac mac : macs) {
+            mac.update(buffer, offset, length);
+        }
+        return System.nanoTime() - start;
+    }
+}
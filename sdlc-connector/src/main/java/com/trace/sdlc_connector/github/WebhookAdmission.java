@@ -0,0 +1,377 @@
+package com.trace.sdlc_connector.github;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decides when an accepted webhook event is processed, so a burst of one project cannot take the processing capacity
+ * of the others. Each project has a token bucket (trace.sdlc.admission.rate-per-second, burst), and the number of
+ * events in processing is bounded per project (max-in-flight-per-project) and globally (max-in-flight). The per
+ * project bound matters as the {@link WebhookDispatcher} stripes projects over single threaded workers, so the
+ * events of one project queued on a worker delay every project on the same worker.
+ * <p>
+ * Events that are not admitted right away are spooled to files in spool-dir and released in round robin over the
+ * projects as their buckets refill; the files are read outside the lock, so spooling does not block the request
+ * threads. The spool survives restarts if spool-dir is a persistent volume and is bounded by spool-capacity, beyond
+ * which events are rejected. Without a spool-dir, events that are not admitted right away are rejected.
+ */
+@Component
+public class WebhookAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookAdmission.class);
+
+    private static final long DRAIN_INTERVAL_MILLIS = 50;
+
+    public enum Result {
+        ADMITTED,
+        SPOOLED,
+        REJECTED
+    }
+
+    // marks the spool files of fan-in events, the files of the other events end in .json only
+    private static final String FAN_IN_SUFFIX = ".fanin";
+
+    // the payload stays on disk until the event is released
+    private record Spooled(UUID projectId, UUID eventId, String eventType, long receivedAt, boolean fanIn, Path file) {
+
+        private WebhookEvent read() throws IOException {
+            return new WebhookEvent(projectId, eventId, eventType, Files.readAllBytes(file), receivedAt, fanIn);
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        private synchronized boolean tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+
+    private final WebhookDispatcher webhookDispatcher;
+    private final double ratePerSecond;
+    private final int burst;
+    private final int maxInFlight;
+    private final int maxInFlightPerProject;
+    private final Path spoolDir;
+    private final int spoolCapacity;
+
+    private final Map<UUID, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // projects with events in processing, entries are removed at zero
+    private final Map<UUID, Integer> projectInFlight = new ConcurrentHashMap<>();
+
+    // spooled events by project in order of arrival, guarded by itself
+    private final LinkedHashMap<UUID, ArrayDeque<Spooled>> spool = new LinkedHashMap<>();
+    private int spooled = 0;
+    private final AtomicLong spoolSequence = new AtomicLong();
+
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "webhook-admission");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong admittedEvents = new AtomicLong();
+    private final AtomicLong spooledEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    private volatile Consumer<WebhookEvent> processor;
+
+    public WebhookAdmission(WebhookDispatcher webhookDispatcher,
+                            @Value("${trace.sdlc.admission.rate-per-second:50}") double ratePerSecond,
+                            @Value("${trace.sdlc.admission.burst:200}") int burst,
+                            @Value("${trace.sdlc.admission.max-in-flight:256}") int maxInFlight,
+                            @Value("${trace.sdlc.admission.max-in-flight-per-project:16}") int maxInFlightPerProject,
+                            @Value("${trace.sdlc.admission.spool-dir:}") String spoolDir,
+                            @Value("${trace.sdlc.admission.spool-capacity:100000}") int spoolCapacity) {
+        this.webhookDispatcher = webhookDispatcher;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxInFlightPerProject = Math.max(1, maxInFlightPerProject);
+        this.spoolDir = spoolDir == null || spoolDir.isBlank() ? null : Path.of(spoolDir);
+        this.spoolCapacity = spoolCapacity;
+        if (this.spoolDir == null) {
+            logger.warn("No trace.sdlc.admission.spool-dir set, webhook events over the admission limits are rejected");
+        }
+    }
+
+    /**
+     * Starts admitting events to the processor, beginning with the events left in the spool by a previous run.
+     */
+    public void start(Consumer<WebhookEvent> processor) {
+        this.processor = processor;
+        recoverSpool();
+        drainer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Processes the event now if the project and the global limit allow it, otherwise spools it.
+     */
+    public Result submit(WebhookEvent event) {
+        synchronized (spool) {
+            // keep the order of a project, while it has spooled events new ones queue up behind them
+            if (!spool.containsKey(event.projectId()) && acquire(event.projectId()) && dispatch(event)) {
+                admittedEvents.incrementAndGet();
+                return Result.ADMITTED;
+            }
+
+            if (spoolDir == null || spooled >= spoolCapacity) {
+                rejectedEvents.incrementAndGet();
+                return Result.REJECTED;
+            }
+
+            Path file;
+            try {
+                file = write(event);
+            } catch (IOException e) {
+                logger.error("Could not spool webhook event {}", event.eventId(), e);
+                rejectedEvents.incrementAndGet();
+                return Result.REJECTED;
+            }
+            enqueue(new Spooled(event.projectId(), event.eventId(), event.eventType(), event.receivedAt(), event.fanIn(),
+                    file));
+            spooledEvents.incrementAndGet();
+            return Result.SPOOLED;
+        }
+    }
+
+    /**
+     * Waits until the spool is empty and the dispatched events have been processed.
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (getSpooled() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(DRAIN_INTERVAL_MILLIS);
+        }
+        return webhookDispatcher.awaitIdle(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+
+    public int getSpooled() {
+        synchronized (spool) {
+            return spooled;
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAdmittedEvents() {
+        return admittedEvents.get();
+    }
+
+    public long getSpooledEvents() {
+        return spooledEvents.get();
+    }
+
+    public long getRejectedEvents() {
+        return rejectedEvents.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // spooled events stay on disk and are processed after the restart
+        drainer.shutdownNow();
+    }
+
+    /**
+     * Releases spooled events one per project in turn, as long as their buckets and the limits allow it.
+     */
+    private void drain() {
+        try {
+            List<Spooled> round;
+            while (!(round = takeRound()).isEmpty()) {
+                // the files are read without holding the lock, the queues of the taken events stay in the spool
+                // until they are dispatched, so new events of their projects are spooled behind them
+                int released = 0;
+                for (; released < round.size(); released++) {
+                    Spooled next = round.get(released);
+                    WebhookEvent event;
+                    try {
+                        event = next.read();
+                    } catch (IOException e) {
+                        logger.error("Dropping unreadable spooled webhook event {}", next.file(), e);
+                        event = null;
+                    }
+                    if (event != null && !dispatch(event)) {
+                        // the worker queue is full, try again later
+                        break;
+                    }
+                    delete(next.file());
+                }
+
+                synchronized (spool) {
+                    // events that were not dispatched go back to the head of their queues
+                    for (int i = round.size() - 1; i >= released; i--) {
+                        spool.get(round.get(i).projectId()).addFirst(round.get(i));
+                    }
+                    spooled -= released;
+                    spool.values().removeIf(ArrayDeque::isEmpty);
+                }
+                if (released < round.size()) {
+                    return;
+                }
+            }
+
+            // buckets of quiet projects are full again and not needed anymore
+            buckets.entrySet().removeIf(entry -> entry.getValue().isFull());
+        } catch (Exception e) {
+            logger.error("Error releasing spooled webhook events", e);
+        }
+    }
+
+    /**
+     * Takes the next event of each project whose bucket and the limits allow it.
+     */
+    private List<Spooled> takeRound() {
+        List<Spooled> round = new ArrayList<>();
+        synchronized (spool) {
+            for (var queue : spool.values()) {
+                var next = queue.peek();
+                if (next != null && acquire(next.projectId())) {
+                    round.add(queue.poll());
+                }
+            }
+        }
+        return round;
+    }
+
+    // caller must hold the lock on spool
+    private boolean acquire(UUID projectId) {
+        if (processor == null || inFlight.get() >= maxInFlight
+                || projectInFlight.getOrDefault(projectId, 0) >= maxInFlightPerProject) {
+            return false;
+        }
+        return buckets.computeIfAbsent(projectId, id -> new TokenBucket(burst, ratePerSecond)).tryAcquire();
+    }
+
+    private boolean dispatch(WebhookEvent event) {
+        started(event.projectId());
+        boolean dispatched = webhookDispatcher.dispatch(event.projectId(), () -> {
+            try {
+                processor.accept(event);
+            } finally {
+                finished(event.projectId());
+            }
+        });
+        if (!dispatched) {
+            finished(event.projectId());
+        }
+        return dispatched;
+    }
+
+    private void started(UUID projectId) {
+        inFlight.incrementAndGet();
+        projectInFlight.merge(projectId, 1, Integer::sum);
+    }
+
+    private void finished(UUID projectId) {
+        projectInFlight.computeIfPresent(projectId, (id, count) -> count > 1 ? count - 1 : null);
+        inFlight.decrementAndGet();
+    }
+
+    // caller must hold the lock on spool
+    private void enqueue(Spooled entry) {
+        spool.computeIfAbsent(entry.projectId(), projectId -> new ArrayDeque<>()).add(entry);
+        spooled++;
+    }
+
+    private Path write(WebhookEvent event) throws IOException {
+        Files.createDirectories(spoolDir);
+        // the file name holds the metadata, so the spool can be recovered in order after a restart
+        var file = spoolDir.resolve(String.format("%013d-%09d_%s_%s_%s%s.json", event.receivedAt(),
+                spoolSequence.incrementAndGet(), event.projectId(), event.eventId(), event.eventType(),
+                event.fanIn() ? FAN_IN_SUFFIX : ""));
+        Files.write(file, event.body());
+        return file;
+    }
+
+    private void recoverSpool() {
+        if (spoolDir == null || !Files.isDirectory(spoolDir)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(spoolDir)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".json")).sorted().toList();
+        } catch (IOException e) {
+            logger.error("Could not read webhook spool {}", spoolDir, e);
+            return;
+        }
+
+        int recovered = 0;
+        synchronized (spool) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String[] parts = name.substring(0, name.length() - ".json".length()).split("_", 4);
+                try {
+                    boolean fanIn = parts[3].endsWith(FAN_IN_SUFFIX);
+                    String eventType = fanIn ? parts[3].substring(0, parts[3].length() - FAN_IN_SUFFIX.length())
+                            : parts[3];
+                    enqueue(new Spooled(UUID.fromString(parts[1]), UUID.fromString(parts[2]), eventType,
+                            Long.parseLong(parts[0].substring(0, parts[0].indexOf('-'))), fanIn, file));
+                    recovered++;
+                } catch (Exception e) {
+                    logger.warn("Skipping unreadable spooled webhook event {}", file, e);
+                }
+            }
+        }
+        if (recovered > 0) {
+            logger.info("Recovered {} spooled webhook events", recovered);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled webhook event {}", file, e);
+        }
+    }
+}
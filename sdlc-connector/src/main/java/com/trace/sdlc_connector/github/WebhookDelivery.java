@@ -0,0 +1,34 @@
+package com.trace.sdlc_connector.github;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Persistent backing of the {@link DeliveryDedupStore}, written with plain inserts.
+ */
+@Entity
+@Table(name = "webhook_delivery", indexes = {
+        @Index(name = "idx_webhook_delivery_received", columnList = "receivedAt")
+})
+public class WebhookDelivery {
+
+    @Id
+    private UUID id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date receivedAt;
+
+    protected WebhookDelivery() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Date getReceivedAt() {
+        return receivedAt;
+    }
+}
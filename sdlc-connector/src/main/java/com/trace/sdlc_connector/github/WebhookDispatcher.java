@@ -0,0 +1,108 @@
+package com.trace.sdlc_connector.github;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Processes accepted webhook events off the request thread.
+ * Events are striped over single threaded workers by project id, so events of one project are processed in the
+ * order they were received while different projects are processed in parallel.
+ */
+@Component
+public class WebhookDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    private final List<ThreadPoolExecutor> workers = new ArrayList<>();
+
+    private final Object idleMonitor = new Object();
+    private int pending = 0;
+
+    public WebhookDispatcher(@Value("${trace.sdlc.webhook.workers:4}") int workerCount,
+                             @Value("${trace.sdlc.webhook.queue-capacity:1000}") int queueCapacity) {
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            var threadName = "webhook-worker-" + i;
+            workers.add(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName)));
+        }
+    }
+
+    /**
+     * Queues an event of a project for processing.
+     *
+     * @return false if the worker queue of the project is full and the event was not accepted
+     */
+    public boolean dispatch(UUID projectId, Runnable task) {
+        var worker = workers.get(Math.floorMod(projectId.hashCode(), workers.size()));
+
+        synchronized (idleMonitor) {
+            pending++;
+        }
+
+        try {
+            worker.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.error("Error processing webhook event for project {}", projectId, e);
+                } finally {
+                    done();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            done();
+            return false;
+        }
+    }
+
+    /**
+     * Waits until all queued events have been processed.
+     *
+     * @return true if the queues drained within the timeout
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (idleMonitor) {
+            while (pending > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                idleMonitor.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+
+    private void done() {
+        synchronized (idleMonitor) {
+            pending--;
+            if (pending == 0) {
+                idleMonitor.notifyAll();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // finish the already acknowledged events before the application stops
+        workers.forEach(ThreadPoolExecutor::shutdown);
+        for (var worker : workers) {
+            if (!worker.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Webhook worker did not finish queued events in time, {} events dropped",
+                        worker.shutdownNow().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.trace.sdlc_connector.github;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * An accepted webhook delivery that still has to be processed.
+ *
+ * @param projectId The project the delivery was sent to. For deliveries of the organization or GitHub App webhook
+ *                  ({@code fanIn}) the key of the sending account instead, the projects are only looked up when the
+ *                  event is processed.
+ * @param body      The raw UTF-8 payload as received, parsed without decoding it into a String
+ */
+public record WebhookEvent(UUID projectId, UUID eventId, String eventType, byte[] body, long receivedAt,
+                           boolean fanIn) {
+
+    public WebhookEvent(UUID projectId, UUID eventId, String eventType, byte[] body, long receivedAt) {
+        this(projectId, eventId, eventType, body, receivedAt, false);
+    }
+
+    public WebhookEvent(UUID projectId, UUID eventId, String eventType, String payload, long receivedAt) {
+        this(projectId, eventId, eventType, payload.getBytes(StandardCharsets.UTF_8), receivedAt);
+    }
+
+    /**
+     * @return The payload decoded, only meant for logging and tests
+     */
+    public String payload() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,129 @@
+package com.trace.sdlc_connector.github;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meters of the GitHub webhook endpoint and the event handlers, tagged by X-GitHub-Event type. The event type is sent
+ * by the caller, so only the first MAX_EVENT_TYPES distinct types get their own tag and the rest are counted as
+ * 'other'.
+ */
+@Component
+public class WebhookMetrics {
+
+    static final int MAX_EVENT_TYPES = 100;
+
+    private static final String OTHER = "other";
+
+    // the payload limit of GitHub webhooks
+    private static final double MAX_PAYLOAD_BYTES = 25 * 1024 * 1024;
+
+    private record EventMeters(Counter received, Counter unhandled, DistributionSummary payloadSize) {
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, EventMeters> eventMeters = new ConcurrentHashMap<>();
+    // handlers only exist for a fixed set of event types
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+
+    private final Timer validSignatures;
+    private final Timer invalidSignatures;
+    private final DistributionSummary fanOut;
+
+    public WebhookMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validSignatures = signatureTimer("valid");
+        this.invalidSignatures = signatureTimer("invalid");
+        this.fanOut = DistributionSummary.builder("sdlc.webhook.fanout.projects")
+                .description("Projects a fan-in webhook delivery was routed to")
+                .register(meterRegistry);
+    }
+
+    public void received(String eventType, int payloadBytes) {
+        var meters = meters(eventType);
+        meters.received().increment();
+        meters.payloadSize().record(payloadBytes);
+    }
+
+    public void unhandled(String eventType) {
+        meters(eventType).unhandled().increment();
+    }
+
+    public void signatureVerified(long nanos, boolean valid) {
+        (valid ? validSignatures : invalidSignatures).record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Records to how many projects a delivery of the organization or GitHub App webhook was fanned out, 0 if no
+     * project subscribed to it.
+     */
+    public void fannedOut(int projects) {
+        fanOut.record(projects);
+    }
+
+    /**
+     * Records the time a handler took to parse and extract an event.
+     *
+     * @param outcome 'success', or 'error' if the payload could not be parsed
+     */
+    public void handled(String eventType, String handler, String outcome, long nanos) {
+        handlerTimers.computeIfAbsent(eventType + " " + outcome, key -> Timer.builder("sdlc.webhook.handler")
+                        .description("Time to parse and extract a webhook event")
+                        .tag("event", eventType)
+                        .tag("handler", handler)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(Duration.ofSeconds(1))
+                        .register(meterRegistry))
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private EventMeters meters(String eventType) {
+        String tag = eventType == null ? OTHER : eventType;
+        var meters = eventMeters.get(tag);
+        if (meters != null) {
+            return meters;
+        }
+        if (eventMeters.size() >= MAX_EVENT_TYPES) {
+            tag = OTHER;
+        }
+        return eventMeters.computeIfAbsent(tag, this::createMeters);
+    }
+
+    private EventMeters createMeters(String tag) {
+        return new EventMeters(
+                Counter.builder("sdlc.webhook.received")
+                        .description("Received webhook deliveries")
+                        .tag("event", tag)
+                        .register(meterRegistry),
+                Counter.builder("sdlc.webhook.unhandled")
+                        .description("Webhook deliveries without a handler for their event type")
+                        .tag("event", tag)
+                        .register(meterRegistry),
+                DistributionSummary.builder("sdlc.webhook.payload.size")
+                        .description("Size of the webhook payloads")
+                        .baseUnit("bytes")
+                        .tag("event", tag)
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(MAX_PAYLOAD_BYTES)
+                        .register(meterRegistry)
+        );
+    }
+
+    private Timer signatureTimer(String result) {
+        return Timer.builder("sdlc.webhook.signature")
+                .description("Time to verify the signature of a webhook delivery")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+}
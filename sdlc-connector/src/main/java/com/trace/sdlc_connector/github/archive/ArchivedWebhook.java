@@ -0,0 +1,68 @@
+package com.trace.sdlc_connector.github.archive;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A webhook delivery as it was received: the raw body and the GitHub headers.
+ */
+public record ArchivedWebhook(UUID projectId, UUID eventId, String eventType, long receivedAt,
+                              Map<String, String> headers, byte[] payload) {
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(receivedAt);
+        out.writeLong(projectId.getMostSignificantBits());
+        out.writeLong(projectId.getLeastSignificantBits());
+        out.writeLong(eventId.getMostSignificantBits());
+        out.writeLong(eventId.getLeastSignificantBits());
+        out.writeUTF(eventType);
+        out.writeShort(headers.size());
+        for (var header : headers.entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeUTF(header.getValue());
+        }
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * @param projectId only the payloads of this project are read, the others are skipped; null for all
+     * @return the delivery, with a null payload if it belongs to another project
+     */
+    static ArchivedWebhook readFrom(DataInputStream in, UUID projectId) throws IOException {
+        long receivedAt = in.readLong();
+        UUID project = new UUID(in.readLong(), in.readLong());
+        UUID eventId = new UUID(in.readLong(), in.readLong());
+        String eventType = in.readUTF();
+        int headerCount = in.readUnsignedShort();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(in.readUTF(), in.readUTF());
+        }
+
+        int length = in.readInt();
+        byte[] payload = null;
+        if (projectId == null || projectId.equals(project)) {
+            payload = in.readNBytes(length);
+            if (payload.length < length) {
+                throw new EOFException("Truncated payload");
+            }
+        } else {
+            in.skipNBytes(length);
+        }
+        return new ArchivedWebhook(project, eventId, eventType, receivedAt, headers, payload);
+    }
+
+    /**
+     * @return the approximate size of the record in the archive before compression
+     */
+    long size() {
+        return 64L + eventType.length() + payload.length
+                + headers.entrySet().stream().mapToLong(h -> 4L + h.getKey().length() + h.getValue().length()).sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.trace.sdlc_connector.github.archive;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+public class ReplayController {
+
+    private final WebhookReplay webhookReplay;
+
+    public ReplayController(WebhookReplay webhookReplay) {
+        this.webhookReplay = webhookReplay;
+    }
+
+    /**
+     * Replays the archived GitHub webhooks of the project received in the time range through the current handlers.
+     * The replay runs in the background, its progress can be read from the returned job.
+     */
+    @PostMapping("projects/{projectId}/replay/github")
+    public ResponseEntity<?> startReplay(@PathVariable UUID projectId,
+                                         @RequestParam(required = false) Instant from,
+                                         @RequestParam(required = false) Instant to) {
+        try {
+            return ResponseEntity.accepted().body(webhookReplay.start(projectId, from, to));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("projects/{projectId}/replay/github/{jobId}")
+    public ResponseEntity<?> getReplay(@PathVariable UUID projectId, @PathVariable UUID jobId) {
+        try {
+            return webhookReplay.getJob(projectId, jobId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+}
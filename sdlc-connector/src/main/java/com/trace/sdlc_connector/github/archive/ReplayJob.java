@@ -0,0 +1,126 @@
+package com.trace.sdlc_connector.github.archive;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of a replay of a project's archived webhooks.
+ */
+public class ReplayJob {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID projectId;
+    private final Instant from;
+    private final Instant to;
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile Long finishedAt;
+
+    private final AtomicLong readEvents = new AtomicLong();
+    private final AtomicLong replayedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    private final CompletableFuture<ReplayJob> completion = new CompletableFuture<>();
+
+    ReplayJob(UUID projectId, Instant from, Instant to) {
+        this.projectId = projectId;
+        this.from = from;
+        this.to = to;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProjectId() {
+        return projectId;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getReadEvents() {
+        return readEvents.get();
+    }
+
+    public long getReplayedEvents() {
+        return replayedEvents.get();
+    }
+
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * Waits until the job finished.
+     */
+    public ReplayJob await(Duration timeout) throws InterruptedException {
+        try {
+            return completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return this;
+        }
+    }
+
+    void eventRead() {
+        readEvents.incrementAndGet();
+    }
+
+    void eventReplayed() {
+        replayedEvents.incrementAndGet();
+    }
+
+    void eventFailed() {
+        failedEvents.incrementAndGet();
+    }
+
+    void complete() {
+        finish(State.COMPLETED, null);
+    }
+
+    void fail(String error) {
+        finish(State.FAILED, error);
+    }
+
+    private void finish(State state, String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = state;
+        completion.complete(this);
+    }
+}
@@ -0,0 +1,246 @@
+package com.trace.sdlc_connector.github.archive;
+
+import com.trace.sdlc_connector.message.BatchBuffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only archive of the raw webhook deliveries, so past events can be extracted again by changed handlers
+ * (see {@link WebhookReplay}). Deliveries are appended in batches to gzip compressed segment files in
+ * trace.sdlc.archive.dir, a new segment is started once the current one reaches segment-max-bytes (uncompressed) or
+ * segment-max-age-minutes. Segments are named after the time of their first delivery, so a replay of a time range
+ * only reads the segments that cover it. Each batch is flushed to disk; after a crash the segment ends with the last
+ * complete delivery.
+ * <p>
+ * The archive is off by default and needs an explicit, persistent trace.sdlc.archive.dir when enabled. Segments whose
+ * deliveries are all older than retention-days are deleted when a new segment is started. The deliveries of all
+ * projects share the segments, so a replay of one project decompresses every delivery of the time range and its cost
+ * grows with the total archive volume, not with the volume of the project.
+ */
+@Component
+public class WebhookArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookArchive.class);
+
+    private static final String SEGMENT_SUFFIX = ".gz";
+
+    private static final Duration WRITE_DELAY_MARGIN = Duration.ofMinutes(5);
+
+    @FunctionalInterface
+    public interface ArchiveReader {
+        void accept(ArchivedWebhook webhook) throws Exception;
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long segmentMaxBytes;
+    private final long segmentMaxAgeMillis;
+    private final long retentionMillis;
+
+    private final BatchBuffer<ArchivedWebhook> batchBuffer;
+
+    // the open segment, only used by the single writer thread of the buffer
+    private DataOutputStream segment;
+    private long segmentStartedAt;
+    private long segmentBytes;
+    private int segmentSequence = 0;
+
+    private final AtomicLong archivedEvents = new AtomicLong();
+
+    public WebhookArchive(@Value("${trace.sdlc.archive.enabled:false}") boolean enabled,
+                          @Value("${trace.sdlc.archive.dir:}") String dir,
+                          @Value("${trace.sdlc.archive.segment-max-bytes:67108864}") long segmentMaxBytes,
+                          @Value("${trace.sdlc.archive.segment-max-age-minutes:60}") long segmentMaxAgeMinutes,
+                          @Value("${trace.sdlc.archive.retention-days:30}") long retentionDays) {
+        if (enabled && (dir == null || dir.isBlank())) {
+            throw new IllegalStateException("trace.sdlc.archive.dir is required when the webhook archive is enabled");
+        }
+        this.enabled = enabled;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.segmentMaxAgeMillis = Duration.ofMinutes(segmentMaxAgeMinutes).toMillis();
+        // 0 keeps the segments forever
+        this.retentionMillis = Duration.ofDays(retentionDays).toMillis();
+
+        this.batchBuffer = new BatchBuffer<>("webhook-archive", new BatchBuffer.Settings(
+                500,
+                4 * 1024 * 1024,
+                Duration.ofMillis(200),
+                10000,
+                3,
+                Duration.ofMillis(500),
+                1
+        ), ArchivedWebhook::size, this::writeBatch);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the delivery to the archive in the background.
+     */
+    public void append(ArchivedWebhook webhook) {
+        if (enabled) {
+            batchBuffer.add(webhook);
+        }
+    }
+
+    /**
+     * Reads the archived deliveries received in the time range in the order they were archived.
+     *
+     * @param projectId only deliveries of this project are read, null for all
+     * @param from      inclusive, null for the beginning of the archive
+     * @param to        exclusive, null for the end of the archive
+     */
+    public void read(UUID projectId, Instant from, Instant to, ArchiveReader reader) throws Exception {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+
+        List<Path> segments = getSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            // a segment holds the deliveries received before the start of the next one. They are written shortly
+            // after they were received, so a segment can start a bit after the last delivery of the range.
+            long start = segmentStart(segments.get(i));
+            long end = i + 1 < segments.size() ? segmentStart(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (start - WRITE_DELAY_MARGIN.toMillis() >= toMillis || end < fromMillis) {
+                continue;
+            }
+
+            try (var in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(segments.get(i)), 64 * 1024)))) {
+                while (true) {
+                    ArchivedWebhook webhook;
+                    try {
+                        webhook = ArchivedWebhook.readFrom(in, projectId);
+                    } catch (EOFException e) {
+                        // end of the segment, or the last delivery was not completely written
+                        break;
+                    }
+                    if (webhook.payload() != null && webhook.receivedAt() >= fromMillis
+                            && webhook.receivedAt() < toMillis) {
+                        reader.accept(webhook);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the appended deliveries are written.
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        return batchBuffer.awaitIdle(timeout);
+    }
+
+    public long getArchivedEvents() {
+        return archivedEvents.get();
+    }
+
+    public BatchBuffer<ArchivedWebhook> getBatchBuffer() {
+        return batchBuffer;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        batchBuffer.close(Duration.ofSeconds(30));
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    private synchronized void writeBatch(List<ArchivedWebhook> batch) throws IOException {
+        long now = System.currentTimeMillis();
+        if (segment != null && (segmentBytes >= segmentMaxBytes || now - segmentStartedAt >= segmentMaxAgeMillis)) {
+            closeSegment();
+        }
+        if (segment == null) {
+            openSegment(now);
+        }
+
+        for (ArchivedWebhook webhook : batch) {
+            webhook.writeTo(segment);
+            segmentBytes += webhook.size();
+        }
+        // sync flush, so the batch can be read back and survives a crash of the application
+        segment.flush();
+        archivedEvents.addAndGet(batch.size());
+    }
+
+    private void openSegment(long now) throws IOException {
+        Files.createDirectories(dir);
+        if (retentionMillis > 0) {
+            deleteExpiredSegments(now);
+        }
+
+        var file = dir.resolve(String.format("segment-%013d-%06d%s", now, segmentSequence++ % 1_000_000,
+                SEGMENT_SUFFIX));
+        segment = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), 64 * 1024));
+        segmentStartedAt = now;
+        segmentBytes = 0;
+        logger.info("Started webhook archive segment {}", file);
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.warn("Could not close webhook archive segment", e);
+        }
+        segment = null;
+    }
+
+    // all segments are closed when a new one is opened
+    private void deleteExpiredSegments(long now) {
+        try {
+            List<Path> segments = getSegments();
+            for (int i = 0; i < segments.size(); i++) {
+                // like in read, a segment ends with the start of the next one
+                long end = i + 1 < segments.size() ? segmentStart(segments.get(i + 1)) : now;
+                if (now - end < retentionMillis + WRITE_DELAY_MARGIN.toMillis()) {
+                    break;
+                }
+                Files.delete(segments.get(i));
+                logger.info("Deleted expired webhook archive segment {}", segments.get(i));
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete expired webhook archive segments", e);
+        }
+    }
+
+    private List<Path> getSegments() throws IOException {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentStart(Path segment) {
+        // segment-<start millis>-<sequence>.gz
+        return Long.parseLong(segment.getFileName().toString().substring("segment-".length(), "segment-".length() + 13));
+    }
+}
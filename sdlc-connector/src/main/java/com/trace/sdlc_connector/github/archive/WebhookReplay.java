@@ -0,0 +1,174 @@
+package com.trace.sdlc_connector.github.archive;
+
+import com.trace.sdlc_connector.github.GithubConnector;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.security.SecurityService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Extracts the archived webhooks of a project again with the current handlers, e.g. after a handler was fixed or
+ * extracts more fields. The archive is read sequentially, the payloads are extracted in parallel and the messages
+ * are emitted in the order of the archive, replacing the stored messages of the same events. Like the backfill,
+ * replayed CI events are not coalesced.
+ */
+@Service
+public class WebhookReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookReplay.class);
+
+    // finished jobs can be looked up for this long
+    private static final Duration JOB_RETENTION = Duration.ofDays(1);
+
+    private final WebhookArchive webhookArchive;
+    private final GithubConnector githubConnector;
+    private final MessageProcessor messageProcessor;
+    private final SecurityService securityService;
+
+    // extractions that may run ahead of the emitted message
+    private final int window;
+
+    private final ExecutorService jobExecutor;
+    private final ExecutorService extractionExecutor;
+
+    private final Map<UUID, ReplayJob> jobs = new ConcurrentHashMap<>();
+
+    public WebhookReplay(WebhookArchive webhookArchive, GithubConnector githubConnector,
+                         MessageProcessor messageProcessor, SecurityService securityService,
+                         @Value("${trace.sdlc.replay.parallelism:0}") int parallelism) {
+        this.webhookArchive = webhookArchive;
+        this.githubConnector = githubConnector;
+        this.messageProcessor = messageProcessor;
+        this.securityService = securityService;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.window = threads * 64;
+
+        this.jobExecutor = Executors.newCachedThreadPool(daemonThreads("webhook-replay"));
+        this.extractionExecutor = Executors.newFixedThreadPool(threads, daemonThreads("webhook-replay-extract"));
+    }
+
+    /**
+     * Starts replaying the webhooks of the project received in the time range in the background.
+     *
+     * @param from inclusive, null for the beginning of the archive
+     * @param to   exclusive, null for now
+     */
+    public ReplayJob start(UUID projectId, Instant from, Instant to) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            throw new SecurityException("Access denied to project with ID: " + projectId);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Invalid time range: " + from + " - " + to);
+        }
+        if (!webhookArchive.isEnabled()) {
+            throw new IllegalArgumentException("The webhook archive is disabled");
+        }
+
+        evictFinishedJobs();
+        var job = new ReplayJob(projectId, from, to);
+        jobs.put(job.getId(), job);
+
+        jobExecutor.execute(() -> run(job));
+        return job;
+    }
+
+    public Optional<ReplayJob> getJob(UUID projectId, UUID jobId) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            throw new SecurityException("Access denied to project with ID: " + projectId);
+        }
+
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> job.getProjectId().equals(projectId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        extractionExecutor.shutdownNow();
+    }
+
+    private void run(ReplayJob job) {
+        logger.info("Replaying archived webhooks of project {} from {} to {}", job.getProjectId(), job.getFrom(),
+                job.getTo());
+        Deque<Future<Message>> extractions = new ArrayDeque<>();
+        try {
+            // include the deliveries that are still buffered
+            webhookArchive.awaitIdle(Duration.ofSeconds(30));
+
+            Instant to = job.getTo() != null ? job.getTo() : Instant.now();
+            webhookArchive.read(job.getProjectId(), job.getFrom(), to, webhook -> {
+                job.eventRead();
+                extractions.add(extractionExecutor.submit(() -> githubConnector.processWebhookEvent(
+                        webhook.eventType(), webhook.eventId(), webhook.projectId(), webhook.payload(),
+                        webhook.receivedAt())));
+                if (extractions.size() >= window) {
+                    emit(job, extractions.poll());
+                }
+            });
+            while (!extractions.isEmpty()) {
+                emit(job, extractions.poll());
+            }
+
+            job.complete();
+            logger.info("Replayed {} archived webhooks of project {}, {} failed", job.getReplayedEvents(),
+                    job.getProjectId(), job.getFailedEvents());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            extractions.forEach(extraction -> extraction.cancel(true));
+            job.fail("Interrupted");
+        } catch (Exception e) {
+            logger.warn("Replaying archived webhooks of project {} failed", job.getProjectId(), e);
+            extractions.forEach(extraction -> extraction.cancel(true));
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void emit(ReplayJob job, Future<Message> extraction) throws InterruptedException {
+        Message message;
+        try {
+            message = extraction.get();
+        } catch (ExecutionException e) {
+            logger.warn("Could not replay archived webhook of project {}", job.getProjectId(), e.getCause());
+            message = null;
+        }
+
+        if (message == null) {
+            job.eventFailed();
+            return;
+        }
+        messageProcessor.replayMessage(job.getProjectId(), message);
+        job.eventReplayed();
+    }
+
+    private void evictFinishedJobs() {
+        long threshold = System.currentTimeMillis() - JOB_RETENTION.toMillis();
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt() < threshold);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                var thread = new Thread(runnable, name + "-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.trace.sdlc_connector.github.backfill;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+public class BackfillController {
+
+    private final GithubBackfill githubBackfill;
+
+    public BackfillController(GithubBackfill githubBackfill) {
+        this.githubBackfill = githubBackfill;
+    }
+
+    /**
+     * Starts importing the history of a GitHub repository into the project. The import runs in the background,
+     * its progress can be read from the returned job.
+     */
+    @PostMapping("projects/{projectId}/backfill/github")
+    public ResponseEntity<?> startBackfill(@PathVariable UUID projectId,
+                                           @RequestParam String owner,
+                                           @RequestParam String repository) {
+        try {
+            return ResponseEntity.accepted().body(githubBackfill.start(projectId, owner, repository));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("projects/{projectId}/backfill/github/{jobId}")
+    public ResponseEntity<?> getBackfill(@PathVariable UUID projectId, @PathVariable UUID jobId) {
+        try {
+            return githubBackfill.getJob(projectId, jobId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.trace.sdlc_connector.github.backfill;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of an import of a repository's history.
+ */
+public class BackfillJob {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID projectId;
+    private final String repository;
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile Long finishedAt;
+
+    private final AtomicLong fetchedPages = new AtomicLong();
+    private final AtomicLong notModifiedPages = new AtomicLong();
+    private final AtomicLong importedEvents = new AtomicLong();
+
+    private final CompletableFuture<BackfillJob> completion = new CompletableFuture<>();
+
+    BackfillJob(UUID projectId, String repository) {
+        this.projectId = projectId;
+        this.repository = repository;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProjectId() {
+        return projectId;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getFetchedPages() {
+        return fetchedPages.get();
+    }
+
+    public long getNotModifiedPages() {
+        return notModifiedPages.get();
+    }
+
+    public long getImportedEvents() {
+        return importedEvents.get();
+    }
+
+    /**
+     * Waits until the job finished.
+     */
+    public BackfillJob await(Duration timeout) throws InterruptedException {
+        try {
+            return completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return this;
+        }
+    }
+
+    void pageFetched(boolean notModified) {
+        fetchedPages.incrementAndGet();
+        if (notModified) {
+            notModifiedPages.incrementAndGet();
+        }
+    }
+
+    void eventImported() {
+        importedEvents.incrementAndGet();
+    }
+
+    void complete() {
+        finish(State.COMPLETED, null);
+    }
+
+    void fail(String error) {
+        finish(State.FAILED, error);
+    }
+
+    private void finish(State state, String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = state;
+        completion.complete(this);
+    }
+}
@@ -0,0 +1,149 @@
+package com.trace.sdlc_connector.github.backfill;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The list endpoints of the GitHub REST API that are imported by a backfill. Each resource is converted into the
+ * webhook payloads GitHub would have sent for it, so it is processed by the same event handlers as live events.
+ */
+public enum BackfillResource {
+
+    ISSUES("issues?state=all&sort=created&direction=asc") {
+        @Override
+        List<Event> events(JsonNode issue) {
+            // the issues endpoint also lists pull requests
+            if (issue.has("pull_request")) {
+                return List.of();
+            }
+            return openedAndClosed("issues", "issue", issue);
+        }
+    },
+
+    PULL_REQUESTS("pulls?state=all&sort=created&direction=asc") {
+        @Override
+        List<Event> events(JsonNode pullRequest) {
+            return openedAndClosed("pull_request", "pull_request", pullRequest);
+        }
+    },
+
+    COMMITS("commits?") {
+        @Override
+        List<Event> events(JsonNode commit) {
+            JsonNode details = commit.path("commit");
+            JsonNode gitAuthor = details.path("author");
+
+            ObjectNode pushedCommit = JsonNodeFactory.instance.objectNode();
+            pushedCommit.set("id", commit.get("sha"));
+            pushedCommit.set("message", details.get("message"));
+            pushedCommit.set("timestamp", gitAuthor.get("date"));
+            pushedCommit.set("url", commit.get("html_url"));
+            ObjectNode author = pushedCommit.putObject("author");
+            author.set("name", gitAuthor.get("name"));
+            author.set("email", gitAuthor.get("email"));
+            author.set("username", commit.path("author").get("login"));
+
+            ObjectNode payload = JsonNodeFactory.instance.objectNode();
+            payload.set("sender", commit.get("author"));
+            payload.set("after", commit.get("sha"));
+            payload.putArray("commits").add(pushedCommit);
+            payload.set("head_commit", pushedCommit);
+
+            return List.of(new Event("push", null, commit.path("sha").asText(),
+                    timestamp(gitAuthor.path("date")), payload));
+        }
+    },
+
+    WORKFLOW_RUNS("actions/runs?") {
+        @Override
+        JsonNode items(JsonNode body) {
+            return body.path("workflow_runs");
+        }
+
+        @Override
+        List<Event> events(JsonNode run) {
+            boolean completed = "completed".equals(run.path("status").asText());
+            String action = completed ? "completed" : "requested";
+
+            ObjectNode payload = JsonNodeFactory.instance.objectNode();
+            payload.put("action", action);
+            payload.set("sender", run.get("triggering_actor") != null ? run.get("triggering_actor") : run.get("actor"));
+            payload.set("workflow_run", run);
+
+            return List.of(new Event("workflow_run", action, run.path("id").asText(),
+                    timestamp(run.path(completed ? "updated_at" : "created_at")), payload));
+        }
+    };
+
+    /**
+     * A webhook payload derived from a resource.
+     *
+     * @param resourceId The id of the resource, which together with the type identifies the event
+     */
+    record Event(String eventType, String action, String resourceId, long timestamp, ObjectNode payload) {
+
+        String type() {
+            return action == null ? eventType : eventType + " " + action;
+        }
+    }
+
+    private final String path;
+
+    BackfillResource(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return The url of the first page of the resource
+     */
+    String url(String apiUrl, String owner, String repository, int perPage) {
+        String separator = path.endsWith("?") ? "" : "&";
+        return apiUrl + "/repos/" + owner + "/" + repository + "/" + path + separator + "per_page=" + perPage;
+    }
+
+    /**
+     * @return The array of resources in a page
+     */
+    JsonNode items(JsonNode body) {
+        return body;
+    }
+
+    abstract List<Event> events(JsonNode item);
+
+    private static List<Event> openedAndClosed(String eventType, String field, JsonNode item) {
+        List<Event> events = new ArrayList<>();
+        String id = item.path("id").asText();
+
+        events.add(new Event(eventType, "opened", id, timestamp(item.path("created_at")),
+                payload("opened", field, item, item.get("user"))));
+
+        if (item.hasNonNull("closed_at")) {
+            JsonNode closedBy = item.hasNonNull("closed_by") ? item.get("closed_by")
+                    : item.hasNonNull("merged_by") ? item.get("merged_by") : item.get("user");
+            events.add(new Event(eventType, "closed", id, timestamp(item.path("closed_at")),
+                    payload("closed", field, item, closedBy)));
+        }
+        return events;
+    }
+
+    private static ObjectNode payload(String action, String field, JsonNode item, JsonNode sender) {
+        ObjectNode payload = JsonNodeFactory.instance.objectNode();
+        payload.put("action", action);
+        payload.set("sender", sender);
+        payload.set(field, item);
+        return payload;
+    }
+
+    private static long timestamp(JsonNode value) {
+        try {
+            return value.isTextual() ? Instant.parse(value.asText()).toEpochMilli() : System.currentTimeMillis();
+        } catch (Exception e) {
+            return System.currentTimeMillis();
+        }
+    }
+}
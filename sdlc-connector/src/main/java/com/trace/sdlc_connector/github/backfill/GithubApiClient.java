@@ -0,0 +1,205 @@
+package com.trace.sdlc_connector.github.backfill;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads pages of the GitHub REST API. Pages are requested conditionally with the ETag of the last response, so
+ * unchanged pages are answered with 304 Not Modified, which does not count against the rate limit. A page that was
+ * not modified keeps the links of the last response, so the following pages can still be requested. When the rate
+ * limit is exhausted, all requests wait until it is reset.
+ */
+@Component
+public class GithubApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubApiClient.class);
+
+    private static final Pattern LINK_PATTERN = Pattern.compile("<([^>]+)>;\\s*rel=\"(\\w+)\"");
+    private static final Pattern PAGE_PATTERN = Pattern.compile("[?&]page=(\\d+)");
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * A page of a list endpoint.
+     *
+     * @param body     The response body, or null if the page was not modified since the last request
+     * @param lastPage The number of the last page, or 0 if it is not known
+     */
+    public record Page(byte[] body, String next, int lastPage) {
+
+        public boolean notModified() {
+            return body == null;
+        }
+    }
+
+    private record Response(int status, byte[] body, HttpHeaders headers) {
+    }
+
+    private record Validator(String etag, String link) {
+    }
+
+    private final RestClient restClient;
+    private final String apiUrl;
+    private final long maxRateLimitWaitMillis;
+
+    // project id + url -> ETag and Link header of the last response
+    private final Map<String, Validator> validators = new ConcurrentHashMap<>();
+
+    // epoch millis until which the rate limit is exhausted
+    private volatile long rateLimitedUntil = 0;
+
+    public GithubApiClient(RestClient.Builder restClientBuilder,
+                           @Value("${trace.sdlc.github.api-url:https://api.github.com}") String apiUrl,
+                           @Value("${trace.sdlc.github.max-rate-limit-wait-seconds:900}") long maxRateLimitWaitSeconds) {
+        this.restClient = restClientBuilder.build();
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.maxRateLimitWaitMillis = Duration.ofSeconds(maxRateLimitWaitSeconds).toMillis();
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Requests a page.
+     *
+     * @param url   The absolute url of the page, e.g. from the next link of the previous page
+     * @param token The access token, or null for unauthenticated requests
+     */
+    public Page getPage(UUID projectId, String url, String token) throws InterruptedException {
+        String etagKey = projectId + " " + url;
+
+        for (int attempt = 1; ; attempt++) {
+            awaitRateLimit();
+
+            var request = restClient.get()
+                    .uri(URI.create(url))
+                    .header(HttpHeaders.ACCEPT, "application/vnd.github+json")
+                    .header("X-GitHub-Api-Version", "2022-11-28");
+            if (token != null && !token.isBlank()) {
+                request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            }
+            Validator validator = validators.get(etagKey);
+            if (validator != null) {
+                request = request.header(HttpHeaders.IF_NONE_MATCH, validator.etag());
+            }
+
+            var result = request.exchange((req, response) -> {
+                var headers = response.getHeaders();
+                updateRateLimit(headers);
+
+                int status = response.getStatusCode().value();
+                if (status == HttpStatus.NOT_MODIFIED.value()) {
+                    return new Response(status, null, headers);
+                }
+                return new Response(status, StreamUtils.copyToByteArray(response.getBody()), headers);
+            });
+
+            if (result.status() == HttpStatus.NOT_MODIFIED.value()) {
+                String link = result.headers().getFirst(HttpHeaders.LINK);
+                return page(null, link != null || validator == null ? link : validator.link());
+            }
+            if (result.status() >= 200 && result.status() < 300) {
+                String responseEtag = result.headers().getETag();
+                String link = result.headers().getFirst(HttpHeaders.LINK);
+                if (responseEtag != null) {
+                    validators.put(etagKey, new Validator(responseEtag, link));
+                }
+                return page(result.body(), link);
+            }
+
+            // primary and secondary rate limits are answered with 403 or 429
+            boolean rateLimited = result.status() == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || (result.status() == HttpStatus.FORBIDDEN.value() && isRateLimitResponse(result.headers()));
+            if (!rateLimited || attempt >= MAX_ATTEMPTS) {
+                throw new GithubApiException(url, result.status());
+            }
+
+            // without a reset time, back off for a minute as GitHub recommends for secondary limits
+            if (rateLimitedUntil <= System.currentTimeMillis()) {
+                long retryAfter = parseLong(result.headers().getFirst(HttpHeaders.RETRY_AFTER), 60);
+                limitUntil(System.currentTimeMillis() + Duration.ofSeconds(retryAfter).toMillis());
+            }
+            logger.warn("GitHub rate limit hit for {}, retrying", url);
+        }
+    }
+
+    private static Page page(byte[] body, String link) {
+        String next = null;
+        int lastPage = 0;
+
+        if (link != null) {
+            Matcher matcher = LINK_PATTERN.matcher(link);
+            while (matcher.find()) {
+                switch (matcher.group(2)) {
+                    case "next" -> next = matcher.group(1);
+                    case "last" -> {
+                        Matcher page = PAGE_PATTERN.matcher(matcher.group(1));
+                        if (page.find()) {
+                            lastPage = Integer.parseInt(page.group(1));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new Page(body, next, lastPage);
+    }
+
+    private void awaitRateLimit() throws InterruptedException {
+        long waitMillis = rateLimitedUntil - System.currentTimeMillis();
+        if (waitMillis <= 0) {
+            return;
+        }
+        if (waitMillis > maxRateLimitWaitMillis) {
+            throw new GithubApiException("GitHub rate limit is exhausted for " + waitMillis / 1000 + " seconds");
+        }
+
+        logger.info("GitHub rate limit exhausted, waiting {} ms", waitMillis);
+        Thread.sleep(waitMillis);
+    }
+
+    private void updateRateLimit(HttpHeaders headers) {
+        if ("0".equals(headers.getFirst("X-RateLimit-Remaining"))) {
+            long reset = parseLong(headers.getFirst("X-RateLimit-Reset"), 0);
+            if (reset > 0) {
+                limitUntil(reset * 1000);
+            }
+        }
+    }
+
+    private void limitUntil(long epochMillis) {
+        synchronized (this) {
+            if (epochMillis > rateLimitedUntil) {
+                rateLimitedUntil = epochMillis;
+            }
+        }
+    }
+
+    private static boolean isRateLimitResponse(HttpHeaders headers) {
+        return headers.containsKey(HttpHeaders.RETRY_AFTER) || "0".equals(headers.getFirst("X-RateLimit-Remaining"));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
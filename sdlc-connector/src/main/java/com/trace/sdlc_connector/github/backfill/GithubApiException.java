@@ -0,0 +1,12 @@
+package com.trace.sdlc_connector.github.backfill;
+
+public class GithubApiException extends RuntimeException {
+
+    public GithubApiException(String message) {
+        super(message);
+    }
+
+    public GithubApiException(String url, int status) {
+        super("GitHub API request " + url + " failed with status " + status);
+    }
+}
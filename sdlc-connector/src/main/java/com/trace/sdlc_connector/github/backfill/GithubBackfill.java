@@ -0,0 +1,201 @@
+package com.trace.sdlc_connector.github.backfill;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.SupportedSystem;
+import com.trace.sdlc_connector.github.GithubConnector;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.security.SecurityService;
+import com.trace.sdlc_connector.token.TokenEntity;
+import com.trace.sdlc_connector.token.TokenRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Imports the history of a GitHub repository (issues, pull requests, commits and workflow runs) via the REST API.
+ * The resources are converted into webhook payloads and processed by the same handlers as live events. Event ids
+ * are derived from the resources, so importing a repository again does not store events twice.
+ */
+@Service
+public class GithubBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubBackfill.class);
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    // finished jobs can be looked up for this long
+    private static final Duration JOB_RETENTION = Duration.ofDays(1);
+
+    private final GithubApiClient apiClient;
+    private final GithubConnector githubConnector;
+    private final MessageProcessor messageProcessor;
+    private final TokenRepo tokenRepo;
+    private final SecurityService securityService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int perPage;
+
+    private final ExecutorService jobExecutor;
+    private final ExecutorService pageExecutor;
+
+    private final Map<UUID, BackfillJob> jobs = new ConcurrentHashMap<>();
+
+    public GithubBackfill(GithubApiClient apiClient, GithubConnector githubConnector, MessageProcessor messageProcessor,
+                          TokenRepo tokenRepo, SecurityService securityService,
+                          @Value("${trace.sdlc.backfill.concurrency:4}") int concurrency,
+                          @Value("${trace.sdlc.backfill.per-page:100}") int perPage) {
+        this.apiClient = apiClient;
+        this.githubConnector = githubConnector;
+        this.messageProcessor = messageProcessor;
+        this.tokenRepo = tokenRepo;
+        this.securityService = securityService;
+        this.perPage = Math.clamp(perPage, 1, 100);
+
+        this.jobExecutor = Executors.newCachedThreadPool(daemonThreads("github-backfill"));
+        this.pageExecutor = Executors.newFixedThreadPool(Math.max(1, concurrency), daemonThreads("github-backfill-page"));
+    }
+
+    /**
+     * Starts importing a repository in the background, authenticated with the GitHub token of the project.
+     */
+    public BackfillJob start(UUID projectId, String owner, String repository) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            throw new SecurityException("Access denied to project with ID: " + projectId);
+        }
+        if (owner == null || repository == null
+                || !NAME_PATTERN.matcher(owner).matches() || !NAME_PATTERN.matcher(repository).matches()) {
+            throw new IllegalArgumentException("Invalid repository: " + owner + "/" + repository);
+        }
+
+        String token = tokenRepo.findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB).stream()
+                .map(TokenEntity::getToken)
+                .findFirst()
+                .orElse(null);
+
+        evictFinishedJobs();
+        var job = new BackfillJob(projectId, owner + "/" + repository);
+        jobs.put(job.getId(), job);
+
+        jobExecutor.execute(() -> run(job, owner, repository, token));
+        return job;
+    }
+
+    public Optional<BackfillJob> getJob(UUID projectId, UUID jobId) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            throw new SecurityException("Access denied to project with ID: " + projectId);
+        }
+
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> job.getProjectId().equals(projectId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        pageExecutor.shutdownNow();
+    }
+
+    private void run(BackfillJob job, String owner, String repository, String token) {
+        logger.info("Importing GitHub repository {} for project {}", job.getRepository(), job.getProjectId());
+        try {
+            for (BackfillResource resource : BackfillResource.values()) {
+                importResource(job, resource, resource.url(apiClient.getApiUrl(), owner, repository, perPage), token);
+            }
+            job.complete();
+            logger.info("Imported {} events of GitHub repository {} for project {}",
+                    job.getImportedEvents(), job.getRepository(), job.getProjectId());
+        } catch (ExecutionException e) {
+            logger.warn("Importing GitHub repository {} failed", job.getRepository(), e.getCause());
+            job.fail(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } catch (Exception e) {
+            logger.warn("Importing GitHub repository {} failed", job.getRepository(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void importResource(BackfillJob job, BackfillResource resource, String url, String token)
+            throws Exception {
+        // an unchanged first page does not mean the resource is unchanged, items listed oldest first are added to
+        // and closed on later pages; those are requested conditionally as well and cost no rate limit if unchanged
+        GithubApiClient.Page first = importPage(job, resource, url, token);
+
+        String next = first.next();
+        if (first.lastPage() > 1) {
+            // the page count is known, fetch the remaining pages concurrently
+            List<Future<GithubApiClient.Page>> pages = new ArrayList<>();
+            for (int page = 2; page <= first.lastPage(); page++) {
+                String pageUrl = url + "&page=" + page;
+                pages.add(pageExecutor.submit(() -> importPage(job, resource, pageUrl, token)));
+            }
+            GithubApiClient.Page last = null;
+            for (Future<GithubApiClient.Page> page : pages) {
+                last = page.get();
+            }
+            // pages added since the page count of an unchanged first page was read are linked from the last one
+            next = last.next();
+        }
+        while (next != null) {
+            next = importPage(job, resource, next, token).next();
+        }
+    }
+
+    private GithubApiClient.Page importPage(BackfillJob job, BackfillResource resource, String url, String token)
+            throws InterruptedException, IOException {
+        GithubApiClient.Page page = apiClient.getPage(job.getProjectId(), url, token);
+        job.pageFetched(page.notModified());
+        if (page.notModified()) {
+            return page;
+        }
+
+        UUID projectId = job.getProjectId();
+        for (JsonNode item : resource.items(objectMapper.readTree(page.body()))) {
+            for (BackfillResource.Event event : resource.events(item)) {
+                UUID eventId = UUID.nameUUIDFromBytes((projectId + " " + resource + " " + event.resourceId() + " "
+                        + event.type()).getBytes(StandardCharsets.UTF_8));
+
+                Message message = githubConnector.processWebhookEvent(event.eventType(), eventId, projectId,
+                        objectMapper.writeValueAsBytes(event.payload()), event.timestamp());
+                if (message != null) {
+                    messageProcessor.processMessage(projectId, message);
+                    job.eventImported();
+                }
+            }
+        }
+        return page;
+    }
+
+    private void evictFinishedJobs() {
+        long threshold = System.currentTimeMillis() - JOB_RETENTION.toMillis();
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt() < threshold);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                var thread = new Thread(runnable, name + "-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
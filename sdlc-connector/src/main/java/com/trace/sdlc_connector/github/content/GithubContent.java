@@ -0,0 +1,25 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.trace.sdlc_connector.SupportedSystem;
+import com.trace.sdlc_connector.message.TypedContent;
+
+/**
+ * Typed content of a GitHub event.
+ * reference: https://docs.github.com/en/webhooks/webhook-events-and-payloads
+ */
+public interface GithubContent extends TypedContent {
+
+    GithubUser sender();
+
+    /**
+     * @return The action of the event, or null for event families without actions (e.g. push)
+     */
+    default String action() {
+        return null;
+    }
+
+    @Override
+    default SupportedSystem platform() {
+        return SupportedSystem.GITHUB;
+    }
+}
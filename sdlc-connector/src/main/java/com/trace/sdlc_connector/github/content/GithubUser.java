@@ -0,0 +1,7 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GithubUser(Long id, String login) {
+}
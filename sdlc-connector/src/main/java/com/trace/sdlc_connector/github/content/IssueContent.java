@@ -0,0 +1,41 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record IssueContent(
+        String action,
+        GithubUser sender,
+        Issue issue,
+        GithubUser assignee,
+        Milestone milestone,
+        Label label,
+        Label type,
+        Map<String, Object> changes
+) implements GithubContent {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record Issue(
+            Long id,
+            Long number,
+            String title,
+            String state,
+            String stateReason,
+            String htmlUrl,
+            GithubUser user,
+            List<GithubUser> assignees,
+            List<Label> labels,
+            Milestone milestone,
+            String createdAt,
+            String updatedAt,
+            String closedAt
+    ) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Milestone(Long id, Long number, String title, String state) {
+}
@@ -0,0 +1,60 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record PullRequestContent(
+        String action,
+        GithubUser sender,
+        Long number,
+        PullRequest pullRequest,
+        Map<String, Object> changes,
+        GithubUser assignee,
+        String reason,
+        Milestone milestone,
+        Label label,
+        GithubUser requestedReviewer,
+        String before,
+        String after
+) implements GithubContent {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record PullRequest(
+            Long id,
+            Long number,
+            String title,
+            String body,
+            String state,
+            Boolean draft,
+            Boolean merged,
+            String htmlUrl,
+            GithubUser user,
+            GithubUser mergedBy,
+            Branch head,
+            Branch base,
+            List<GithubUser> assignees,
+            List<GithubUser> requestedReviewers,
+            List<Label> labels,
+            Milestone milestone,
+            Integer commits,
+            Integer additions,
+            Integer deletions,
+            Integer changedFiles,
+            String createdAt,
+            String updatedAt,
+            String closedAt,
+            String mergedAt
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Branch(String ref, String sha, String label) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record PushContent(
+        GithubUser sender,
+        String ref,
+        String baseRef,
+        String before,
+        String after,
+        Boolean created,
+        Boolean deleted,
+        Boolean forced,
+        String compare,
+        GitActor pusher,
+        List<Commit> commits,
+        Commit headCommit
+) implements GithubContent {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record Commit(
+            String id,
+            String treeId,
+            Boolean distinct,
+            String message,
+            String timestamp,
+            String url,
+            GitActor author,
+            GitActor committer,
+            List<String> added,
+            List<String> removed,
+            List<String> modified
+    ) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.trace.sdlc_connector.github.content;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record WorkflowRunContent(
+        String action,
+        GithubUser sender,
+        WorkflowRun workflowRun,
+        Workflow workflow
+) implements GithubContent {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record WorkflowRun(
+            Long id,
+            Long workflowId,
+            String name,
+            String displayTitle,
+            String event,
+            String status,
+            String conclusion,
+            String headBranch,
+            String headSha,
+            Long runNumber,
+            Integer runAttempt,
+            String htmlUrl,
+            GithubUser actor,
+            GithubUser triggeringActor,
+            String createdAt,
+            String updatedAt,
+            String runStartedAt
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Workflow(Long id, String name, String path, String state) {
+    }
+}
@@ -1,9 +1,8 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,19 +10,21 @@ public class DeleteEventHandler extends GithubEventHandler{
 
     private static final String EVENT_TYPE = "delete";
 
-    public DeleteEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.pusher_type", "$.ref")
+            .fields("$.ref_type");
+
+    public DeleteEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.ref_type", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.pusher_type", "$.ref")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -1,9 +1,8 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,22 +13,23 @@ public class DeploymentReviewEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "deployment_review";
 
-    public DeploymentReviewEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.since", "$.workflow_run.id", "$.comment",
+                    "$.approver.id", "$.approver.login",
+                    "$.environment", "$.requestor.id", "$.requestor.login")
+            .fields("$.action", "$.reviewers", "$.workflow_job_runs");
+
+    public DeploymentReviewEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.since", "$.workflow_run.id", "$.comment",
-                        "$.approver.id", "$.approver.login",
-                        "$.environment", "$.requestor.id", "$.requestor.login"
-                )
-        );
+        message.getContent().putAll(payload.content());
 
         // extract array fields
         List<Map<String, Object>> reviewers = payload.read("$.reviewers", List.class);
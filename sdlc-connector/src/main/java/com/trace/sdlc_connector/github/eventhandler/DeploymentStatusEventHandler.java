@@ -1,9 +1,8 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,20 +10,22 @@ public class DeploymentStatusEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "deployment_status";
 
-    public DeploymentStatusEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.deployment", "$.deployment_status", "$.check_run",
+                    "$.workflow.id", "$.workflow.name", "$.workflow_run.id", "$.workflow_run.name")
+            .fields("$.action");
+
+    public DeploymentStatusEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.deployment", "$.deployment_status", "$.check_run",
-                        "$.workflow.id", "$.workflow.name", "$.workflow_run.id", "$.workflow_run.name")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -1,37 +1,66 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.ExtractedPayload;
+import com.trace.sdlc_connector.ExtractionPlan;
+import com.trace.sdlc_connector.PayloadShape;
+import com.trace.sdlc_connector.github.content.GithubContent;
 import com.trace.sdlc_connector.message.Message;
 import com.trace.sdlc_connector.message.Metadata;
 import com.trace.sdlc_connector.SupportedSystem;
-import com.trace.sdlc_connector.user.UserMapping;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 // reference: https://docs.github.com/en/webhooks/webhook-events-and-payloads
 public abstract class GithubEventHandler {
+    private static final ObjectMapper CONTENT_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     private final String eventType;
-    private final UserMappingRepo userMappingRepo;
+    private final UserIdentityCache userIdentityCache;
+    private final ExtractionPlan plan;
+    private final PayloadShape shape;
+
+    public GithubEventHandler(String eventType, UserIdentityCache userIdentityCache, ExtractionPlan plan) {
+        this(eventType, userIdentityCache, plan, PayloadShape.NONE);
+    }
 
-    public GithubEventHandler(String eventType, UserMappingRepo userMappingRepo) {
+    public GithubEventHandler(String eventType, UserIdentityCache userIdentityCache, ExtractionPlan plan,
+                              PayloadShape shape) {
         this.eventType = eventType;
-        this.userMappingRepo = userMappingRepo;
+        this.userIdentityCache = userIdentityCache;
+        this.plan = plan.fields("$.sender.id");
+        this.shape = shape;
     }
 
     public String getEventType() {
         return eventType;
     }
 
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    /**
+     * @return The paths this handler reads from the payload, including the ones read by the base handler.
+     */
+    public ExtractionPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return The fields kept of the large objects this handler copies into the content
+     */
+    public PayloadShape getShape() {
+        return shape;
+    }
+
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         Map<String, Object> content = new HashMap<>();
         content.put("platform", SupportedSystem.GITHUB);
 
-        UUID userId = userMappingRepo.findAllByProjectIdAndPlatformAndPlatformUserId(
-                projectId, SupportedSystem.GITHUB, payload.read("$.sender.id", String.class)
-        ).stream().findFirst().map(UserMapping::getUserId).orElse(null);
+        UUID userId = resolveUserId(projectId, payload.read("$.sender.id", String.class));
 
         return new Message(
 
@@ -45,4 +74,59 @@ public abstract class GithubEventHandler {
                 content
         );
     }
+
+    /**
+     * @return The typed content model of this event family, or null if the handler only produces generic content
+     */
+    public Class<? extends GithubContent> getContentType() {
+        return null;
+    }
+
+    /**
+     * Binds the payload directly to the typed content model of this handler, skipping all unmapped fields.
+     */
+    public Message handleTypedEvent(UUID projectId, UUID eventId, byte[] payload, Long now) throws IOException {
+        GithubContent content = CONTENT_READER.readValue(payload, getContentType());
+
+        String action = content.action();
+        UUID userId = resolveUserId(projectId, content.sender() != null && content.sender().id() != null
+                ? content.sender().id().toString() : null);
+
+        return new Message(
+                new Metadata(
+                        eventId,
+                        action == null ? eventType : eventType + " " + action,
+                        userId,
+                        now,
+                        projectId
+                ),
+                content
+        );
+    }
+
+    /**
+     * Returns a message extracted for one project as the message of another project, so a delivery routed to
+     * several projects is only parsed once. The content is shared, the sender is mapped to the user of the other
+     * project.
+     *
+     * @param platformUserId The GitHub id of the sender
+     */
+    public Message forProject(Message message, UUID projectId, UUID eventId, String platformUserId) {
+        var metadata = new Metadata(
+                eventId,
+                message.getMetadata().getType(),
+                resolveUserId(projectId, platformUserId),
+                message.getMetadata().getTimestamp(),
+                projectId
+        );
+        if (message.getTypedContent() != null) {
+            return new Message(metadata, message.getTypedContent());
+        }
+        // the top level is copied, so a project can not change the content of another
+        return new Message(metadata, new HashMap<>(message.getContent()));
+    }
+
+    private UUID resolveUserId(UUID projectId, String platformUserId) {
+        return userIdentityCache.resolve(projectId, SupportedSystem.GITHUB, platformUserId);
+    }
 }
@@ -1,9 +1,10 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
+import com.trace.sdlc_connector.github.content.GithubContent;
+import com.trace.sdlc_connector.github.content.IssueContent;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,20 +12,27 @@ public class IssueEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "issues";
 
-    public IssueEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.issue.id", "$.issue.number", "$.issue.title", "$.issue.body",
+                    "$.assignee.id", "$.assignee.login", "$.milestone.id", "$.milestone.title", "$.label.id", "$.label.name", "$.changes", "$.type")
+            .fields("$.action");
+
+    public IssueEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN);
+    }
+
+    @Override
+    public Class<? extends GithubContent> getContentType() {
+        return IssueContent.class;
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.issue.id", "$.issue.title", "$.assignee.id", "$.assignee.login",
-                        "$.milestone.id", "$.milestone.title", "$.label.id", "$.label.name", "$.changes", "$.type")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -1,9 +1,10 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
+import com.trace.sdlc_connector.github.content.GithubContent;
+import com.trace.sdlc_connector.github.content.PullRequestContent;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,23 +12,44 @@ public class PullRequestEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "pull_request";
 
-    public PullRequestEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.number", "$.pull_request", "$.changes",
+                    "$.assignee.id", "$.assignee.login", "$.reason",
+                    "$.milestone.id", "$.milestone.title", "$.label.id", "$.label.name",
+                    "$.requested_reviewer.id", "$.requested_reviewer.login",
+                    "$.before", "$.after")
+            .fields("$.action");
+
+    // keeps the fields of PullRequestContent, dropping the repository objects and api urls
+    private static final PayloadShape SHAPE = PayloadShape.of()
+            .allow("$.pull_request", "id", "number", "title", "body", "state", "draft", "merged", "html_url", "user",
+                    "merged_by", "head", "base", "assignees", "requested_reviewers", "labels", "milestone", "commits",
+                    "additions", "deletions", "changed_files", "created_at", "updated_at", "closed_at", "merged_at")
+            .allow("$.pull_request.user", "id", "login")
+            .allow("$.pull_request.merged_by", "id", "login")
+            .allow("$.pull_request.head", "ref", "sha", "label")
+            .allow("$.pull_request.base", "ref", "sha", "label")
+            .allow("$.pull_request.assignees[*]", "id", "login")
+            .allow("$.pull_request.requested_reviewers[*]", "id", "login")
+            .allow("$.pull_request.labels[*]", "id", "name")
+            .allow("$.pull_request.milestone", "id", "title");
+
+    public PullRequestEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN, SHAPE);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Class<? extends GithubContent> getContentType() {
+        return PullRequestContent.class;
+    }
+
+    @Override
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.number", "$.pull_request", "$.changes",
-                        "$.assignee.id", "$.assignee.login", "$.reason",
-                        "$.milestone.id", "$.milestone.title", "$.label.id", "$.label.name",
-                        "$.requested_reviewer.id", "$.requested_reviewer.login",
-                        "$.before", "$.after")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
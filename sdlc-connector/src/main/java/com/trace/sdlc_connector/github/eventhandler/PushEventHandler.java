@@ -1,9 +1,10 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
+import com.trace.sdlc_connector.github.content.GithubContent;
+import com.trace.sdlc_connector.github.content.PushContent;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,21 +12,34 @@ public class PushEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "push";
 
-    public PushEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.after", "$.before", "$.commits",
+                    "$.compare", "$.created", "$.deleted", "$.forced", "$.pusher", "$.ref",
+                    "$.base_ref", "$.head_commit");
+
+    // the commits are kept in the shape of PushContent.Commit, the file lists are truncated by the shaper
+    private static final PayloadShape SHAPE = PayloadShape.of()
+            .allow("$.commits[*]", "id", "tree_id", "distinct", "message", "timestamp", "url",
+                    "author", "committer", "added", "removed", "modified")
+            .allow("$.head_commit", "id", "tree_id", "distinct", "message", "timestamp", "url",
+                    "author", "committer", "added", "removed", "modified");
+
+    public PushEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN, SHAPE);
+    }
+
+    @Override
+    public Class<? extends GithubContent> getContentType() {
+        return PushContent.class;
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE);
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.after", "$.before", "$.commits",
-                        "$.compare", "$.created", "$.deleted", "$.forced", "$.pusher", "$.ref",
-                        "$.base_ref", "$.head_commit")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -1,9 +1,8 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.List;
 import java.util.Map;
@@ -13,20 +12,22 @@ public class StatusEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "status";
 
-    public StatusEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.id", "$.name", "$.context", "$.state",
+                    "$.sha", "$.description", "$.target_url", "$.created_at", "$.updated_at")
+            .fields("$.branches");
+
+    public StatusEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE);
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.id", "$.name", "$.context", "$.state",
-                        "$.sha", "$.description", "$.target_url", "$.created_at", "$.updated_at")
-        );
+        message.getContent().putAll(payload.content());
 
         List<Map<String, Object>> branches = payload.read("$.branches", List.class);
         if (branches != null) {
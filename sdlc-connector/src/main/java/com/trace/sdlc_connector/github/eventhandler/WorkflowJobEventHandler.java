@@ -1,9 +1,8 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,19 +10,27 @@ public class WorkflowJobEventHandler extends GithubEventHandler{
 
     private static final String EVENT_TYPE = "workflow_job";
 
-    public WorkflowJobEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.workflow_job", "$.deployment")
+            .fields("$.action");
+
+    private static final PayloadShape SHAPE = PayloadShape.of()
+            .allow("$.workflow_job", "id", "run_id", "run_attempt", "workflow_name", "name", "status", "conclusion",
+                    "head_branch", "head_sha", "html_url", "labels", "runner_name", "created_at", "started_at",
+                    "completed_at", "steps")
+            .allow("$.workflow_job.steps[*]", "name", "number", "status", "conclusion", "started_at", "completed_at");
+
+    public WorkflowJobEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN, SHAPE);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.workflow_job", "$.deployment")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -1,9 +1,10 @@
 package com.trace.sdlc_connector.github.eventhandler;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.trace.sdlc_connector.*;
+import com.trace.sdlc_connector.github.content.GithubContent;
+import com.trace.sdlc_connector.github.content.WorkflowRunContent;
 import com.trace.sdlc_connector.message.Message;
-import com.trace.sdlc_connector.user.UserMappingRepo;
+import com.trace.sdlc_connector.user.UserIdentityCache;
 
 import java.util.UUID;
 
@@ -11,19 +12,35 @@ public class WorkflowRunEventHandler extends GithubEventHandler {
 
     private static final String EVENT_TYPE = "workflow_run";
 
-    public WorkflowRunEventHandler(UserMappingRepo userMappingRepo) {
-        super(EVENT_TYPE, userMappingRepo);
+    private static final ExtractionPlan PLAN = ExtractionPlan
+            .content("$.sender.id", "$.sender.login", "$.workflow_run", "$.workflow")
+            .fields("$.action");
+
+    // keeps the fields of WorkflowRunContent, dropping the repository objects and api urls
+    private static final PayloadShape SHAPE = PayloadShape.of()
+            .allow("$.workflow_run", "id", "workflow_id", "name", "display_title", "event", "status", "conclusion",
+                    "head_branch", "head_sha", "run_number", "run_attempt", "html_url", "actor", "triggering_actor",
+                    "created_at", "updated_at", "run_started_at")
+            .allow("$.workflow_run.actor", "id", "login")
+            .allow("$.workflow_run.triggering_actor", "id", "login")
+            .allow("$.workflow", "id", "name", "path", "state");
+
+    public WorkflowRunEventHandler(UserIdentityCache userIdentityCache) {
+        super(EVENT_TYPE, userIdentityCache, PLAN, SHAPE);
     }
 
     @Override
-    public Message handleEvent(UUID projectId, UUID eventId, DocumentContext payload, Long now) {
+    public Class<? extends GithubContent> getContentType() {
+        return WorkflowRunContent.class;
+    }
+
+    @Override
+    public Message handleEvent(UUID projectId, UUID eventId, ExtractedPayload payload, Long now) {
         var message = super.handleEvent(projectId, eventId, payload, now);
 
         message.getMetadata().setType(EVENT_TYPE + " " + payload.read("$.action", String.class));
 
-        message.getContent().putAll(
-                JsonUtils.extract(payload, "$.sender.id", "$.sender.login", "$.workflow_run", "$.workflow")
-        );
+        message.getContent().putAll(payload.content());
 
         return message;
     }
@@ -0,0 +1,109 @@
+package com.trace.sdlc_connector.github.fanin;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the projects subscribed to a delivery of the organization or GitHub App webhook without a query. The
+ * subscriptions are held in memory by repository id and by account id, replaced as a whole when a subscription
+ * changes and reloaded every trace.sdlc.github.routing.reload-seconds to pick up changes made by other instances.
+ */
+@Component
+public class GithubRoutingIndex implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubRoutingIndex.class);
+
+    private record Routes(Map<Long, List<UUID>> byRepository, Map<Long, List<UUID>> byAccount, int subscriptions) {
+    }
+
+    private final GithubSubscriptionRepo subscriptionRepo;
+    private final long reloadSeconds;
+
+    private volatile Routes routes = new Routes(Map.of(), Map.of(), 0);
+
+    private final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "github-routing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GithubRoutingIndex(GithubSubscriptionRepo subscriptionRepo,
+                              @Value("${trace.sdlc.github.routing.reload-seconds:60}") long reloadSeconds) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.reloadSeconds = reloadSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+        if (reloadSeconds > 0) {
+            reloader.scheduleWithFixedDelay(this::reloadQuietly, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdownNow();
+    }
+
+    /**
+     * @param repositoryId The repository the delivery is about, null for account level events
+     * @param accountId    The organization or user owning the repository
+     * @return The subscribed projects in a stable order, each once
+     */
+    public List<UUID> route(Long repositoryId, Long accountId) {
+        Routes current = routes;
+        Set<UUID> projects = new LinkedHashSet<>();
+        if (accountId != null) {
+            projects.addAll(current.byAccount().getOrDefault(accountId, List.of()));
+        }
+        if (repositoryId != null) {
+            projects.addAll(current.byRepository().getOrDefault(repositoryId, List.of()));
+        }
+        return List.copyOf(projects);
+    }
+
+    public int getSubscriptions() {
+        return routes.subscriptions();
+    }
+
+    /**
+     * Rebuilds the index from the stored subscriptions.
+     */
+    public synchronized void reload() {
+        Map<Long, List<UUID>> byRepository = new HashMap<>();
+        Map<Long, List<UUID>> byAccount = new HashMap<>();
+        List<GithubSubscription> subscriptions = new ArrayList<>(subscriptionRepo.findAll());
+        // sorted, so the projects of a delivery are always processed in the same order
+        subscriptions.sort(Comparator.comparing(GithubSubscription::getProjectId));
+        for (GithubSubscription subscription : subscriptions) {
+            if (subscription.getRepositoryId() != null) {
+                byRepository.computeIfAbsent(subscription.getRepositoryId(), id -> new ArrayList<>())
+                        .add(subscription.getProjectId());
+            } else {
+                byAccount.computeIfAbsent(subscription.getAccountId(), id -> new ArrayList<>())
+                        .add(subscription.getProjectId());
+            }
+        }
+        byRepository.replaceAll((id, projects) -> List.copyOf(projects));
+        byAccount.replaceAll((id, projects) -> List.copyOf(projects));
+        routes = new Routes(Map.copyOf(byRepository), Map.copyOf(byAccount), subscriptions.size());
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.error("Error reloading GitHub subscriptions", e);
+        }
+    }
+}
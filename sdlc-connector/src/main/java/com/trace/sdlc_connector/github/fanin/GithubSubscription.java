@@ -0,0 +1,55 @@
+package com.trace.sdlc_connector.github.fanin;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * A project receiving the deliveries of the organization or GitHub App webhook for a GitHub account, either for
+ * all repositories of the account or for a single one.
+ */
+@Entity
+@Table(name = "github_subscription", indexes = {
+        @Index(name = "idx_github_subscription_project", columnList = "projectId")
+})
+public class GithubSubscription {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID projectId;
+
+    // id of the organization or user owning the repositories
+    @Column(nullable = false)
+    private long accountId;
+
+    // null for all repositories of the account
+    private Long repositoryId;
+
+    protected GithubSubscription() {
+    }
+
+    public GithubSubscription(UUID projectId, long accountId, Long repositoryId) {
+        this.id = UUID.randomUUID();
+        this.projectId = projectId;
+        this.accountId = accountId;
+        this.repositoryId = repositoryId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProjectId() {
+        return projectId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public Long getRepositoryId() {
+        return repositoryId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.trace.sdlc_connector.github.fanin;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+public class GithubSubscriptionController {
+
+    private final GithubSubscriptionService subscriptionService;
+
+    public GithubSubscriptionController(GithubSubscriptionService subscriptionService) {
+        this.subscriptionService = subscriptionService;
+    }
+
+    /**
+     * Routes the deliveries of the organization or GitHub App webhook for the account to the project, only the ones
+     * of the repository if given. The ids are the numeric GitHub ids, not the names.
+     */
+    @PostMapping("projects/{projectId}/github/subscriptions")
+    public ResponseEntity<?> subscribe(@PathVariable UUID projectId,
+                                       @RequestParam long accountId,
+                                       @RequestParam(required = false) Long repositoryId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(subscriptionService.subscribe(projectId, accountId, repositoryId));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("projects/{projectId}/github/subscriptions")
+    public ResponseEntity<?> getSubscriptions(@PathVariable UUID projectId) {
+        try {
+            return ResponseEntity.ok(subscriptionService.getSubscriptions(projectId));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("projects/{projectId}/github/subscriptions/{subscriptionId}")
+    public ResponseEntity<?> unsubscribe(@PathVariable UUID projectId, @PathVariable UUID subscriptionId) {
+        try {
+            return subscriptionService.unsubscribe(projectId, subscriptionId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.trace.sdlc_connector.github.fanin;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface GithubSubscriptionRepo extends JpaRepository<GithubSubscription, UUID> {
+
+    List<GithubSubscription> findAllByProjectId(UUID projectId);
+}
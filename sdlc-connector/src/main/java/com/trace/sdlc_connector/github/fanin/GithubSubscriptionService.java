@@ -0,0 +1,67 @@
+package com.trace.sdlc_connector.github.fanin;
+
+import com.trace.sdlc_connector.security.SecurityService;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+@Service
+public class GithubSubscriptionService {
+
+    private final GithubSubscriptionRepo subscriptionRepo;
+    private final GithubRoutingIndex routingIndex;
+    private final SecurityService securityService;
+
+    public GithubSubscriptionService(GithubSubscriptionRepo subscriptionRepo, GithubRoutingIndex routingIndex,
+                                     SecurityService securityService) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.routingIndex = routingIndex;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Subscribes the project to the deliveries of an account, limited to one repository if given.
+     */
+    public GithubSubscription subscribe(UUID projectId, long accountId, @Nullable Long repositoryId) {
+        checkAccess(projectId);
+
+        for (GithubSubscription existing : subscriptionRepo.findAllByProjectId(projectId)) {
+            if (existing.getAccountId() == accountId && Objects.equals(existing.getRepositoryId(), repositoryId)) {
+                return existing;
+            }
+        }
+        var subscription = subscriptionRepo.save(new GithubSubscription(projectId, accountId, repositoryId));
+        routingIndex.reload();
+        return subscription;
+    }
+
+    public List<GithubSubscription> getSubscriptions(UUID projectId) {
+        checkAccess(projectId);
+
+        return subscriptionRepo.findAllByProjectId(projectId);
+    }
+
+    /**
+     * @return false if the project has no such subscription
+     */
+    public boolean unsubscribe(UUID projectId, UUID subscriptionId) {
+        checkAccess(projectId);
+
+        var subscription = subscriptionRepo.findById(subscriptionId);
+        if (subscription.isEmpty() || !subscription.get().getProjectId().equals(projectId)) {
+            return false;
+        }
+        subscriptionRepo.delete(subscription.get());
+        routingIndex.reload();
+        return true;
+    }
+
+    private void checkAccess(UUID projectId) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            throw new SecurityException("Access denied to project with ID: " + projectId);
+        }
+    }
+}
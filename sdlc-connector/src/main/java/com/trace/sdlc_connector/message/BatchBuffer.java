@@ -0,0 +1,254 @@
+package com.trace.sdlc_connector.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects items and writes them in batches. A batch is flushed once it reaches the maximum number of items,
+ * the maximum weight (e.g. bytes) or the maximum delay since its first item. Failed batches are retried with
+ * exponential backoff. The number of buffered items is bounded: adding blocks while the buffer is full.
+ */
+public class BatchBuffer<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchBuffer.class);
+
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    public record Settings(
+            int maxItems,
+            long maxWeight,
+            Duration maxDelay,
+            int capacity,
+            int maxRetries,
+            Duration retryBackoff,
+            int threads
+    ) {
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final ToLongFunction<T> weigher;
+    private final BatchWriter<T> writer;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Semaphore capacity;
+
+    private final Object lock = new Object();
+    private List<T> current = new ArrayList<>();
+    private long currentWeight = 0;
+    private ScheduledFuture<?> flushTimer;
+    private boolean closed = false;
+    private int pending = 0;
+
+    private final AtomicLong writtenItems = new AtomicLong();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong retriedBatches = new AtomicLong();
+    private final AtomicLong droppedItems = new AtomicLong();
+    private final AtomicLong writeAttempts = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    public BatchBuffer(String name, Settings settings, ToLongFunction<T> weigher, BatchWriter<T> writer) {
+        this.name = name;
+        this.settings = settings;
+        this.weigher = weigher;
+        this.writer = writer;
+        this.capacity = new Semaphore(Math.max(1, settings.capacity()));
+
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, settings.threads()), new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                var thread = new Thread(runnable, name + "-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Adds an item to the current batch, blocking while the buffer is at capacity.
+     * After {@link #close()} the item is written directly on the calling thread.
+     */
+    public void add(T item) {
+        capacity.acquireUninterruptibly();
+
+        List<T> full = null;
+        boolean direct = false;
+        synchronized (lock) {
+            pending++;
+            if (closed) {
+                direct = true;
+            } else {
+                current.add(item);
+                currentWeight += weigher.applyAsLong(item);
+
+                if (current.size() >= settings.maxItems() || currentWeight >= settings.maxWeight()) {
+                    full = drain();
+                } else if (flushTimer == null) {
+                    flushTimer = executor.schedule(this::flush, settings.maxDelay().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (direct) {
+            write(List.of(item), settings.maxRetries());
+        } else if (full != null) {
+            var batch = full;
+            executor.execute(() -> write(batch, 0));
+        }
+    }
+
+    /**
+     * Writes the current batch without waiting for it to fill up.
+     */
+    public void flush() {
+        List<T> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            write(batch, 0);
+        }
+    }
+
+    /**
+     * Waits until all added items have been written or dropped.
+     *
+     * @return true if the buffer drained within the timeout
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            if (!current.isEmpty()) {
+                executor.execute(this::flush);
+            }
+            while (pending > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                lock.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the remaining items, including pending retries, and stops the background threads.
+     */
+    public void close(Duration timeout) throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            logger.warn("Batch buffer {} did not finish in time, {} items dropped", name, getPending());
+            executor.shutdownNow();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPending() {
+        synchronized (lock) {
+            return pending;
+        }
+    }
+
+    public long getWrittenItems() {
+        return writtenItems.get();
+    }
+
+    public long getWrittenBatches() {
+        return writtenBatches.get();
+    }
+
+    public long getRetriedBatches() {
+        return retriedBatches.get();
+    }
+
+    public long getDroppedItems() {
+        return droppedItems.get();
+    }
+
+    /**
+     * @return the number of calls to the writer, including failed ones and retries
+     */
+    public long getWriteAttempts() {
+        return writeAttempts.get();
+    }
+
+    /**
+     * @return the total time spent in the writer
+     */
+    public long getWriteNanos() {
+        return writeNanos.get();
+    }
+
+    // caller must hold the lock
+    private List<T> drain() {
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+
+        var batch = current;
+        current = new ArrayList<>();
+        currentWeight = 0;
+        return batch;
+    }
+
+    private void write(List<T> batch, int attempt) {
+        long start = System.nanoTime();
+        try {
+            writer.write(batch);
+            attempted(start);
+            writtenItems.addAndGet(batch.size());
+            writtenBatches.incrementAndGet();
+            done(batch.size());
+        } catch (Exception e) {
+            attempted(start);
+            if (attempt < settings.maxRetries() && !executor.isShutdown()) {
+                long delayMillis = settings.retryBackoff().toMillis() << attempt;
+                logger.warn("Writing batch of {} items in {} failed, retrying in {} ms", batch.size(), name, delayMillis, e);
+                retriedBatches.incrementAndGet();
+                executor.schedule(() -> write(batch, attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                logger.error("Writing batch of {} items in {} failed, dropping it", batch.size(), name, e);
+                droppedItems.addAndGet(batch.size());
+                done(batch.size());
+            }
+        }
+    }
+
+    private void attempted(long startNanos) {
+        writeAttempts.incrementAndGet();
+        writeNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    private void done(int items) {
+        capacity.release(items);
+        synchronized (lock) {
+            pending -= items;
+            if (pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.trace.sdlc_connector.message;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.trace.sdlc_connector.message.persist.MessageEntity;
 
 import java.util.Map;
@@ -7,15 +8,25 @@ import java.util.Map;
 public class Message {
     private final Metadata metadata;
     private final Map<String, Object> content;
+    // set instead of content for event families with a typed model
+    private final TypedContent typedContent;
 
     private Message(){
         metadata = null;
         content = null;
+        typedContent = null;
     }
 
     public Message(Metadata metadata, Map<String, Object> content) {
         this.metadata = metadata;
         this.content = content;
+        this.typedContent = null;
+    }
+
+    public Message(Metadata metadata, TypedContent typedContent) {
+        this.metadata = metadata;
+        this.content = null;
+        this.typedContent = typedContent;
     }
 
     public Message(MessageEntity messageEntity){
@@ -27,6 +38,7 @@ public class Message {
                 messageEntity.getProjectId()
         );
         this.content = messageEntity.getContent();
+        this.typedContent = null;
     }
 
     public MessageEntity toMessageEntity() {
@@ -36,7 +48,7 @@ public class Message {
                 metadata.getUserId(),
                 new java.util.Date(metadata.getTimestamp()),
                 metadata.getProjectId(),
-                content
+                typedContent != null ? MessageDTO.typedContentToMap(typedContent, null) : content
         );
     }
 
@@ -44,7 +56,15 @@ public class Message {
         return metadata;
     }
 
+    /**
+     * @return The generic content, null if the message has typed content
+     */
     public Map<String, Object> getContent() {
         return content;
     }
+
+    @JsonIgnore
+    public TypedContent getTypedContent() {
+        return typedContent;
+    }
 }
@@ -1,19 +1,46 @@
 package com.trace.sdlc_connector.message;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.SupportedSystem;
+
 import java.util.Map;
 import java.util.UUID;
 
 public record MessageDTO(
         MetadataDTO metadata,
-        Map<String, Object> content
+        Object content
 ) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     public MessageDTO(Message message) {
         this(
                 new MetadataDTO(message.getMetadata()),
-                addEventIdToContent(message.getContent(), message.getMetadata().getEventId())
+                message.getTypedContent() != null
+                        ? new TypedContentDTO(message.getTypedContent(), message.getMetadata().getEventId())
+                        : addEventIdToContent(message.getContent(), message.getMetadata().getEventId())
         );
     }
 
+    /**
+     * @return The content as it is stored: the generic map or the typed record next to its platform
+     */
+    public static Object storedContent(Message message) {
+        return message.getTypedContent() != null
+                ? new TypedContentDTO(message.getTypedContent(), null)
+                : message.getContent();
+    }
+
+    /**
+     * Converts typed content into the generic content structure, e.g. for storages that are mapped as maps.
+     */
+    public static Map<String, Object> typedContentToMap(TypedContent content, UUID eventId) {
+        return MAPPER.convertValue(new TypedContentDTO(content, eventId), new TypeReference<>() {
+        });
+    }
+
     private static Map<String, Object> addEventIdToContent(Map<String, Object> content, UUID eventId) {
         if (content != null) {
             content.put("eventId", eventId);
@@ -36,4 +63,16 @@ public record MessageDTO(
             );
         }
     }
+
+    // serializes like the generic content: platform and event id next to the fields of the record
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record TypedContentDTO(
+            SupportedSystem platform,
+            UUID eventId,
+            @JsonUnwrapped TypedContent fields
+    ) {
+        public TypedContentDTO(TypedContent content, UUID eventId) {
+            this(content.platform(), eventId, content);
+        }
+    }
 }
@@ -8,4 +8,12 @@ import java.util.UUID;
 public abstract class MessageProcessor {
 
     public abstract void processMessage(UUID projectId, Message message);
+
+    /**
+     * Processes a message extracted again from an archived webhook. Stored messages with the same id are replaced by
+     * it, while {@link #processMessage} keeps the first stored version of a redelivered event.
+     */
+    public void replayMessage(UUID projectId, Message message) {
+        processMessage(projectId, message);
+    }
 }
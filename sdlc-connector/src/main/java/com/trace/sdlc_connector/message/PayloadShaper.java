@@ -0,0 +1,252 @@
+package com.trace.sdlc_connector.message;
+
+import com.trace.sdlc_connector.PayloadShape;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reduces the generic content of a message to a compact form before it is persisted or forwarded: objects are
+ * reduced to the fields allowed by the handler's {@link PayloadShape}, arrays are truncated (the original length is
+ * recorded next to them as '&lt;field&gt;_total') and strings are capped.
+ * <p>
+ * The limits default to trace.sdlc.shaping.max-array-items and max-string-length and can be set per event type
+ * with trace.sdlc.shaping.types.&lt;event type&gt;.max-array-items and max-string-length.
+ * <p>
+ * Typed content only holds the fields of its record, but its arrays and strings are as long as in the payload, so it
+ * is checked against the same shape and limits (see {@link #shape(String, PayloadShape, Message)}).
+ */
+@Component
+public class PayloadShaper {
+
+    static final String TOTAL_SUFFIX = "_total";
+    static final String TRUNCATION_MARKER = "…";
+
+    private record Limits(int maxArrayItems, int maxStringLength) {
+    }
+
+    private final Environment environment;
+    private final boolean enabled;
+    private final Limits defaultLimits;
+    private final Map<String, Limits> limitsByType = new ConcurrentHashMap<>();
+
+    private final AtomicLong shapedMessages = new AtomicLong();
+    private final AtomicLong droppedFields = new AtomicLong();
+    private final AtomicLong truncatedArrays = new AtomicLong();
+    private final AtomicLong truncatedStrings = new AtomicLong();
+    private final Map<String, LongAdder> bytesSavedByType = new ConcurrentHashMap<>();
+
+    public PayloadShaper(Environment environment,
+                         @Value("${trace.sdlc.shaping.enabled:true}") boolean enabled,
+                         @Value("${trace.sdlc.shaping.max-array-items:100}") int maxArrayItems,
+                         @Value("${trace.sdlc.shaping.max-string-length:10000}") int maxStringLength) {
+        this.environment = environment;
+        this.enabled = enabled;
+        this.defaultLimits = new Limits(Math.max(0, maxArrayItems), Math.max(0, maxStringLength));
+    }
+
+    /**
+     * Shapes the content in place.
+     *
+     * @param eventType The event type without the action, e.g. 'push'
+     * @return The approximate number of serialized bytes saved
+     */
+    public long shape(String eventType, PayloadShape shape, Map<String, Object> content) {
+        if (!enabled || content == null) {
+            return 0;
+        }
+
+        long saved = shapeObject(content, "$", shape, limits(eventType));
+
+        shapedMessages.incrementAndGet();
+        if (saved > 0) {
+            bytesSavedByType.computeIfAbsent(eventType, type -> new LongAdder()).add(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Shapes the content of a message, which may be typed. Typed content that is within the limits is returned
+     * unchanged; otherwise the message is returned with the shaped generic content, which also keeps the recorded
+     * '&lt;field&gt;_total' lengths the records have no field for.
+     *
+     * @param eventType The event type without the action, e.g. 'push'
+     */
+    public Message shape(String eventType, PayloadShape shape, Message message) {
+        if (message.getTypedContent() == null) {
+            shape(eventType, shape, message.getContent());
+            return message;
+        }
+        if (!enabled) {
+            return message;
+        }
+
+        Map<String, Object> content = MessageDTO.typedContentToMap(message.getTypedContent(), null);
+        return shape(eventType, shape, content) > 0 ? new Message(message.getMetadata(), content) : message;
+    }
+
+    public long getShapedMessages() {
+        return shapedMessages.get();
+    }
+
+    public long getDroppedFields() {
+        return droppedFields.get();
+    }
+
+    public long getTruncatedArrays() {
+        return truncatedArrays.get();
+    }
+
+    public long getTruncatedStrings() {
+        return truncatedStrings.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSavedByType.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return The approximate number of serialized bytes saved, by event type
+     */
+    public Map<String, Long> getBytesSavedByType() {
+        Map<String, Long> result = new TreeMap<>();
+        bytesSavedByType.forEach((type, saved) -> result.put(type, saved.sum()));
+        return result;
+    }
+
+    private Limits limits(String eventType) {
+        return limitsByType.computeIfAbsent(eventType, type -> new Limits(
+                environment.getProperty("trace.sdlc.shaping.types." + type + ".max-array-items",
+                        Integer.class, defaultLimits.maxArrayItems()),
+                environment.getProperty("trace.sdlc.shaping.types." + type + ".max-string-length",
+                        Integer.class, defaultLimits.maxStringLength())
+        ));
+    }
+
+    private long shapeObject(Map<String, Object> object, String path, PayloadShape shape, Limits limits) {
+        long saved = 0;
+        Set<String> allowed = shape.allowedFields(path);
+        Map<String, Object> totals = null;
+
+        Iterator<Map.Entry<String, Object>> iterator = object.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (allowed != null && !allowed.contains(entry.getKey())) {
+                saved += fieldSize(entry.getKey()) + sizeOf(entry.getValue());
+                droppedFields.incrementAndGet();
+                iterator.remove();
+                continue;
+            }
+
+            Object value = entry.getValue();
+            if (value instanceof List<?> list && list.size() > limits.maxArrayItems()) {
+                if (totals == null) {
+                    totals = new HashMap<>();
+                }
+                totals.put(entry.getKey() + TOTAL_SUFFIX, list.size());
+            }
+            if (value instanceof String string) {
+                String capped = cap(string, limits);
+                if (capped != string) {
+                    saved += string.length() - capped.length();
+                    entry.setValue(capped);
+                }
+            } else {
+                saved += shapeValue(value, path + "." + entry.getKey(), shape, limits);
+            }
+        }
+
+        if (totals != null) {
+            object.putAll(totals);
+        }
+        return saved;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long shapeValue(Object value, String path, PayloadShape shape, Limits limits) {
+        if (value instanceof Map<?, ?> map) {
+            return shapeObject((Map<String, Object>) map, path, shape, limits);
+        }
+        if (!(value instanceof List<?>)) {
+            return 0;
+        }
+
+        List<Object> list = (List<Object>) value;
+        long saved = 0;
+        if (list.size() > limits.maxArrayItems()) {
+            var removed = list.subList(limits.maxArrayItems(), list.size());
+            for (Object element : removed) {
+                saved += sizeOf(element) + 1;
+            }
+            removed.clear();
+            truncatedArrays.incrementAndGet();
+        }
+
+        String elementPath = path + "[*]";
+        for (ListIterator<Object> iterator = list.listIterator(); iterator.hasNext(); ) {
+            Object element = iterator.next();
+            if (element instanceof String string) {
+                String capped = cap(string, limits);
+                if (capped != string) {
+                    saved += string.length() - capped.length();
+                    iterator.set(capped);
+                }
+            } else {
+                saved += shapeValue(element, elementPath, shape, limits);
+            }
+        }
+        return saved;
+    }
+
+    private String cap(String value, Limits limits) {
+        if (value.length() <= limits.maxStringLength()) {
+            return value;
+        }
+        truncatedStrings.incrementAndGet();
+
+        // dont split a surrogate pair
+        int end = limits.maxStringLength();
+        if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--;
+        }
+        return value.substring(0, end) + TRUNCATION_MARKER;
+    }
+
+    // "key":value,
+    private static long fieldSize(String key) {
+        return key.getBytes(StandardCharsets.UTF_8).length + 4;
+    }
+
+    /**
+     * Estimates the serialized size of a value without serializing it.
+     */
+    private static long sizeOf(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8).length + 2;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 2;
+            for (var entry : map.entrySet()) {
+                size += fieldSize(String.valueOf(entry.getKey())) + sizeOf(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 2;
+            for (Object element : collection) {
+                size += sizeOf(element) + 1;
+            }
+            return size;
+        }
+        return value.toString().length();
+    }
+}
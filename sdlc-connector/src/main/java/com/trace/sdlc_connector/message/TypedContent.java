@@ -0,0 +1,13 @@
+package com.trace.sdlc_connector.message;
+
+import com.trace.sdlc_connector.SupportedSystem;
+
+/**
+ * Immutable, typed message content of one event family. Implementations are records that are bound directly
+ * from the event payload and serialized directly into the message content, without generic maps in between.
+ * They only hold a compact subset of the payload.
+ */
+public interface TypedContent {
+
+    SupportedSystem platform();
+}
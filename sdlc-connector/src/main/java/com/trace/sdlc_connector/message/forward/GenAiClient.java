@@ -0,0 +1,67 @@
+package com.trace.sdlc_connector.message.forward;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Sends serialized MessageDTOs to the /content endpoint of GenAI, within the adaptive concurrency limit.
+ */
+@Component
+@Profile({"forward", "pipeline"})
+public class GenAiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenAiClient.class);
+
+    private final RestClient restClient;
+    private final GenAiConcurrencyLimiter genAiLimiter;
+    private final String genAiUrl;
+
+    public GenAiClient(RestClient.Builder restClientBuilder, GenAiConcurrencyLimiter genAiLimiter,
+                       @Value("${trace.gen-ai.url}") String genAiUrl) {
+        this.restClient = restClientBuilder.build();
+        this.genAiLimiter = genAiLimiter;
+        this.genAiUrl = genAiUrl;
+    }
+
+    /**
+     * Sends the messages as one JSON array.
+     *
+     * @param messages The JSON of each MessageDTO
+     */
+    public void sendContent(List<byte[]> messages) {
+        genAiLimiter.execute(() -> this.restClient.post()
+                .uri(genAiUrl + "/content")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(toJsonArray(messages))
+                .retrieve()
+                .toBodilessEntity());
+
+        logger.info("Forwarded batch of {} messages", messages.size());
+    }
+
+    private static byte[] toJsonArray(List<byte[]> elements) {
+        int length = elements.size() + 1;
+        for (byte[] element : elements) {
+            length += element.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put((byte) '[');
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                buffer.put((byte) ',');
+            }
+            buffer.put(elements.get(i));
+        }
+        buffer.put((byte) ']');
+        return buffer.array();
+    }
+}
@@ -1,16 +1,19 @@
 package com.trace.sdlc_connector.message.forward;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.BatchBuffer;
 import com.trace.sdlc_connector.message.Message;
 import com.trace.sdlc_connector.message.MessageDTO;
 import com.trace.sdlc_connector.message.MessageProcessor;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.util.UUID;
 
 @Service
@@ -19,29 +22,55 @@ public class MessageForward extends MessageProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageForward.class);
 
-    private final RestClient restClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Value("${trace.gen-ai.url}")
-    private String genAiUrl;
+    // serialized MessageDTOs, sent to GenAI as JSON arrays
+    private final BatchBuffer<byte[]> batchBuffer;
 
-    public MessageForward() {
+    public MessageForward(
+            GenAiClient genAiClient,
+            @Value("${trace.gen-ai.batch.max-size:100}") int maxBatchSize,
+            @Value("${trace.gen-ai.batch.max-bytes:1048576}") long maxBatchBytes,
+            @Value("${trace.gen-ai.batch.max-delay-ms:1000}") long maxDelayMillis,
+            @Value("${trace.gen-ai.batch.capacity:10000}") int capacity,
+            @Value("${trace.gen-ai.batch.max-retries:3}") int maxRetries,
+            @Value("${trace.gen-ai.batch.retry-backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${trace.gen-ai.batch.senders:2}") int senders) {
         super();
-        this.restClient = RestClient.create();
+        this.batchBuffer = new BatchBuffer<>("genai-forward", new BatchBuffer.Settings(
+                maxBatchSize,
+                maxBatchBytes,
+                Duration.ofMillis(maxDelayMillis),
+                capacity,
+                maxRetries,
+                Duration.ofMillis(retryBackoffMillis),
+                senders
+        ), json -> json.length, genAiClient::sendContent);
     }
 
     public void processMessage(UUID projectId, Message message) {
+        byte[] json;
         try {
-            String response = this.restClient.post()
-                    .uri(genAiUrl + "/content")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(new MessageDTO[]{new MessageDTO(message)})
-                    .retrieve()
-                    .toEntity(String.class)
-                    .getBody();
-
-            logger.info("Message forwarded successfully: {}", message.getMetadata().getEventId());
-        } catch (Exception e) {
-            logger.error("Error forwarding message: {}", message.getMetadata().getEventId(), e);
+            json = objectMapper.writeValueAsBytes(new MessageDTO(message));
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", message.getMetadata().getEventId(), e);
+            return;
         }
+
+        batchBuffer.add(json);
+    }
+
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        return batchBuffer.awaitIdle(timeout);
+    }
+
+    public BatchBuffer<byte[]> getBatchBuffer() {
+        return batchBuffer;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // forward the buffered messages before the application stops
+        batchBuffer.close(Duration.ofSeconds(30));
     }
 }
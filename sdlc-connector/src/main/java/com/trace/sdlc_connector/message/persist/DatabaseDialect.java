@@ -0,0 +1,134 @@
+package com.trace.sdlc_connector.message.persist;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The SQL differences between the production database (PostgreSQL) and the test database (H2) for the
+ * statements written by hand.
+ */
+public enum DatabaseDialect {
+    POSTGRES,
+    H2,
+    OTHER;
+
+    public static DatabaseDialect of(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+
+        return switch (product == null ? "" : product) {
+            case "PostgreSQL" -> POSTGRES;
+            case "H2" -> H2;
+            default -> OTHER;
+        };
+    }
+
+    /**
+     * @return The placeholder for a JSON text parameter of a jsonb column
+     */
+    public String jsonParameter() {
+        return switch (this) {
+            case POSTGRES -> "CAST(? AS jsonb)";
+            case H2 -> "? FORMAT JSON";
+            case OTHER -> "?";
+        };
+    }
+
+    /**
+     * @return The locking clause for rows that are claimed by one of several instances
+     */
+    public String forUpdateSkipLocked() {
+        return this == POSTGRES ? " FOR UPDATE SKIP LOCKED" : " FOR UPDATE";
+    }
+
+    /**
+     * @return The statement adding the counters (project_id, granularity, bucket_start, type, outcome, user_id,
+     * events, items) to the activity_rollup row of the key, inserting it if it does not exist
+     */
+    public String upsertRollupSql() {
+        if (this == POSTGRES) {
+            return "INSERT INTO activity_rollup (project_id, granularity, bucket_start, type, outcome, user_id, " +
+                    "events, items) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (project_id, granularity, bucket_start, type, outcome, user_id) " +
+                    "DO UPDATE SET events = activity_rollup.events + EXCLUDED.events, " +
+                    "items = activity_rollup.items + EXCLUDED.items";
+        }
+        return "MERGE INTO activity_rollup r USING (SELECT CAST(? AS UUID) AS project_id, " +
+                "CAST(? AS VARCHAR(8)) AS granularity, CAST(? AS TIMESTAMP) AS bucket_start, " +
+                "CAST(? AS VARCHAR(255)) AS type, CAST(? AS VARCHAR(255)) AS outcome, CAST(? AS UUID) AS user_id, " +
+                "CAST(? AS BIGINT) AS events, CAST(? AS BIGINT) AS items) d " +
+                "ON r.project_id = d.project_id AND r.granularity = d.granularity " +
+                "AND r.bucket_start = d.bucket_start AND r.type = d.type AND r.outcome = d.outcome " +
+                "AND r.user_id = d.user_id " +
+                "WHEN MATCHED THEN UPDATE SET events = r.events + d.events, items = r.items + d.items " +
+                "WHEN NOT MATCHED THEN INSERT (project_id, granularity, bucket_start, type, outcome, user_id, " +
+                "events, items) VALUES (d.project_id, d.granularity, d.bucket_start, d.type, d.outcome, d.user_id, " +
+                "d.events, d.items)";
+    }
+
+    /**
+     * @return The statement inserting the outbox entry (id, project_id, payload, created_at, next_attempt_at) of a
+     * message, replacing a pending entry of the same message
+     */
+    public String upsertOutboxSql() {
+        if (this == POSTGRES) {
+            return "INSERT INTO message_outbox (id, project_id, payload, created_at, attempts, next_attempt_at) " +
+                    "VALUES (?, ?, ?, ?, 0, ?) ON CONFLICT (id) DO UPDATE SET payload = EXCLUDED.payload, " +
+                    "created_at = EXCLUDED.created_at, attempts = 0, next_attempt_at = EXCLUDED.next_attempt_at";
+        }
+        return "MERGE INTO message_outbox (id, project_id, payload, created_at, attempts, next_attempt_at) KEY (id) " +
+                "VALUES (?, ?, ?, ?, 0, ?)";
+    }
+
+    /**
+     * @return The statement inserting a message (id, type, user_id, timestamp, project_id, content) unless one with
+     * the same id is stored already. The update count is 0 for redelivered events.
+     */
+    public String insertMessageSql() {
+        if (this == POSTGRES) {
+            // the id is claimed in message_id first, message_entity may be partitioned by timestamp
+            return "WITH incoming (id, type, user_id, timestamp, project_id, content) AS (VALUES (CAST(? AS uuid), " +
+                    "CAST(? AS varchar(255)), CAST(? AS uuid), CAST(? AS timestamp(6)), CAST(? AS uuid), " +
+                    jsonParameter() + ")), " +
+                    "claimed AS (INSERT INTO message_id (id, timestamp) SELECT id, timestamp FROM incoming " +
+                    "ON CONFLICT DO NOTHING RETURNING id) " +
+                    "INSERT INTO message_entity (id, type, user_id, timestamp, project_id, content) " +
+                    "SELECT incoming.* FROM incoming JOIN claimed ON claimed.id = incoming.id ON CONFLICT DO NOTHING";
+        }
+        // redelivered events keep the first stored version
+        return "INSERT INTO message_entity (id, type, user_id, timestamp, project_id, content) " +
+                "VALUES (?, ?, ?, ?, ?, " + jsonParameter() + ") ON CONFLICT DO NOTHING";
+    }
+
+    /**
+     * @return The statement inserting the messages of arrays (ids, types, user ids, timestamps, project ids, contents)
+     * like {@link #insertMessageSql()}, returning the ids of the inserted messages. PostgreSQL only, the update
+     * counts of a JDBC batch are not reliable there, as drivers that rewrite batches only report success.
+     */
+    public String insertMessagesReturningIdsSql() {
+        if (this != POSTGRES) {
+            throw new UnsupportedOperationException("Array inserts are only written for PostgreSQL");
+        }
+        return "WITH incoming (id, type, user_id, timestamp, project_id, content) AS (SELECT * FROM unnest(" +
+                "CAST(? AS uuid[]), CAST(? AS varchar(255)[]), CAST(? AS uuid[]), CAST(? AS timestamp(6)[]), " +
+                "CAST(? AS uuid[]), CAST(CAST(? AS text[]) AS jsonb[]))), " +
+                "claimed AS (INSERT INTO message_id (id, timestamp) SELECT id, timestamp FROM incoming " +
+                "ON CONFLICT DO NOTHING RETURNING id) " +
+                "INSERT INTO message_entity (id, type, user_id, timestamp, project_id, content) " +
+                "SELECT incoming.* FROM incoming JOIN claimed ON claimed.id = incoming.id ON CONFLICT DO NOTHING " +
+                "RETURNING id";
+    }
+
+    /**
+     * @return The statement deleting the message of an id, so it can be inserted again. The update count is the
+     * number of deleted messages.
+     */
+    public String deleteMessageSql() {
+        if (this == POSTGRES) {
+            return "WITH target AS (SELECT CAST(? AS uuid) AS id), " +
+                    "released AS (DELETE FROM message_id WHERE id IN (SELECT id FROM target)) " +
+                    "DELETE FROM message_entity WHERE id IN (SELECT id FROM target)";
+        }
+        return "DELETE FROM message_entity WHERE id = ?";
+    }
+}
@@ -1,32 +1,135 @@
 package com.trace.sdlc_connector.message.persist;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trace.sdlc_connector.message.Message;
 import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
-@Profile("persist")
+@Profile({"persist", "pipeline"})
 class MessageController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_LIMIT = 10000;
+    private static final int STREAM_PAGE_SIZE = 500;
+
     private final MessageRepo messageRepo;
+    private final ObjectMapper objectMapper;
 
-    MessageController(MessageRepo messageRepo) {
+    MessageController(MessageRepo messageRepo, ObjectMapper objectMapper) {
         this.messageRepo = messageRepo;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Returns the messages of a project ordered by timestamp, one page at a time. If there may be more messages,
+     * the cursor for the next page is returned in the X-Next-Cursor header.
+     */
     @GetMapping("projects/{projectId}/messages")
     public ResponseEntity<?> retrieveAllData(
-            @PathVariable UUID projectId) {
-        var entities = messageRepo.findAllByProjectId(projectId);
+            @PathVariable UUID projectId,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        String invalid = validate(cursor, limit);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
+        }
+
+        var filter = new MessageFilter(projectId, type, userId, from, to);
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        List<MessageEntity> entities = messageRepo.findPage(filter, parseCursor(cursor), pageSize);
         var messages = entities.stream()
                 .map(Message::new)
                 .toList();
 
-        return ResponseEntity.ok(messages);
+        var response = ResponseEntity.ok();
+        if (entities.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, MessageCursor.of(entities.getLast()).toString());
+        }
+        return response.body(messages);
+    }
+
+    /**
+     * Streams all matching messages of a project (or up to limit) ordered by timestamp as one JSON object per line.
+     * Selected with "Accept: application/x-ndjson"; the return type has to be declared as StreamingResponseBody
+     * for the response to be written asynchronously.
+     */
+    @GetMapping(value = "projects/{projectId}/messages", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllData(
+            @PathVariable UUID projectId,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        String invalid = validate(cursor, limit);
+        if (invalid != null) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(invalid.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        var filter = new MessageFilter(projectId, type, userId, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamMessages(filter, parseCursor(cursor), limit));
+    }
+
+    // returns the reason if the parameters are invalid
+    private static String validate(String cursor, Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            return "limit must be between 1 and " + MAX_LIMIT;
+        }
+        try {
+            parseCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return "Invalid cursor";
+        }
+        return null;
+    }
+
+    private static MessageCursor parseCursor(String cursor) {
+        return cursor == null ? null : MessageCursor.parse(cursor);
+    }
+
+    private StreamingResponseBody streamMessages(MessageFilter filter, MessageCursor after, Integer limit) {
+        return out -> {
+            MessageCursor position = after;
+            int remaining = limit != null ? limit : Integer.MAX_VALUE;
+
+            // read page by page, so only one page is held in memory at a time
+            while (remaining > 0) {
+                int pageSize = Math.min(STREAM_PAGE_SIZE, remaining);
+                List<MessageEntity> page = messageRepo.findPage(filter, position, pageSize);
+
+                for (MessageEntity entity : page) {
+                    out.write(objectMapper.writeValueAsBytes(new Message(entity)));
+                    out.write('\n');
+                }
+                out.flush();
+
+                if (page.size() < pageSize) {
+                    break;
+                }
+                remaining -= page.size();
+                position = MessageCursor.of(page.getLast());
+            }
+        };
     }
 }
@@ -0,0 +1,32 @@
+package com.trace.sdlc_connector.message.persist;
+
+import java.util.UUID;
+
+/**
+ * Position after a message in (timestamp, id) order, passed to clients as an opaque string.
+ */
+record MessageCursor(long timestamp, UUID id) {
+
+    static MessageCursor of(MessageEntity message) {
+        return new MessageCursor(message.getTimestamp().getTime(), message.getId());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static MessageCursor parse(String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new MessageCursor(
+                Long.parseLong(cursor.substring(0, separator)),
+                UUID.fromString(cursor.substring(separator + 1))
+        );
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + "_" + id;
+    }
+}
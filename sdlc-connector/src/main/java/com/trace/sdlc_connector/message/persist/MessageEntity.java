@@ -10,7 +10,12 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "message_entity")
+@Table(name = "message_entity", indexes = {
+        // keyset pagination of a project's messages, optionally filtered by type or user
+        @Index(name = "idx_message_project_time", columnList = "projectId, timestamp, id"),
+        @Index(name = "idx_message_project_type_time", columnList = "projectId, type, timestamp, id"),
+        @Index(name = "idx_message_project_user_time", columnList = "projectId, userId, timestamp, id")
+})
 public class MessageEntity {
 
     @Id
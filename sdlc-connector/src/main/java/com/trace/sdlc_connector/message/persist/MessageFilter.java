@@ -0,0 +1,66 @@
+package com.trace.sdlc_connector.message.persist;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters the messages of a project and pages through them by (timestamp, id), so a page is read from the
+ * (projectId, timestamp, id) indexes no matter how deep into the history it is.
+ */
+record MessageFilter(UUID projectId, String type, UUID userId, Instant from, Instant to) {
+
+    static final Sort ORDER = Sort.by("timestamp", "id");
+
+    /**
+     * @param after the last message of the previous page, null for the first page
+     */
+    Specification<MessageEntity> toSpecification(MessageCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("projectId"), projectId));
+
+            if (type != null) {
+                // either the exact type or all actions of an event, e.g. "issues" matches "issues opened"
+                predicates.add(cb.or(
+                        cb.equal(root.get("type"), type),
+                        cb.like(root.get("type"), escapeLike(type) + " %", '\\')
+                ));
+            }
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("userId"), userId));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), Date.from(from)));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("timestamp"), Date.from(to)));
+            }
+            if (after != null) {
+                Date timestamp = new Date(after.timestamp());
+                // the plain bound lets PostgreSQL skip the partitions before the cursor, which it can not do for the
+                // disjunction alone
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), timestamp));
+                predicates.add(cb.or(
+                        cb.greaterThan(root.get("timestamp"), timestamp),
+                        cb.and(
+                                cb.equal(root.get("timestamp"), timestamp),
+                                cb.greaterThan(root.get("id"), after.id())
+                        )
+                ));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,27 @@
+package com.trace.sdlc_connector.message.persist;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * The ids of the stored messages on PostgreSQL. The primary key of the partitioned message_entity table has to
+ * contain the timestamp, so it does not keep a redelivered event with a new timestamp out; a message is only
+ * inserted if its id could be claimed here, see {@link DatabaseDialect#insertMessageSql()}. The rows are written by
+ * hand, the entity only defines the table.
+ */
+@Entity
+@Table(name = "message_id")
+public class MessageId {
+
+    @Id
+    private UUID id;
+
+    // of the message, so the ids of expired messages can be deleted with them
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date timestamp;
+
+    protected MessageId() {
+    }
+}
@@ -0,0 +1,247 @@
+package com.trace.sdlc_connector.message.persist;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps message_entity range partitioned by month of the timestamp on PostgreSQL. Hibernate creates the table
+ * unpartitioned, so on startup it is converted once: the rows are copied into a partitioned table with the same
+ * columns and indexes. Afterwards partitions are created trace.sdlc.persist.partitioning.months-ahead months in
+ * advance, and with retention-months set, partitions older than that are dropped as a whole instead of deleting
+ * their rows. Messages outside of the monthly partitions (e.g. imported history older than the table) are kept in
+ * a default partition.
+ * <p>
+ * The primary key of a partitioned table has to contain the partition key, so it only makes message ids unique per
+ * timestamp. Messages are therefore only inserted if their id can be claimed in the message_id table
+ * ({@link MessageId}), which keeps redelivered events out no matter when they were received. On startup the ids
+ * of messages stored before the table existed are claimed, also when partitioning is disabled.
+ */
+@Component
+@Profile({"persist", "pipeline"})
+// the table is created by Hibernate
+@DependsOn("entityManagerFactory")
+public class MessagePartitions implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitions.class);
+
+    static final String TABLE = "message_entity";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final Pattern PARTITION_PATTERN = Pattern.compile(TABLE + "_y(\\d{4})m(\\d{2})");
+
+    // serializes the conversion and maintenance of several instances
+    private static final long LOCK_ID = 0x5d1c_0001L;
+
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX idx_message_project_time ON " + TABLE + " (project_id, timestamp, id)",
+            "CREATE INDEX idx_message_project_type_time ON " + TABLE + " (project_id, type, timestamp, id)",
+            "CREATE INDEX idx_message_project_user_time ON " + TABLE + " (project_id, user_id, timestamp, id)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    private final ScheduledExecutorService maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "message-partitions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MessagePartitions(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             @Value("${trace.sdlc.persist.partitioning.enabled:true}") boolean enabled,
+                             @Value("${trace.sdlc.persist.partitioning.months-ahead:3}") int monthsAhead,
+                             @Value("${trace.sdlc.persist.partitioning.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = Math.max(0, retentionMonths);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (DatabaseDialect.of(jdbcTemplate) != DatabaseDialect.POSTGRES) {
+            return;
+        }
+
+        // before the web server starts, so no message is written into the table while it is replaced
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            claimStoredIds();
+            if (enabled && !isPartitioned()) {
+                convert();
+            }
+        });
+        if (!enabled) {
+            return;
+        }
+        maintain();
+
+        maintainer.scheduleWithFixedDelay(this::maintain, 1, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintainer.shutdownNow();
+    }
+
+    /**
+     * Creates the upcoming partitions and drops the expired ones.
+     */
+    void maintain() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                YearMonth current = YearMonth.now();
+                createPartitions(current, current.plusMonths(monthsAhead));
+                if (retentionMonths > 0) {
+                    dropPartitionsBefore(current.minusMonths(retentionMonths));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Error maintaining the partitions of {}", TABLE, e);
+        }
+    }
+
+    /**
+     * Claims the ids of the messages stored before message_id existed, the insert relies on them being claimed.
+     */
+    private void claimStoredIds() {
+        Boolean claimed = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM message_id) " +
+                "OR NOT EXISTS (SELECT 1 FROM " + TABLE + ")", Boolean.class);
+        if (Boolean.TRUE.equals(claimed)) {
+            return;
+        }
+
+        int ids = jdbcTemplate.update("INSERT INTO message_id (id, timestamp) SELECT id, MIN(timestamp) FROM " +
+                TABLE + " GROUP BY id ON CONFLICT DO NOTHING");
+        logger.info("Claimed the ids of {} stored messages", ids);
+    }
+
+    private void convert() {
+        var range = jdbcTemplate.queryForMap("SELECT MIN(timestamp) AS first, COUNT(*) AS total FROM " + TABLE);
+        YearMonth current = YearMonth.now();
+        YearMonth first = range.get("first") instanceof Timestamp timestamp
+                ? YearMonth.from(timestamp.toLocalDateTime())
+                : current;
+
+        logger.info("Converting {} with {} messages to monthly partitions", TABLE, range.get("total"));
+
+        // the names of the indexes and of the table are taken over by the partitioned table
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_unpartitioned");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_message_project_time, idx_message_project_type_time, " +
+                "idx_message_project_user_time");
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (" +
+                "id uuid NOT NULL, " +
+                "type varchar(255), " +
+                "user_id uuid, " +
+                "timestamp timestamp(6) NOT NULL, " +
+                "project_id uuid, " +
+                "content jsonb, " +
+                "PRIMARY KEY (id, timestamp)" +
+                ") PARTITION BY RANGE (timestamp)");
+        INDEXES.forEach(jdbcTemplate::execute);
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        createPartitions(first.isBefore(current) ? first : current, current.plusMonths(monthsAhead));
+
+        jdbcTemplate.execute("INSERT INTO " + TABLE + " (id, type, user_id, timestamp, project_id, content) " +
+                "SELECT id, type, user_id, COALESCE(timestamp, TIMESTAMP 'epoch'), project_id, content " +
+                "FROM " + TABLE + "_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE " + TABLE + "_unpartitioned");
+    }
+
+    private void createPartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (exists(partitionName(month))) {
+                continue;
+            }
+
+            LocalDate start = month.atDay(1);
+            // a partition can not be added while the default partition holds rows of its range
+            Integer misplaced = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + DEFAULT_PARTITION +
+                    " WHERE timestamp >= ? AND timestamp < ?", Integer.class,
+                    Timestamp.valueOf(start.atStartOfDay()), Timestamp.valueOf(start.plusMonths(1).atStartOfDay()));
+            if (misplaced != null && misplaced > 0) {
+                logger.warn("Not creating partition for {}, {} messages of it are in the default partition",
+                        month, misplaced);
+                continue;
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF " + TABLE +
+                    " FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "')");
+            logger.info("Created partition {}", partitionName(month));
+        }
+    }
+
+    private void dropPartitionsBefore(YearMonth threshold) {
+        List<String> partitions = jdbcTemplate.queryForList("SELECT child.relname FROM pg_inherits " +
+                "JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+                "JOIN pg_class parent ON parent.oid = pg_inherits.inhparent " +
+                "WHERE parent.relname = ?", String.class, TABLE);
+
+        for (String partition : partitions) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && month.isBefore(threshold)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                logger.info("Dropped expired partition {}", partition);
+            }
+        }
+
+        // old imported messages are kept in the default partition, they have to be deleted row by row
+        Timestamp start = Timestamp.valueOf(threshold.atDay(1).atStartOfDay());
+        int deleted = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?", start);
+        if (deleted > 0) {
+            logger.info("Deleted {} expired messages from {}", deleted, DEFAULT_PARTITION);
+        }
+        jdbcTemplate.update("DELETE FROM message_id WHERE timestamp < ?", start);
+    }
+
+    private boolean isPartitioned() {
+        List<String> kind = jdbcTemplate.queryForList("SELECT relkind::text FROM pg_class " +
+                "WHERE relname = ? AND relnamespace = current_schema()::regnamespace", String.class, TABLE);
+        return kind.contains("p");
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                table));
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, LOCK_ID);
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    static YearMonth partitionMonth(String partition) {
+        Matcher matcher = PARTITION_PATTERN.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -1,25 +1,265 @@
 package com.trace.sdlc_connector.message.persist;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.BatchBuffer;
 import com.trace.sdlc_connector.message.Message;
 import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.message.rollup.ActivityRollups;
+import com.trace.sdlc_connector.message.search.MessageSearchIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 @Profile("persist")
 public class MessagePersist extends MessageProcessor {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessagePersist.class);
 
-    private final MessageRepo messageRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ActivityRollups activityRollups;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public MessagePersist(MessageRepo messageRepo) {
+    // write-behind buffer, so ingestion is not limited by the commit latency of single inserts
+    private final BatchBuffer<MessageRow> batchBuffer;
+    // replayed messages replace the stored ones
+    private final BatchBuffer<MessageRow> replayBuffer;
+
+    private final AtomicLong rejectedMessages = new AtomicLong();
+
+    private volatile DatabaseDialect dialect;
+    private volatile String insertSql;
+    private volatile String deleteSql;
+
+    public MessagePersist(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MessageSearchIndex messageSearchIndex,
+            ActivityRollups activityRollups,
+            @Value("${trace.sdlc.persist.batch.max-size:500}") int maxBatchSize,
+            @Value("${trace.sdlc.persist.batch.max-delay-ms:200}") long maxDelayMillis,
+            @Value("${trace.sdlc.persist.batch.capacity:10000}") int capacity,
+            @Value("${trace.sdlc.persist.batch.max-retries:3}") int maxRetries,
+            @Value("${trace.sdlc.persist.batch.retry-backoff-ms:500}") long retryBackoffMillis) {
         super();
-        this.messageRepo = messageRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.messageSearchIndex = messageSearchIndex;
+        this.activityRollups = activityRollups;
+        this.batchBuffer = new BatchBuffer<>("message-persist", new BatchBuffer.Settings(
+                maxBatchSize,
+                Long.MAX_VALUE,
+                Duration.ofMillis(maxDelayMillis),
+                capacity,
+                maxRetries,
+                Duration.ofMillis(retryBackoffMillis),
+                1
+        ), row -> 1, this::insertBatch);
+        this.replayBuffer = new BatchBuffer<>("message-replay", new BatchBuffer.Settings(
+                maxBatchSize,
+                Long.MAX_VALUE,
+                Duration.ofMillis(maxDelayMillis),
+                capacity,
+                maxRetries,
+                Duration.ofMillis(retryBackoffMillis),
+                1
+        ), row -> 1, this::replaceBatch);
     }
 
     public void processMessage(UUID projectId, Message message) {
-        messageRepo.save(message.toMessageEntity());
+        MessageRow row = toRow(message);
+        if (row != null) {
+            batchBuffer.add(row);
+        }
+    }
+
+    @Override
+    public void replayMessage(UUID projectId, Message message) {
+        MessageRow row = toRow(message);
+        if (row != null) {
+            replayBuffer.add(row);
+        }
+    }
+
+    /**
+     * Waits until all buffered messages have been written.
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        return batchBuffer.awaitIdle(timeout) && replayBuffer.awaitIdle(timeout);
+    }
+
+    public BatchBuffer<MessageRow> getBatchBuffer() {
+        return batchBuffer;
+    }
+
+    public BatchBuffer<MessageRow> getReplayBuffer() {
+        return replayBuffer;
+    }
+
+    /**
+     * @return The number of messages dropped because the database rejected them
+     */
+    public long getRejectedMessages() {
+        return rejectedMessages.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // write the buffered messages before the application stops
+        batchBuffer.close(Duration.ofSeconds(30));
+        replayBuffer.close(Duration.ofSeconds(30));
+    }
+
+    private MessageRow toRow(Message message) {
+        try {
+            return MessageRow.of(message, objectMapper);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", message.getMetadata().getEventId(), e);
+            return null;
+        }
+    }
+
+    private void insertBatch(List<MessageRow> batch) {
+        // redelivered events are not counted again
+        List<MessageRow> written = writeOrSplit(batch, rows -> transactionTemplate.executeWithoutResult(status ->
+                activityRollups.add(insert(rows))));
+        messageSearchIndex.index(written);
+
+        logger.debug("Persisted batch of {} messages", written.size());
+    }
+
+    private void replaceBatch(List<MessageRow> batch) {
+        List<MessageRow> written = writeOrSplit(batch, rows -> transactionTemplate.executeWithoutResult(status -> {
+            // the counters move from the stored versions to the new ones, e.g. if the user mapping changed
+            List<MessageRow> stored = MessageRow.findAll(jdbcTemplate, rows.stream().map(MessageRow::id)
+                    .distinct().toList());
+            jdbcTemplate.batchUpdate(getDeleteSql(), rows, rows.size(),
+                    (statement, row) -> statement.setObject(1, row.id()));
+            activityRollups.replace(stored, insert(rows));
+        }));
+        messageSearchIndex.index(written);
+
+        logger.debug("Replaced batch of {} messages", written.size());
+    }
+
+    /**
+     * Writes the batch in one transaction. As one row the database rejects fails the whole JDBC batch, the rows
+     * are then written one by one and only the rejected ones are dropped. Other errors (e.g. an unavailable
+     * database) are thrown, so the batch buffer retries the whole batch.
+     *
+     * @return The written rows
+     */
+    private List<MessageRow> writeOrSplit(List<MessageRow> batch, Consumer<List<MessageRow>> write) {
+        try {
+            write.accept(batch);
+            return batch;
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                reject(batch.getFirst(), e);
+                return List.of();
+            }
+            logger.warn("Writing batch of {} messages failed, writing them one by one", batch.size(), e);
+        }
+
+        List<MessageRow> written = new ArrayList<>(batch.size());
+        for (MessageRow row : batch) {
+            try {
+                write.accept(List.of(row));
+                written.add(row);
+            } catch (DataIntegrityViolationException e) {
+                reject(row, e);
+            }
+        }
+        return written;
+    }
+
+    private void reject(MessageRow row, DataIntegrityViolationException error) {
+        rejectedMessages.incrementAndGet();
+        logger.error("The database rejected message {}, dropping it", row.id(), error);
+    }
+
+    /**
+     * Inserts the rows unless messages with their ids are stored already.
+     *
+     * @return The inserted rows
+     */
+    private List<MessageRow> insert(List<MessageRow> rows) {
+        if (getDialect() != DatabaseDialect.POSTGRES) {
+            int[][] counts = jdbcTemplate.batchUpdate(getInsertSql(), rows, rows.size(),
+                    (statement, row) -> row.bind(statement));
+            return inserted(rows, counts);
+        }
+
+        // one statement returning the inserted ids, the batch update counts are not reliable with rewritten batches
+        Set<UUID> ids = new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getInsertSql());
+            statement.setArray(1, connection.createArrayOf("uuid", rows.stream().map(MessageRow::id).toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", rows.stream().map(MessageRow::type).toArray()));
+            statement.setArray(3, connection.createArrayOf("uuid", rows.stream().map(MessageRow::userId).toArray()));
+            statement.setArray(4, connection.createArrayOf("timestamp",
+                    rows.stream().map(MessageRow::timestamp).toArray()));
+            statement.setArray(5, connection.createArrayOf("uuid",
+                    rows.stream().map(MessageRow::projectId).toArray()));
+            statement.setArray(6, connection.createArrayOf("text", rows.stream().map(MessageRow::content).toArray()));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getObject(1, UUID.class)));
+        // of an event redelivered within the batch only the first row was inserted
+        return rows.stream().filter(row -> ids.remove(row.id())).toList();
+    }
+
+    private static List<MessageRow> inserted(List<MessageRow> batch, int[][] counts) {
+        List<MessageRow> inserted = new ArrayList<>(batch.size());
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // a driver that only reports success (SUCCESS_NO_INFO) is not trusted to have inserted the row
+                if (count > 0) {
+                    inserted.add(batch.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    private DatabaseDialect getDialect() {
+        if (dialect == null) {
+            dialect = DatabaseDialect.of(jdbcTemplate);
+        }
+        return dialect;
+    }
+
+    private String getInsertSql() {
+        if (insertSql == null) {
+            insertSql = getDialect() == DatabaseDialect.POSTGRES ? getDialect().insertMessagesReturningIdsSql()
+                    : getDialect().insertMessageSql();
+        }
+        return insertSql;
+    }
+
+    private String getDeleteSql() {
+        if (deleteSql == null) {
+            deleteSql = getDialect().deleteMessageSql();
+        }
+        return deleteSql;
     }
 }
@@ -2,12 +2,17 @@ package com.trace.sdlc_connector.message.persist;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
 import java.util.UUID;
 
-@Profile("persist")
-public interface MessageRepo extends JpaRepository<MessageEntity, UUID> {
+@Profile({"persist", "pipeline"})
+public interface MessageRepo extends JpaRepository<MessageEntity, UUID>, JpaSpecificationExecutor<MessageEntity> {
 
     List<MessageEntity> findAllByProjectId(UUID projectId);
+
+    default List<MessageEntity> findPage(MessageFilter filter, MessageCursor after, int limit) {
+        return findBy(filter.toSpecification(after), query -> query.sortBy(MessageFilter.ORDER).limit(limit).all());
+    }
 }
@@ -0,0 +1,62 @@
+package com.trace.sdlc_connector.message.persist;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A message serialized for a plain insert into the message_entity table, see {@link DatabaseDialect#insertMessageSql()}.
+ */
+public record MessageRow(UUID id, String type, UUID userId, Timestamp timestamp, UUID projectId, String content) {
+
+    public static MessageRow of(Message message, ObjectMapper objectMapper) throws JsonProcessingException {
+        var metadata = message.getMetadata();
+        return new MessageRow(
+                metadata.getEventId(),
+                metadata.getType(),
+                metadata.getUserId(),
+                new Timestamp(metadata.getTimestamp()),
+                metadata.getProjectId(),
+                objectMapper.writeValueAsString(MessageDTO.storedContent(message))
+        );
+    }
+
+    /**
+     * Reads the stored messages of the ids.
+     */
+    public static List<MessageRow> findAll(JdbcTemplate jdbcTemplate, Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT id, type, user_id, timestamp, project_id, content FROM message_entity " +
+                        "WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                (resultSet, rowNum) -> new MessageRow(
+                        resultSet.getObject("id", UUID.class),
+                        resultSet.getString("type"),
+                        resultSet.getObject("user_id", UUID.class),
+                        resultSet.getTimestamp("timestamp"),
+                        resultSet.getObject("project_id", UUID.class),
+                        resultSet.getString("content")
+                ),
+                ids.toArray());
+    }
+
+    public void bind(PreparedStatement statement) throws SQLException {
+        statement.setObject(1, id);
+        statement.setString(2, type);
+        statement.setObject(3, userId);
+        statement.setTimestamp(4, timestamp);
+        statement.setObject(5, projectId);
+        statement.setString(6, content);
+    }
+}
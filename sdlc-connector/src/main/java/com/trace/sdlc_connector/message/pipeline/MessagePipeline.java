@@ -0,0 +1,127 @@
+package com.trace.sdlc_connector.message.pipeline;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageDTO;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.message.persist.DatabaseDialect;
+import com.trace.sdlc_connector.message.persist.MessageRow;
+import com.trace.sdlc_connector.message.rollup.ActivityRollups;
+import com.trace.sdlc_connector.message.search.MessageSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores each message and, in the same transaction, an outbox entry for it. The {@link OutboxRelay} forwards the
+ * outbox to GenAI, so an unavailable GenAI delays the messages instead of losing them.
+ */
+@Service
+@Profile("pipeline")
+public class MessagePipeline extends MessageProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePipeline.class);
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO message_outbox " +
+            "(id, project_id, payload, created_at, attempts, next_attempt_at) VALUES (?, ?, ?, ?, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxRelay outboxRelay;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ActivityRollups activityRollups;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile String insertMessageSql;
+    private volatile String deleteMessageSql;
+    private volatile String upsertOutboxSql;
+
+    public MessagePipeline(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, OutboxRelay outboxRelay,
+                           MessageSearchIndex messageSearchIndex, ActivityRollups activityRollups) {
+        super();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxRelay = outboxRelay;
+        this.messageSearchIndex = messageSearchIndex;
+        this.activityRollups = activityRollups;
+    }
+
+    public void processMessage(UUID projectId, Message message) {
+        store(message, false);
+    }
+
+    /**
+     * Replaces the stored message and forwards the new version.
+     */
+    @Override
+    public void replayMessage(UUID projectId, Message message) {
+        store(message, true);
+    }
+
+    private void store(Message message, boolean replace) {
+        MessageRow row;
+        String payload;
+        try {
+            row = MessageRow.of(message, objectMapper);
+            payload = objectMapper.writeValueAsString(new MessageDTO(message));
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", message.getMetadata().getEventId(), e);
+            return;
+        }
+
+        Boolean stored = transactionTemplate.execute(status -> {
+            // the counters move from the stored version of a replayed message to the new one
+            List<MessageRow> replaced = replace ? MessageRow.findAll(jdbcTemplate, List.of(row.id())) : List.of();
+            if (replace) {
+                jdbcTemplate.update(getDeleteMessageSql(), row.id());
+            }
+            int inserted = jdbcTemplate.update(getInsertMessageSql(), row::bind);
+            if (inserted == 0) {
+                // redelivered event, it was already forwarded or is still in the outbox
+                return false;
+            }
+
+            activityRollups.replace(replaced, List.of(row));
+
+            // a replayed message may still be in the outbox, its entry is replaced with the new version
+            var now = new Timestamp(System.currentTimeMillis());
+            jdbcTemplate.update(replace ? getUpsertOutboxSql() : INSERT_OUTBOX_SQL, row.id(), row.projectId(), payload,
+                    now, now);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(stored)) {
+            messageSearchIndex.index(List.of(row));
+            outboxRelay.wakeUp();
+        }
+    }
+
+    private String getInsertMessageSql() {
+        if (insertMessageSql == null) {
+            insertMessageSql = DatabaseDialect.of(jdbcTemplate).insertMessageSql();
+        }
+        return insertMessageSql;
+    }
+
+    private String getUpsertOutboxSql() {
+        if (upsertOutboxSql == null) {
+            upsertOutboxSql = DatabaseDialect.of(jdbcTemplate).upsertOutboxSql();
+        }
+        return upsertOutboxSql;
+    }
+
+    private String getDeleteMessageSql() {
+        if (deleteMessageSql == null) {
+            deleteMessageSql = DatabaseDialect.of(jdbcTemplate).deleteMessageSql();
+        }
+        return deleteMessageSql;
+    }
+}
@@ -0,0 +1,37 @@
+package com.trace.sdlc_connector.message.pipeline;
+
+import com.trace.sdlc_connector.security.SecurityService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@Profile("pipeline")
+class OutboxController {
+
+    private final OutboxRelay outboxRelay;
+    private final SecurityService securityService;
+
+    OutboxController(OutboxRelay outboxRelay, SecurityService securityService) {
+        this.outboxRelay = outboxRelay;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Moves the dead letters of a project back into the outbox to forward them again, e.g. after GenAI was fixed to
+     * accept their payloads. Returns the number of moved entries.
+     */
+    @PostMapping("projects/{projectId}/outbox/dead-letters/redrive")
+    public ResponseEntity<?> redriveDeadLetters(@PathVariable UUID projectId) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied to project with ID: " + projectId);
+        }
+        return ResponseEntity.ok(Map.of("redriven", outboxRelay.redriveDeadLetters(projectId)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.trace.sdlc_connector.message.pipeline;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An outbox entry that GenAI did not accept within trace.sdlc.outbox.max-attempts, e.g. because it rejects the
+ * payload. It is kept for inspection and can be moved back into message_outbox to be forwarded again
+ * ({@link OutboxRelay#redriveDeadLetters(java.util.UUID)}). The rows are
+ * written by {@link OutboxRelay}, the entity only defines the table.
+ */
+@Entity
+@Table(name = "message_outbox_dead_letter")
+public class OutboxDeadLetter {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID projectId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date failedAt;
+
+    // of the last attempt
+    @Column(length = 1000)
+    private String error;
+
+    protected OutboxDeadLetter() {
+    }
+}
@@ -0,0 +1,64 @@
+package com.trace.sdlc_connector.message.pipeline;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A stored message that still has to be forwarded to GenAI, written in the same transaction as the message.
+ */
+@Entity
+@Table(name = "message_outbox", indexes = {
+        @Index(name = "idx_message_outbox_next_attempt", columnList = "nextAttemptAt, createdAt")
+})
+public class OutboxEntry {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID projectId;
+
+    // the serialized MessageDTO
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date nextAttemptAt;
+
+    protected OutboxEntry() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProjectId() {
+        return projectId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+}
@@ -0,0 +1,351 @@
+package com.trace.sdlc_connector.message.pipeline;
+
+import com.trace.sdlc_connector.message.forward.GenAiClient;
+import com.trace.sdlc_connector.message.persist.DatabaseDialect;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards the entries of the message outbox to GenAI in batches. A batch is claimed in a short transaction that
+ * leases its entries (next_attempt_at is moved trace.sdlc.outbox.lease-ms ahead), so several instances can relay
+ * the same outbox and no row lock or connection is held while GenAI is called. Sent entries are deleted.
+ * <p>
+ * When GenAI is unreachable or answers with a server error, the claimed entries are only retried with exponential
+ * backoff, so an outage of any length delays the messages without using up their attempts. When GenAI rejects a
+ * batch (4xx), its entries are sent one by one, so a payload GenAI rejects does not hold back the others; each
+ * rejection counts as an attempt and after max-attempts the entry is moved to message_outbox_dead_letter, from where
+ * {@link #redriveDeadLetters(UUID)} moves it back. Updates of a claimed entry only apply while its lease is unchanged,
+ * so an entry replaced by a replay in the meantime is not deleted with the old version.
+ */
+@Component
+@Profile("pipeline")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private record Entry(UUID id, byte[] payload, int attempts, Timestamp leasedUntil) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GenAiClient genAiClient;
+    private final int batchSize;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    private final long pollIntervalMillis;
+    private final long leaseMillis;
+    private final int maxAttempts;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+    // batches failed in a row because GenAI was unavailable, for the backoff
+    private final AtomicInteger unavailableFailures = new AtomicInteger();
+
+    private final AtomicLong forwardedEntries = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deadLetteredEntries = new AtomicLong();
+
+    private volatile String selectSql;
+
+    public OutboxRelay(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            GenAiClient genAiClient,
+            @Value("${trace.sdlc.outbox.batch-size:100}") int batchSize,
+            @Value("${trace.sdlc.outbox.poll-interval-ms:500}") long pollIntervalMillis,
+            @Value("${trace.sdlc.outbox.retry-backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${trace.sdlc.outbox.max-retry-backoff-ms:300000}") long maxRetryBackoffMillis,
+            // longer than a GenAI call including the wait for a permit
+            @Value("${trace.sdlc.outbox.lease-ms:120000}") long leaseMillis,
+            @Value("${trace.sdlc.outbox.max-attempts:50}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.genAiClient = genAiClient;
+        this.batchSize = Math.max(1, batchSize);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        this.leaseMillis = leaseMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // polling picks up entries left over from a restart or other instances and entries that are due for a retry,
+        // it starts once the schema is in place
+        executor.scheduleWithFixedDelay(this::relay, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Relays new entries without waiting for the next poll.
+     */
+    public void wakeUp() {
+        if (wakeUpScheduled.compareAndSet(false, true) && !executor.isShutdown()) {
+            executor.execute(() -> {
+                wakeUpScheduled.set(false);
+                relay();
+            });
+        }
+    }
+
+    /**
+     * Waits until the outbox is empty.
+     *
+     * @return true if all entries were forwarded within the timeout
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (getSize() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            wakeUp();
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    public long getSize() {
+        Long size = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_outbox", Long.class);
+        return size == null ? 0 : size;
+    }
+
+    public long getForwardedEntries() {
+        return forwardedEntries.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public long getDeadLetteredEntries() {
+        return deadLetteredEntries.get();
+    }
+
+    public long getDeadLetters() {
+        Long size = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_outbox_dead_letter", Long.class);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * Moves the dead letters of a project back into the outbox, e.g. after GenAI was fixed to accept them. They are
+     * forwarded with fresh attempts; dead letters of messages that were replayed in the meantime are dropped.
+     *
+     * @return The number of entries moved back
+     */
+    public int redriveDeadLetters(UUID projectId) {
+        Integer moved = transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update("INSERT INTO message_outbox " +
+                            "(id, project_id, payload, created_at, attempts, next_attempt_at) " +
+                            "SELECT id, project_id, payload, created_at, 0, ? FROM message_outbox_dead_letter d " +
+                            "WHERE project_id = ? AND NOT EXISTS (SELECT 1 FROM message_outbox o WHERE o.id = d.id)",
+                    new Timestamp(System.currentTimeMillis()), projectId);
+            jdbcTemplate.update("DELETE FROM message_outbox_dead_letter WHERE project_id = ?", projectId);
+            return inserted;
+        });
+        if (moved != null && moved > 0) {
+            logger.info("Moved {} dead letters of project {} back into the outbox", moved, projectId);
+            wakeUp();
+        }
+        return moved == null ? 0 : moved;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // remaining entries stay in the outbox and are relayed after the restart
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void relay() {
+        try {
+            // keep going while full batches are sent, the outbox may be backed up
+            while (!executor.isShutdown() && relayBatch() == batchSize) {
+                logger.debug("Outbox backed up, relaying next batch");
+            }
+        } catch (Exception e) {
+            logger.error("Error relaying message outbox", e);
+        }
+    }
+
+    /**
+     * @return The number of forwarded entries
+     */
+    private int relayBatch() {
+        List<Entry> entries = claim();
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            send(entries);
+            return entries.size();
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            if (!isRejection(e)) {
+                logger.warn("Forwarding {} outbox entries failed, retrying later", entries.size(), e);
+                backOff(entries);
+                return 0;
+            }
+            if (entries.size() == 1) {
+                reject(entries.getFirst(), e);
+                return 0;
+            }
+            logger.warn("GenAI rejected a batch of {} outbox entries, sending them one by one", entries.size(), e);
+        }
+
+        // only the entries GenAI does not accept on their own keep failing
+        int forwarded = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            try {
+                send(List.of(entry));
+                forwarded++;
+            } catch (Exception e) {
+                if (!isRejection(e)) {
+                    logger.warn("Forwarding outbox entry {} failed, retrying later", entry.id(), e);
+                    backOff(entries.subList(i, entries.size()));
+                    break;
+                }
+                reject(entry, e);
+            }
+        }
+        return forwarded;
+    }
+
+    private void send(List<Entry> entries) {
+        genAiClient.sendContent(entries.stream().map(Entry::payload).toList());
+        unavailableFailures.set(0);
+        jdbcTemplate.batchUpdate("DELETE FROM message_outbox WHERE id = ? AND next_attempt_at = ?", entries,
+                entries.size(), (statement, entry) -> {
+                    statement.setObject(1, entry.id());
+                    statement.setTimestamp(2, entry.leasedUntil());
+                });
+        forwardedEntries.addAndGet(entries.size());
+    }
+
+    /**
+     * @return Whether GenAI rejected the payload, as opposed to being unavailable or overloaded
+     */
+    private static boolean isRejection(Exception error) {
+        return error instanceof HttpClientErrorException clientError
+                && clientError.getStatusCode().value() != 408
+                && clientError.getStatusCode().value() != 429;
+    }
+
+    /**
+     * Selects the due entries and leases them.
+     */
+    private List<Entry> claim() {
+        List<Entry> entries = transactionTemplate.execute(status -> {
+            var now = new Timestamp(System.currentTimeMillis());
+            var leasedUntil = new Timestamp(now.getTime() + leaseMillis);
+            List<Entry> claimed = jdbcTemplate.query(getSelectSql(), (rs, rowNum) -> new Entry(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("payload").getBytes(StandardCharsets.UTF_8),
+                    rs.getInt("attempts"),
+                    leasedUntil
+            ), now, batchSize);
+
+            jdbcTemplate.batchUpdate("UPDATE message_outbox SET next_attempt_at = ? WHERE id = ?",
+                    claimed, claimed.size(), (statement, entry) -> {
+                        statement.setTimestamp(1, leasedUntil);
+                        statement.setObject(2, entry.id());
+                    });
+            return claimed;
+        });
+        return entries == null ? List.of() : entries;
+    }
+
+    /**
+     * Retries the entries after the backoff without counting an attempt, GenAI did not look at them.
+     */
+    private void backOff(List<Entry> entries) {
+        var nextAttempt = new Timestamp(System.currentTimeMillis()
+                + backoffMillis(unavailableFailures.getAndIncrement()));
+        jdbcTemplate.batchUpdate("UPDATE message_outbox SET next_attempt_at = ? WHERE id = ? AND next_attempt_at = ?",
+                entries, entries.size(), (statement, entry) -> {
+                    statement.setTimestamp(1, nextAttempt);
+                    statement.setObject(2, entry.id());
+                    statement.setTimestamp(3, entry.leasedUntil());
+                });
+    }
+
+    /**
+     * Counts the rejection as an attempt and retries the entry after the backoff, or moves it to the dead letters.
+     */
+    private void reject(Entry entry, Exception error) {
+        int attempts = entry.attempts() + 1;
+        var now = new Timestamp(System.currentTimeMillis());
+        if (attempts < maxAttempts) {
+            logger.warn("GenAI rejected outbox entry {}, retrying later", entry.id(), error);
+            jdbcTemplate.update("UPDATE message_outbox SET attempts = ?, next_attempt_at = ? " +
+                            "WHERE id = ? AND next_attempt_at = ?",
+                    attempts, new Timestamp(now.getTime() + backoffMillis(attempts - 1)), entry.id(),
+                    entry.leasedUntil());
+            return;
+        }
+
+        String message = String.valueOf(error.getMessage());
+        Boolean moved = transactionTemplate.execute(status -> {
+            // an earlier version of a replayed message may have been dead lettered before
+            jdbcTemplate.update("DELETE FROM message_outbox_dead_letter WHERE id = ?", entry.id());
+            int inserted = jdbcTemplate.update("INSERT INTO message_outbox_dead_letter " +
+                            "(id, project_id, payload, created_at, attempts, failed_at, error) " +
+                            "SELECT id, project_id, payload, created_at, ?, ?, ? FROM message_outbox " +
+                            "WHERE id = ? AND next_attempt_at = ?",
+                    attempts, now, message.length() > 1000 ? message.substring(0, 1000) : message, entry.id(),
+                    entry.leasedUntil());
+            if (inserted == 0) {
+                // replaced by a replay in the meantime
+                return false;
+            }
+            jdbcTemplate.update("DELETE FROM message_outbox WHERE id = ?", entry.id());
+            deadLetteredEntries.incrementAndGet();
+            return true;
+        });
+        if (Boolean.TRUE.equals(moved)) {
+            logger.error("GenAI rejected outbox entry {} {} times, moved to the dead letters", entry.id(), attempts);
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        // the shift is capped, so the backoff cannot overflow
+        return Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempts, 20));
+    }
+
+    private String getSelectSql() {
+        if (selectSql == null) {
+            selectSql = "SELECT id, payload, attempts FROM message_outbox WHERE next_attempt_at <= ? " +
+                    "ORDER BY created_at LIMIT ?" + DatabaseDialect.of(jdbcTemplate).forUpdateSkipLocked();
+        }
+        return selectSql;
+    }
+}
@@ -0,0 +1,73 @@
+package com.trace.sdlc_connector.message.rollup;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The number of stored messages of a project per hour or day, type, outcome and user. The rows are written by
+ * {@link ActivityRollups}, the entity only defines the table.
+ */
+@Entity
+@Table(name = "activity_rollup")
+@IdClass(ActivityRollupEntity.Key.class)
+public class ActivityRollupEntity {
+
+    @Id
+    private UUID projectId;
+
+    // "hour" or "day"
+    @Id
+    @Column(length = 8)
+    private String granularity;
+
+    @Id
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date bucketStart;
+
+    @Id
+    private String type;
+
+    // e.g. merged, failure; empty for event types without one
+    @Id
+    private String outcome;
+
+    // the nil UUID for events of unmapped users
+    @Id
+    private UUID userId;
+
+    @Column(nullable = false)
+    private long events;
+
+    // commits of pushes, otherwise the number of events
+    @Column(nullable = false)
+    private long items;
+
+    protected ActivityRollupEntity() {
+    }
+
+    public static class Key implements Serializable {
+        private UUID projectId;
+        private String granularity;
+        private Date bucketStart;
+        private String type;
+        private String outcome;
+        private UUID userId;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(projectId, key.projectId)
+                    && Objects.equals(granularity, key.granularity) && Objects.equals(bucketStart, key.bucketStart)
+                    && Objects.equals(type, key.type) && Objects.equals(outcome, key.outcome)
+                    && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, granularity, bucketStart, type, outcome, userId);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.trace.sdlc_connector.message.rollup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.persist.DatabaseDialect;
+import com.trace.sdlc_connector.message.persist.MessageRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the stored messages of each project per hour and day, event type, outcome and user in the
+ * activity_rollup table, so dashboards (e.g. commits per user and week, merged pull requests per sprint, failed
+ * workflow runs per day) read a few counters instead of all messages. The counters are updated in the transaction
+ * that inserts the messages and only for messages that were actually inserted, so redelivered or backfilled again
+ * events are not counted twice. A replayed message is subtracted in the version it replaces and added in the new
+ * one, so its counters move if its user, outcome or items changed.
+ * <p>
+ * The outcome distinguishes the results of an event type: merged or closed pull requests, the conclusion of
+ * workflow runs and jobs and the state of statuses, deployment statuses and reviews. Pushes also count their
+ * commits as items. Hourly buckets are deleted after trace.sdlc.rollup.hour-retention-days, daily buckets are kept.
+ * Messages stored before the rollups existed are not counted.
+ */
+@Component
+@Profile({"persist", "pipeline"})
+// the table is created by Hibernate
+@DependsOn("entityManagerFactory")
+public class ActivityRollups implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityRollups.class);
+
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+
+    // stands for the events of unmapped users, the user is part of the primary key
+    static final UUID UNKNOWN_USER = new UUID(0, 0);
+
+    private static final int MAX_RESULTS = 10000;
+
+    // where the outcome of the messages of a type is found in the content, by type prefix
+    private static final Map<String, String> OUTCOMES = Map.of(
+            "workflow_run", "/workflow_run/conclusion",
+            "workflow_job", "/workflow_job/conclusion",
+            "status", "/state",
+            "deployment_status", "/deployment_status/state",
+            "pull_request_review", "/review/state"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int hourRetentionDays;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // subtracted counters stay at 0 for messages stored before the rollups existed
+    private static final String SUBTRACT_SQL = "UPDATE activity_rollup SET events = GREATEST(events + ?, 0), " +
+            "items = GREATEST(items + ?, 0) WHERE project_id = ? AND granularity = ? AND bucket_start = ? " +
+            "AND type = ? AND outcome = ? AND user_id = ?";
+
+    private volatile String upsertSql;
+
+    private final ScheduledExecutorService maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "activity-rollups");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ActivityRollups(JdbcTemplate jdbcTemplate,
+                           @Value("${trace.sdlc.rollup.hour-retention-days:90}") int hourRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hourRetentionDays = hourRetentionDays;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (hourRetentionDays > 0) {
+            maintainer.scheduleWithFixedDelay(this::deleteExpiredHours, 1, 24 * 60, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintainer.shutdownNow();
+    }
+
+    /**
+     * Adds the inserted messages to the counters. Has to run in the transaction that inserted them.
+     */
+    public void add(List<MessageRow> inserted) {
+        replace(List.of(), inserted);
+    }
+
+    /**
+     * Moves the counters of replayed messages from their stored versions to the versions that replaced them. Has to
+     * run in the transaction that replaced them.
+     *
+     * @param removed  the stored versions that were deleted
+     * @param inserted the inserted versions
+     */
+    public void replace(List<MessageRow> removed, List<MessageRow> inserted) {
+        if (removed.isEmpty() && inserted.isEmpty()) {
+            return;
+        }
+
+        // the messages of a batch mostly fall into few buckets, each is written once
+        Map<Key, long[]> counters = new TreeMap<>();
+        count(counters, removed, -1);
+        count(counters, inserted, 1);
+
+        // sorted, so concurrent transactions lock the rows in the same order
+        List<Map.Entry<Key, long[]>> added = new ArrayList<>();
+        List<Map.Entry<Key, long[]>> subtracted = new ArrayList<>();
+        for (var entry : counters.entrySet()) {
+            long[] counter = entry.getValue();
+            if (counter[0] < 0 || counter[1] < 0) {
+                subtracted.add(entry);
+            } else if (counter[0] > 0 || counter[1] > 0) {
+                added.add(entry);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(getUpsertSql(), added, added.size(), (statement, entry) -> {
+            Key key = entry.getKey();
+            statement.setObject(1, key.projectId());
+            statement.setString(2, key.granularity());
+            statement.setTimestamp(3, Timestamp.from(key.bucketStart()));
+            statement.setString(4, key.type());
+            statement.setString(5, key.outcome());
+            statement.setObject(6, key.userId());
+            statement.setLong(7, entry.getValue()[0]);
+            statement.setLong(8, entry.getValue()[1]);
+        });
+        jdbcTemplate.batchUpdate(SUBTRACT_SQL, subtracted, subtracted.size(), (statement, entry) -> {
+            Key key = entry.getKey();
+            statement.setLong(1, entry.getValue()[0]);
+            statement.setLong(2, entry.getValue()[1]);
+            statement.setObject(3, key.projectId());
+            statement.setString(4, key.granularity());
+            statement.setTimestamp(5, Timestamp.from(key.bucketStart()));
+            statement.setString(6, key.type());
+            statement.setString(7, key.outcome());
+            statement.setObject(8, key.userId());
+        });
+    }
+
+    private void count(Map<Key, long[]> counters, List<MessageRow> rows, int sign) {
+        for (MessageRow row : rows) {
+            if (row.projectId() == null || row.type() == null || row.timestamp() == null) {
+                continue;
+            }
+            Instant timestamp = row.timestamp().toInstant();
+            String outcome = outcome(row);
+            UUID userId = row.userId() != null ? row.userId() : UNKNOWN_USER;
+            long items = items(row);
+            for (String granularity : List.of(HOUR, DAY)) {
+                var key = new Key(row.projectId(), granularity, bucketStart(timestamp, granularity), row.type(),
+                        outcome, userId);
+                long[] counter = counters.computeIfAbsent(key, k -> new long[2]);
+                counter[0] += sign;
+                counter[1] += sign * items;
+            }
+        }
+    }
+
+    /**
+     * Reads the counters of a project.
+     *
+     * @param granularity {@link #HOUR} or {@link #DAY}
+     * @param from        inclusive start of the first bucket, null for all
+     * @param to          exclusive, null for all
+     * @param type        only messages of this type (e.g. "push") or types starting with it and a space
+     *                    (e.g. "pull_request" for all pull request actions)
+     * @param total       sum the buckets of the range per type, outcome and user instead
+     * @throws IllegalArgumentException for an unknown granularity
+     */
+    public List<RollupBucket> query(UUID projectId, String granularity, Instant from, Instant to, String type,
+                                    UUID userId, boolean total) {
+        if (!HOUR.equals(granularity) && !DAY.equals(granularity)) {
+            throw new IllegalArgumentException("granularity must be " + HOUR + " or " + DAY);
+        }
+
+        StringBuilder where = new StringBuilder(" FROM activity_rollup WHERE project_id = ? AND granularity = ?");
+        List<Object> args = new ArrayList<>(List.of(projectId, granularity));
+        if (from != null) {
+            where.append(" AND bucket_start >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            where.append(" AND bucket_start < ?");
+            args.add(Timestamp.from(to));
+        }
+        if (type != null) {
+            where.append(" AND (type = ? OR type LIKE ? ESCAPE '\\')");
+            args.add(type);
+            args.add(type.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + " %");
+        }
+        if (userId != null) {
+            where.append(" AND user_id = ?");
+            args.add(userId);
+        }
+
+        if (total) {
+            return jdbcTemplate.query("SELECT type, outcome, user_id, SUM(events) AS events, SUM(items) AS items" +
+                            where + " GROUP BY type, outcome, user_id ORDER BY type, outcome, user_id LIMIT " +
+                            MAX_RESULTS,
+                    (resultSet, rowNum) -> new RollupBucket(null, resultSet.getString("type"),
+                            resultSet.getString("outcome"), user(resultSet.getObject("user_id", UUID.class)),
+                            resultSet.getLong("events"), resultSet.getLong("items")),
+                    args.toArray());
+        }
+        return jdbcTemplate.query("SELECT bucket_start, type, outcome, user_id, events, items" + where +
+                        " ORDER BY bucket_start, type, outcome, user_id LIMIT " + MAX_RESULTS,
+                (resultSet, rowNum) -> new RollupBucket(resultSet.getTimestamp("bucket_start").toInstant(),
+                        resultSet.getString("type"), resultSet.getString("outcome"),
+                        user(resultSet.getObject("user_id", UUID.class)),
+                        resultSet.getLong("events"), resultSet.getLong("items")),
+                args.toArray());
+    }
+
+    private void deleteExpiredHours() {
+        try {
+            Instant threshold = Instant.now().minus(Duration.ofDays(hourRetentionDays)).truncatedTo(ChronoUnit.DAYS);
+            int deleted = jdbcTemplate.update("DELETE FROM activity_rollup WHERE granularity = ? AND bucket_start < ?",
+                    HOUR, Timestamp.from(threshold));
+            if (deleted > 0) {
+                logger.info("Deleted {} expired hourly rollups", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Error deleting expired hourly rollups", e);
+        }
+    }
+
+    private String outcome(MessageRow row) {
+        String type = row.type();
+        if (type.equals("pull_request closed")) {
+            JsonNode merged = content(row).at("/pull_request/merged");
+            return merged.asBoolean(false) ? "merged" : "closed";
+        }
+
+        int space = type.indexOf(' ');
+        String pointer = OUTCOMES.get(space < 0 ? type : type.substring(0, space));
+        if (pointer == null) {
+            return "";
+        }
+        JsonNode outcome = content(row).at(pointer);
+        return outcome.isTextual() ? outcome.asText() : "";
+    }
+
+    private long items(MessageRow row) {
+        if (!row.type().equals("push")) {
+            return 1;
+        }
+        JsonNode content = content(row);
+        // the shaper truncates long commit lists and keeps their length
+        if (content.path("commits_total").isIntegralNumber()) {
+            return content.get("commits_total").asLong();
+        }
+        return content.path("commits").size();
+    }
+
+    private JsonNode content(MessageRow row) {
+        if (row.content() == null) {
+            return objectMapper.missingNode();
+        }
+        try {
+            return objectMapper.readTree(row.content());
+        } catch (IOException e) {
+            return objectMapper.missingNode();
+        }
+    }
+
+    private String getUpsertSql() {
+        if (upsertSql == null) {
+            upsertSql = DatabaseDialect.of(jdbcTemplate).upsertRollupSql();
+        }
+        return upsertSql;
+    }
+
+    static Instant bucketStart(Instant timestamp, String granularity) {
+        return timestamp.truncatedTo(HOUR.equals(granularity) ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static UUID user(UUID userId) {
+        return UNKNOWN_USER.equals(userId) ? null : userId;
+    }
+
+    private record Key(UUID projectId, String granularity, Instant bucketStart, String type, String outcome,
+                       UUID userId) implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::projectId)
+                .thenComparing(Key::granularity)
+                .thenComparing(Key::bucketStart)
+                .thenComparing(Key::type)
+                .thenComparing(Key::outcome)
+                .thenComparing(Key::userId);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
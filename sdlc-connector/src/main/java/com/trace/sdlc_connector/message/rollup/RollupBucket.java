@@ -0,0 +1,14 @@
+package com.trace.sdlc_connector.message.rollup;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The counters of one rollup row.
+ *
+ * @param bucket the start of the hour or day, null for totals over the requested range
+ * @param userId null for events of unmapped users
+ * @param items  commits of pushes, otherwise the number of events
+ */
+public record RollupBucket(Instant bucket, String type, String outcome, UUID userId, long events, long items) {
+}
@@ -0,0 +1,49 @@
+package com.trace.sdlc_connector.message.rollup;
+
+import com.trace.sdlc_connector.security.SecurityService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+@Profile({"persist", "pipeline"})
+class RollupController {
+
+    private final ActivityRollups activityRollups;
+    private final SecurityService securityService;
+
+    RollupController(ActivityRollups activityRollups, SecurityService securityService) {
+        this.activityRollups = activityRollups;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Returns the message counters of a project per hour or day, ordered by bucket. With total=true the buckets of
+     * the range are summed per type, outcome and user, e.g. the merged pull requests of a sprint with
+     * {@code type=pull_request closed&from=...&to=...&total=true}.
+     */
+    @GetMapping("projects/{projectId}/rollups")
+    public ResponseEntity<?> getRollups(
+            @PathVariable UUID projectId,
+            @RequestParam(defaultValue = ActivityRollups.DAY) String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(defaultValue = "false") boolean total) {
+        if (!securityService.hasProjectAccess(projectId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied to project with ID: " + projectId);
+        }
+
+        try {
+            return ResponseEntity.ok(activityRollups.query(projectId, granularity, from, to, type, userId, total));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
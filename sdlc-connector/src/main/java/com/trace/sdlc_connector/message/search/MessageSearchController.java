@@ -0,0 +1,53 @@
+package com.trace.sdlc_connector.message.search;
+
+import com.trace.sdlc_connector.security.SecurityService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@Profile({"persist", "pipeline"})
+class MessageSearchController {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 1000;
+
+    private final MessageSearchIndex messageSearchIndex;
+    private final SecurityService securityService;
+
+    MessageSearchController(MessageSearchIndex messageSearchIndex, SecurityService securityService) {
+        this.messageSearchIndex = messageSearchIndex;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Searches the stored messages of a project, e.g. {@code q=number:42} or {@code q=auth&type=pull_request}.
+     * Returns the best matching messages first.
+     */
+    @GetMapping("projects/{projectId}/messages/search")
+    public ResponseEntity<?> search(@PathVariable UUID projectId,
+                                    @RequestParam String q,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(required = false) Integer limit) throws IOException {
+        if (!securityService.hasProjectAccess(projectId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied to project with ID: " + projectId);
+        }
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (!messageSearchIndex.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("The search index is disabled");
+        }
+
+        try {
+            return ResponseEntity.ok(messageSearchIndex.search(projectId, q, type,
+                    limit != null ? limit : DEFAULT_LIMIT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.trace.sdlc_connector.message.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.message.persist.MessageRow;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded Lucene index of the stored messages, so exact questions like "issue 42" or "PRs touching auth" are
+ * answered from the index instead of scanning the jsonb content. Messages are indexed when they are stored (by
+ * {@link com.trace.sdlc_connector.message.persist.MessagePersist} and the MessagePipeline), replayed messages replace
+ * their document. The index is off by default; when enabled it lives in trace.sdlc.search.dir, which should be a
+ * persistent volume, and is rebuilt from message_entity when it is empty on startup (a full scan of the messages).
+ * With several instances each keeps its own index of all messages it stored or rebuilt.
+ * <p>
+ * Titles, bodies, comments, commit messages, branch names, user logins and issue/pull request numbers are indexed,
+ * found by their key anywhere in the content. New messages become searchable after trace.sdlc.search.refresh-ms.
+ */
+@Component
+@Profile({"persist", "pipeline"})
+public class MessageSearchIndex implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    static final String ID = "id";
+    static final String PROJECT = "project";
+    static final String TYPE = "type";
+    static final String TIMESTAMP = "timestamp";
+    static final String SUMMARY = "summary";
+    static final String TITLE = "title";
+    static final String BODY = "body";
+    static final String MESSAGE = "message";
+    static final String BRANCH = "branch";
+    static final String USER = "user";
+    static final String NUMBER = "number";
+
+    // searched when a query names no field, titles weigh most; numbers are indexed without positions and only
+    // matched by number: queries, as a phrase query on them fails
+    private static final Map<String, Float> DEFAULT_FIELDS = Map.of(
+            TITLE, 3f, BRANCH, 2f, USER, 2f, MESSAGE, 1f, BODY, 1f
+    );
+
+    private static final Set<String> TITLE_KEYS = Set.of("title", "name");
+    private static final Set<String> BODY_KEYS = Set.of("body", "description");
+    private static final Set<String> BRANCH_KEYS = Set.of("ref", "base_ref", "head_branch", "master_branch");
+    private static final Set<String> USER_KEYS = Set.of("login", "username");
+    private static final Set<String> NUMBER_KEYS = Set.of("number", "run_number");
+    // objects whose name is the name of a person, not of the event's subject
+    private static final Set<String> PERSON_OBJECTS = Set.of("sender", "author", "committer", "pusher", "user",
+            "assignee", "requested_reviewer", "actor", "triggering_actor", "creator");
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path dir;
+    private final long refreshMillis;
+    private final long commitIntervalSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StandardAnalyzer analyzer = new StandardAnalyzer();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    private final AtomicLong indexedMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+
+    private final ScheduledExecutorService maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "message-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MessageSearchIndex(JdbcTemplate jdbcTemplate,
+                              @Value("${trace.sdlc.search.enabled:false}") boolean enabled,
+                              @Value("${trace.sdlc.search.dir:}") String dir,
+                              @Value("${trace.sdlc.search.refresh-ms:1000}") long refreshMillis,
+                              @Value("${trace.sdlc.search.commit-interval-seconds:60}") long commitIntervalSeconds) {
+        if (enabled && (dir == null || dir.isBlank())) {
+            throw new IllegalStateException("trace.sdlc.search.dir is required when the search index is enabled");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.refreshMillis = refreshMillis;
+        this.commitIntervalSeconds = commitIntervalSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        directory = FSDirectory.open(dir);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+
+        boolean empty = writer.getDocStats().numDocs == 0;
+        maintainer.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        maintainer.scheduleWithFixedDelay(this::commit, commitIntervalSeconds, commitIntervalSeconds,
+                TimeUnit.SECONDS);
+        if (empty) {
+            maintainer.execute(this::rebuild);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the stored messages to the index, replacing the documents of messages with the same id.
+     */
+    public void index(List<MessageRow> rows) {
+        if (!enabled) {
+            return;
+        }
+
+        for (MessageRow row : rows) {
+            try {
+                writer.updateDocument(new Term(ID, row.id().toString()), document(row));
+                indexedMessages.incrementAndGet();
+            } catch (Exception e) {
+                // the message is stored, it is only not searchable
+                failedMessages.incrementAndGet();
+                logger.warn("Could not index message {}", row.id(), e);
+            }
+        }
+    }
+
+    /**
+     * Searches the messages of a project, best matches first.
+     *
+     * @param query Lucene query syntax; terms without a field are searched in the titles, branches, users, commit
+     *              messages and bodies, e.g. {@code auth} or {@code user:octocat}; numbers only with {@code number:42}
+     * @param type  only messages of this type (e.g. "push") or types starting with it and a space (e.g. "issues")
+     * @throws IllegalArgumentException if the query can not be parsed or run
+     */
+    public List<SearchHit> search(UUID projectId, String query, String type, int limit) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("The search index is disabled");
+        }
+
+        Query parsed;
+        try {
+            var parser = new MultiFieldQueryParser(DEFAULT_FIELDS.keySet().toArray(String[]::new), analyzer,
+                    DEFAULT_FIELDS);
+            parsed = parser.parse(query);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid query: " + e.getMessage());
+        }
+
+        var filtered = new BooleanQuery.Builder()
+                .add(parsed, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(PROJECT, projectId.toString())), BooleanClause.Occur.FILTER);
+        if (type != null) {
+            filtered.add(new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.SHOULD)
+                    .add(new PrefixQuery(new Term(TYPE, type + " ")), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            // equally relevant messages newest first
+            var sort = new Sort(SortField.FIELD_SCORE, new SortField(TIMESTAMP, SortField.Type.LONG, true));
+            TopDocs top;
+            try {
+                top = searcher.search(filtered.build(), limit, sort, true);
+            } catch (IllegalStateException | IndexSearcher.TooManyClauses e) {
+                // e.g. a phrase on a field without positions or a wildcard expanding to too many terms
+                throw new IllegalArgumentException("Invalid query: " + e.getMessage());
+            }
+
+            List<SearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document document = storedFields.document(scoreDoc.doc);
+                hits.add(new SearchHit(
+                        UUID.fromString(document.get(ID)),
+                        document.get(TYPE),
+                        document.getField(TIMESTAMP).numericValue().longValue(),
+                        document.get(SUMMARY),
+                        scoreDoc.score
+                ));
+            }
+            return hits;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Makes the indexed messages searchable.
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (Exception e) {
+            logger.warn("Could not refresh the search index", e);
+        }
+    }
+
+    public long getIndexedMessages() {
+        return indexedMessages.get();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        maintainer.shutdownNow();
+        if (writer != null) {
+            searcherManager.close();
+            // commits the pending documents
+            writer.close();
+            directory.close();
+        }
+    }
+
+    private void commit() {
+        try {
+            writer.commit();
+        } catch (Exception e) {
+            logger.warn("Could not commit the search index", e);
+        }
+    }
+
+    private void rebuild() {
+        logger.info("Rebuilding the empty search index from the stored messages");
+        long before = indexedMessages.get();
+        try {
+            List<UUID> projects = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT project_id FROM message_entity WHERE project_id IS NOT NULL", UUID.class);
+            for (UUID projectId : projects) {
+                rebuild(projectId);
+            }
+            writer.commit();
+            refresh();
+            logger.info("Rebuilt the search index with {} messages", indexedMessages.get() - before);
+        } catch (Exception e) {
+            logger.error("Error rebuilding the search index", e);
+        }
+    }
+
+    private void rebuild(UUID projectId) {
+        String select = "SELECT id, type, user_id, timestamp, project_id, content FROM message_entity " +
+                "WHERE project_id = ? ";
+        String order = "ORDER BY timestamp, id LIMIT " + REBUILD_PAGE_SIZE;
+        RowMapper<MessageRow> rowMapper = (resultSet, rowNum) -> new MessageRow(
+                resultSet.getObject("id", UUID.class),
+                resultSet.getString("type"),
+                resultSet.getObject("user_id", UUID.class),
+                resultSet.getTimestamp("timestamp"),
+                resultSet.getObject("project_id", UUID.class),
+                resultSet.getString("content")
+        );
+
+        // pages in the order of the project index, so no page sorts the table
+        List<MessageRow> page = jdbcTemplate.query(select + order, rowMapper, projectId);
+        while (true) {
+            index(page);
+            if (page.size() < REBUILD_PAGE_SIZE || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            MessageRow last = page.getLast();
+            page = jdbcTemplate.query(select + "AND (timestamp > ? OR (timestamp = ? AND id > ?)) " + order,
+                    rowMapper, projectId, last.timestamp(), last.timestamp(), last.id());
+        }
+    }
+
+    private Document document(MessageRow row) throws IOException {
+        var document = new Document();
+        document.add(new StringField(ID, row.id().toString(), Field.Store.YES));
+        document.add(new StringField(PROJECT, String.valueOf(row.projectId()), Field.Store.NO));
+        if (row.type() != null) {
+            document.add(new StringField(TYPE, row.type(), Field.Store.YES));
+        }
+        long timestamp = row.timestamp() != null ? row.timestamp().getTime() : 0;
+        document.add(new LongPoint(TIMESTAMP, timestamp));
+        document.add(new NumericDocValuesField(TIMESTAMP, timestamp));
+        document.add(new StoredField(TIMESTAMP, timestamp));
+
+        var fields = new IndexedFields();
+        if (row.content() != null) {
+            collect(objectMapper.readTree(row.content()), null, fields);
+        }
+        fields.add(document);
+        return document;
+    }
+
+    private static void collect(JsonNode node, String key, IndexedFields fields) {
+        if (node.isObject()) {
+            boolean person = key != null && PERSON_OBJECTS.contains(key);
+            node.fields().forEachRemaining(entry -> {
+                if (person && entry.getKey().equals("name") && entry.getValue().isTextual()) {
+                    fields.users.add(entry.getValue().asText());
+                } else {
+                    collect(entry.getValue(), entry.getKey(), fields);
+                }
+            });
+        } else if (node.isArray()) {
+            node.forEach(element -> collect(element, key, fields));
+        } else if (key != null && !node.isNull()) {
+            String value = node.asText();
+            if (TITLE_KEYS.contains(key)) {
+                fields.titles.add(value);
+            } else if (BODY_KEYS.contains(key)) {
+                fields.bodies.add(value);
+            } else if (key.equals(MESSAGE)) {
+                fields.messages.add(value);
+            } else if (BRANCH_KEYS.contains(key)) {
+                fields.branches.add(value.startsWith("refs/heads/") ? value.substring("refs/heads/".length()) : value);
+            } else if (USER_KEYS.contains(key)) {
+                fields.users.add(value);
+            } else if (NUMBER_KEYS.contains(key) && node.isIntegralNumber()) {
+                fields.numbers.add(value);
+            }
+        }
+    }
+
+    /**
+     * The searchable values found in the content of a message.
+     */
+    private static class IndexedFields {
+        final List<String> titles = new ArrayList<>();
+        final List<String> bodies = new ArrayList<>();
+        final List<String> messages = new ArrayList<>();
+        final List<String> branches = new ArrayList<>();
+        final Set<String> users = new LinkedHashSet<>();
+        final Set<String> numbers = new LinkedHashSet<>();
+
+        void add(Document document) {
+            titles.forEach(value -> document.add(new TextField(TITLE, value, Field.Store.NO)));
+            bodies.forEach(value -> document.add(new TextField(BODY, value, Field.Store.NO)));
+            messages.forEach(value -> document.add(new TextField(MESSAGE, value, Field.Store.NO)));
+            branches.forEach(value -> document.add(new TextField(BRANCH, value, Field.Store.NO)));
+            users.forEach(value -> document.add(new TextField(USER, value, Field.Store.NO)));
+            numbers.forEach(value -> document.add(new StringField(NUMBER, value, Field.Store.NO)));
+
+            String summary = !titles.isEmpty() ? titles.getFirst()
+                    : !messages.isEmpty() ? messages.getFirst().lines().findFirst().orElse("")
+                    : !branches.isEmpty() ? branches.getFirst()
+                    : null;
+            if (summary != null) {
+                document.add(new StoredField(SUMMARY, summary));
+            }
+        }
+    }
+}
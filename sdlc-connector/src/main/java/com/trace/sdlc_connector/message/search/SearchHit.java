@@ -0,0 +1,11 @@
+package com.trace.sdlc_connector.message.search;
+
+import java.util.UUID;
+
+/**
+ * A message found by the search index. The full message can be read via the messages API.
+ *
+ * @param summary the title, the first line of the commit message or the branch of the message, if it has one
+ */
+public record SearchHit(UUID id, String type, long timestamp, String summary, float score) {
+}
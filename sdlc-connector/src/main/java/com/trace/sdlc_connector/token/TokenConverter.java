@@ -24,6 +24,8 @@ public class TokenConverter implements AttributeConverter<String, String> {
     @Value("${trace.sdlc.token-secret}")
     private String secretKey;
 
+    private volatile SecretKey key;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     @Override
@@ -96,6 +98,16 @@ public class TokenConverter implements AttributeConverter<String, String> {
     }
 
     private SecretKey getKey() {
+        // the key only depends on the configured secret, so it is derived once
+        SecretKey key = this.key;
+        if (key == null) {
+            key = deriveKey();
+            this.key = key;
+        }
+        return key;
+    }
+
+    private SecretKey deriveKey() {
         // Prepare key with proper length (16, 24, or 32 bytes for AES-128, AES-192, or AES-256)
         byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
         byte[] validKey = new byte[32]; // Using AES-256
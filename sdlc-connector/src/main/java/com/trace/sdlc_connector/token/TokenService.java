@@ -13,10 +13,12 @@ public class TokenService {
 
     private final TokenRepo tokenRepo;
     private final SecurityService securityService;
+    private final WebhookKeyCache webhookKeyCache;
 
-    public TokenService(TokenRepo tokenRepo, SecurityService securityService) {
+    public TokenService(TokenRepo tokenRepo, SecurityService securityService, WebhookKeyCache webhookKeyCache) {
         this.tokenRepo = tokenRepo;
         this.securityService = securityService;
+        this.webhookKeyCache = webhookKeyCache;
     }
 
     public TokenEntity saveToken(@NonNull UUID projectId, @NonNull SupportedSystem supportedSystem, @Nullable String token) {
@@ -30,6 +32,7 @@ public class TokenService {
         } else {
             tokenEntity = tokenRepo.save(tokenEntity);
         }
+        webhookKeyCache.invalidate(projectId, supportedSystem);
 
         return tokenEntity;
     }
@@ -0,0 +1,122 @@
+package com.trace.sdlc_connector.token;
+
+import com.trace.sdlc_connector.SupportedSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches initialized HMAC-SHA256 instances for the webhook secrets of a project, so verifying a webhook neither
+ * queries nor decrypts the tokens and skips the key setup. Projects without secrets are cached as well.
+ * Entries are invalidated when a token is saved and expire after a TTL to pick up changes made elsewhere.
+ * Hits are plain map reads; misses query and decrypt outside of any map lock, so a slow database never blocks
+ * lookups of other projects.
+ */
+@Component
+public class WebhookKeyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookKeyCache.class);
+
+    public static final String ALGORITHM = "HmacSHA256";
+
+    private record Key(UUID projectId, SupportedSystem supportedSystem) {
+    }
+
+    private record Entry(List<Mac> prototypes, long loadedAt) {
+    }
+
+    private final TokenRepo tokenRepo;
+    private final long ttlMillis;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public WebhookKeyCache(TokenRepo tokenRepo,
+                           @Value("${trace.sdlc.webhook.secret-cache-ttl-seconds:300}") long ttlSeconds) {
+        this.tokenRepo = tokenRepo;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Returns ready to use HMAC instances, one per secret of the project. The instances are not shared and may
+     * be used by the calling thread without further synchronization.
+     */
+    public List<Mac> getMacs(UUID projectId, SupportedSystem supportedSystem) {
+        var now = System.currentTimeMillis();
+        var key = new Key(projectId, supportedSystem);
+        var entry = cache.get(key);
+        if (entry == null || now - entry.loadedAt() >= ttlMillis) {
+            entry = reload(key, entry, now);
+        }
+
+        List<Mac> macs = new ArrayList<>(entry.prototypes().size());
+        for (Mac prototype : entry.prototypes()) {
+            macs.add(copy(prototype));
+        }
+        return macs;
+    }
+
+    public void invalidate(UUID projectId, SupportedSystem supportedSystem) {
+        invalidations.incrementAndGet();
+        cache.remove(new Key(projectId, supportedSystem));
+    }
+
+    private Entry reload(Key key, Entry stale, long now) {
+        long generation = invalidations.get();
+        Entry loaded = load(key, now);
+
+        // concurrent misses may load the same key, only one of them replaces the stale entry
+        boolean installed = stale == null ? cache.putIfAbsent(key, loaded) == null : cache.replace(key, stale, loaded);
+        if (installed && invalidations.get() != generation) {
+            // a token was saved while loading, the loaded secrets may already be outdated
+            cache.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    private Entry load(Key key, long now) {
+        List<Mac> prototypes = new ArrayList<>();
+        for (var token : tokenRepo.findAllByProjectIdAndSupportedSystem(key.projectId(), key.supportedSystem())) {
+            if (token.getToken() == null || token.getToken().isEmpty()) {
+                continue;
+            }
+
+            try {
+                prototypes.add(initMac(token.getToken()));
+            } catch (GeneralSecurityException e) {
+                logger.error("Could not initialize webhook key for project {}", key.projectId(), e);
+            }
+        }
+        return new Entry(List.copyOf(prototypes), now);
+    }
+
+    public static Mac initMac(String secret) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        return mac;
+    }
+
+    /**
+     * Returns an instance initialized like the prototype, which may be used without synchronization.
+     */
+    public static Mac copy(Mac prototype) {
+        synchronized (prototype) {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("HMAC implementation does not support cloning", e);
+            }
+        }
+    }
+}
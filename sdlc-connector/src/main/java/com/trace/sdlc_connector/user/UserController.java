@@ -15,9 +15,11 @@ public class UserController {
 
 
     private final UserMappingRepo userMappingRepo;
+    private final UserIdentityCache userIdentityCache;
 
-    public UserController(UserMappingRepo userMappingRepo) {
+    public UserController(UserMappingRepo userMappingRepo, UserIdentityCache userIdentityCache) {
         this.userMappingRepo = userMappingRepo;
+        this.userIdentityCache = userIdentityCache;
     }
 
     @PostMapping("projects/{projectId}/users")
@@ -30,6 +32,7 @@ public class UserController {
 
         userMapping.setProjectId(projectId);
         userMapping = userMappingRepo.save(userMapping);
+        userIdentityCache.invalidate(projectId, userMapping.getPlatform());
 
         return ResponseEntity.ok(userMapping);
     }
@@ -0,0 +1,82 @@
+package com.trace.sdlc_connector.user;
+
+import com.trace.sdlc_connector.SupportedSystem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves platform user ids to trace user ids without a database round trip per event. All mappings of a
+ * project and platform are loaded at once on first use, so unmapped users (e.g. bots) are answered from the
+ * cache as well. Entries are invalidated when a mapping is saved and expire after a TTL to pick up changes
+ * made elsewhere. Hits are plain map reads, misses query outside of any map lock.
+ */
+@Component
+public class UserIdentityCache {
+
+    private record Key(UUID projectId, SupportedSystem platform) {
+    }
+
+    private record Entry(Map<String, UUID> userIds, long loadedAt) {
+    }
+
+    private final UserMappingRepo userMappingRepo;
+    private final long ttlMillis;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserIdentityCache(UserMappingRepo userMappingRepo,
+                             @Value("${trace.sdlc.identity-cache-ttl-seconds:300}") long ttlSeconds) {
+        this.userMappingRepo = userMappingRepo;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * @return The trace user id mapped to the platform user id, or null if the user is not mapped
+     */
+    public UUID resolve(UUID projectId, SupportedSystem platform, String platformUserId) {
+        if (platformUserId == null) {
+            return null;
+        }
+
+        var now = System.currentTimeMillis();
+        var key = new Key(projectId, platform);
+        var entry = cache.get(key);
+        if (entry == null || now - entry.loadedAt() >= ttlMillis) {
+            entry = reload(key, entry, now);
+        }
+
+        return entry.userIds().get(platformUserId);
+    }
+
+    public void invalidate(UUID projectId, SupportedSystem platform) {
+        invalidations.incrementAndGet();
+        cache.remove(new Key(projectId, platform));
+    }
+
+    private Entry reload(Key key, Entry stale, long now) {
+        long generation = invalidations.get();
+        Entry loaded = load(key, now);
+
+        // concurrent misses may load the same key, only one of them replaces the stale entry
+        boolean installed = stale == null ? cache.putIfAbsent(key, loaded) == null : cache.replace(key, stale, loaded);
+        if (installed && invalidations.get() != generation) {
+            // a mapping was saved while loading, the loaded mappings may already be outdated
+            cache.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    private Entry load(Key key, long now) {
+        Map<String, UUID> userIds = new HashMap<>();
+        for (var mapping : userMappingRepo.findAllByProjectIdAndPlatform(key.projectId(), key.platform())) {
+            userIds.putIfAbsent(mapping.getPlatformUserId(), mapping.getUserId());
+        }
+        return new Entry(Map.copyOf(userIds), now);
+    }
+}
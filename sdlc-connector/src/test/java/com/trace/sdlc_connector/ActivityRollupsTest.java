@@ -0,0 +1,137 @@
+package com.trace.sdlc_connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(MockKeycloakConfig.class)
+class ActivityRollupsTest {
+
+    private static final Instant MONDAY = Instant.parse("2024-03-04T09:15:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UUID projectId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void countsMessagesPerBucket() throws Exception {
+        store(UUID.randomUUID(), "push", userId, MONDAY, Map.of("commits", List.of(Map.of(), Map.of())));
+        store(UUID.randomUUID(), "push", userId, MONDAY.plus(Duration.ofMinutes(50)),
+                Map.of("commits", List.of(Map.of()), "commits_total", 5));
+        store(UUID.randomUUID(), "push", null, MONDAY.plus(Duration.ofDays(1)), Map.of("commits", List.of(Map.of())));
+        UUID merged = UUID.randomUUID();
+        store(merged, "pull_request closed", userId, MONDAY, Map.of("pull_request", Map.of("merged", true)));
+        store(UUID.randomUUID(), "pull_request closed", userId, MONDAY, Map.of("pull_request", Map.of("merged", false)));
+        store(UUID.randomUUID(), "workflow_run completed", null, MONDAY,
+                Map.of("workflow_run", Map.of("conclusion", "failure")));
+        // a redelivery is not counted again
+        store(merged, "pull_request closed", userId, MONDAY, Map.of("pull_request", Map.of("merged", true)));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        List<JsonNode> hours = rollups(get("/projects/{projectId}/rollups", projectId)
+                .param("granularity", "hour")
+                .param("type", "push")
+                .param("userId", userId.toString()));
+        assertThat(hours).hasSize(2);
+        assertThat(hours.getFirst().get("bucket").asText()).isEqualTo("2024-03-04T09:00:00Z");
+        assertThat(hours.getFirst().get("items").asLong()).isEqualTo(2);
+        assertThat(hours.get(1).get("bucket").asText()).isEqualTo("2024-03-04T10:00:00Z");
+        assertThat(hours.get(1).get("items").asLong()).isEqualTo(5);
+
+        List<JsonNode> days = rollups(get("/projects/{projectId}/rollups", projectId).param("type", "push"));
+        assertThat(days).hasSize(2);
+        assertThat(days.getFirst().get("events").asLong()).isEqualTo(2);
+        assertThat(days.getFirst().get("items").asLong()).isEqualTo(7);
+        assertThat(days.get(1).get("userId").isNull()).isTrue();
+
+        List<JsonNode> pullRequests = rollups(get("/projects/{projectId}/rollups", projectId)
+                .param("type", "pull_request")
+                .param("from", "2024-03-04T00:00:00Z")
+                .param("to", "2024-03-18T00:00:00Z")
+                .param("total", "true"));
+        assertThat(pullRequests).hasSize(2);
+        assertThat(pullRequests.getFirst().get("outcome").asText()).isEqualTo("closed");
+        assertThat(pullRequests.get(1).get("outcome").asText()).isEqualTo("merged");
+        assertThat(pullRequests.get(1).get("events").asLong()).isEqualTo(1);
+        assertThat(pullRequests.get(1).get("bucket").isNull()).isTrue();
+
+        List<JsonNode> workflows = rollups(get("/projects/{projectId}/rollups", projectId)
+                .param("type", "workflow_run"));
+        assertThat(workflows).hasSize(1);
+        assertThat(workflows.getFirst().get("outcome").asText()).isEqualTo("failure");
+    }
+
+    @Test
+    void movesCountersOfReplayedMessage() throws Exception {
+        UUID pullRequest = UUID.randomUUID();
+        store(pullRequest, "pull_request closed", null, MONDAY, Map.of("pull_request", Map.of("merged", false)));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        // replayed after the user was mapped, with the pull request merged
+        messagePersist.replayMessage(projectId, new Message(
+                new Metadata(pullRequest, "pull_request closed", userId, MONDAY.toEpochMilli(), projectId),
+                Map.of("pull_request", Map.of("merged", true))));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        List<JsonNode> pullRequests = rollups(get("/projects/{projectId}/rollups", projectId)
+                .param("type", "pull_request"));
+        assertThat(pullRequests).extracting(bucket -> bucket.get("outcome").asText() + "/"
+                        + bucket.get("userId").asText() + "/" + bucket.get("events").asLong())
+                .containsExactlyInAnyOrder("closed/null/0", "merged/" + userId + "/1");
+    }
+
+    @Test
+    void rejectsUnknownGranularity() throws Exception {
+        mockMvc.perform(get("/projects/{projectId}/rollups", projectId)
+                        .param("granularity", "week")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void store(UUID eventId, String type, UUID userId, Instant timestamp, Map<String, Object> content) {
+        messagePersist.processMessage(projectId, new Message(
+                new Metadata(eventId, type, userId, timestamp.toEpochMilli(), projectId), content));
+    }
+
+    private List<JsonNode> rollups(MockHttpServletRequestBuilder request) throws Exception {
+        var response = mockMvc.perform(request
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        return objectMapper.readerForListOf(JsonNode.class).readValue(response.getContentAsString());
+    }
+}
@@ -0,0 +1,173 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.CiEventCoalescer;
+import com.trace.sdlc_connector.github.DeliveryDedupStore;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.MessageProcessor;
+import com.trace.sdlc_connector.message.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CiEventCoalescerTest {
+
+    private final List<Message> processed = new CopyOnWriteArrayList<>();
+
+    private final MessageProcessor messageProcessor = new MessageProcessor() {
+        @Override
+        public void processMessage(UUID projectId, Message message) {
+            processed.add(message);
+        }
+    };
+
+    private final DeliveryDedupStore dedupStore = new DeliveryDedupStore(60, 100, false, null);
+
+    private final UUID projectId = UUID.randomUUID();
+
+    @Test
+    void summarizesWorkflowRun() {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 60_000, 600_000, 100);
+
+        UUID firstEventId = UUID.randomUUID();
+        assertThat(coalescer.offer(projectId, workflowRun(firstEventId, "requested", 1, "queued"))).isTrue();
+        coalescer.offer(projectId, workflowJob("queued", 2, 10, "queued", null));
+        coalescer.offer(projectId, workflowJob("completed", 4, 10, "completed", "failure"));
+        // deliveries can be out of order, an older state does not replace a newer one
+        coalescer.offer(projectId, workflowJob("in_progress", 3, 10, "in_progress", null));
+        coalescer.offer(projectId, workflowJob("completed", 5, 11, "completed", "success"));
+        coalescer.offer(projectId, workflowRun(UUID.randomUUID(), "completed", 6, "completed"));
+
+        assertThat(processed).isEmpty();
+        assertThat(coalescer.getPendingGroups()).isEqualTo(1);
+        coalescer.flush();
+
+        assertThat(processed).hasSize(1);
+        Message summary = processed.getFirst();
+        assertThat(summary.getMetadata().getType()).isEqualTo("workflow_run summary");
+        assertThat(summary.getMetadata().getEventId()).isEqualTo(firstEventId);
+        assertThat(summary.getMetadata().getTimestamp()).isEqualTo(6);
+
+        Map<String, Object> content = summary.getContent();
+        assertThat(content.get("coalesced_events")).isEqualTo(6);
+        assertThat(((Map<?, ?>) content.get("workflow_run")).get("status")).isEqualTo("completed");
+
+        List<?> jobs = (List<?>) content.get("jobs");
+        assertThat(jobs).hasSize(2);
+        Map<?, ?> failedJob = (Map<?, ?>) jobs.getFirst();
+        assertThat(failedJob.get("conclusion")).isEqualTo("failure");
+        assertThat(failedJob.get("failed_steps")).isEqualTo(List.of("Test"));
+        assertThat(failedJob.containsKey("steps")).isFalse();
+
+        assertThat(coalescer.getCoalescedEvents()).isEqualTo(6);
+        assertThat(coalescer.getEmittedSummaries()).isEqualTo(1);
+        coalescer.shutdown();
+    }
+
+    @Test
+    void summarizesStatusesOfCommit() {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 60_000, 600_000, 100);
+
+        coalescer.offer(projectId, status("ci/build", "pending", 1));
+        coalescer.offer(projectId, status("ci/lint", "success", 2));
+        coalescer.offer(projectId, status("ci/build", "success", 3));
+        coalescer.flush();
+
+        assertThat(processed).hasSize(1);
+        assertThat(processed.getFirst().getMetadata().getType()).isEqualTo("status summary");
+        List<?> statuses = (List<?>) processed.getFirst().getContent().get("statuses");
+        assertThat(statuses).extracting(status -> (Object) ((Map<?, ?>) status).get("state"))
+                .containsExactly("success", "success");
+        coalescer.shutdown();
+    }
+
+    @Test
+    void emitsAfterQuietWindow() throws Exception {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 50, 600_000, 100);
+
+        coalescer.offer(projectId, workflowRun(UUID.randomUUID(), "completed", 1, "completed"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (processed.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(processed).hasSize(1);
+        assertThat(coalescer.getPendingGroups()).isZero();
+        coalescer.shutdown();
+    }
+
+    @Test
+    void evictsOldestGroup() {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 60_000, 600_000, 1);
+
+        coalescer.offer(projectId, status("ci/build", "pending", 1));
+        coalescer.offer(projectId, workflowRun(UUID.randomUUID(), "requested", 2, "queued"));
+
+        assertThat(processed).extracting(message -> message.getMetadata().getType())
+                .containsExactly("status summary");
+        coalescer.shutdown();
+    }
+
+    @Test
+    void acceptsRedeliveryUntilSummaryIsProcessed() {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 60_000, 600_000, 100);
+        UUID deliveryId = UUID.randomUUID();
+        assertThat(dedupStore.markDelivered(deliveryId)).isTrue();
+
+        coalescer.offer(projectId, workflowRun(UUID.randomUUID(), "requested", 1, "queued"), deliveryId);
+        // the held event would be lost on a crash, so a redelivery has to pass
+        assertThat(dedupStore.markDelivered(deliveryId)).isTrue();
+        // and is not counted twice while the run is held
+        coalescer.offer(projectId, workflowRun(UUID.randomUUID(), "requested", 1, "queued"), deliveryId);
+
+        coalescer.flush();
+        assertThat(processed).hasSize(1);
+        assertThat(processed.getFirst().getContent().get("coalesced_events")).isEqualTo(1);
+        assertThat(dedupStore.markDelivered(deliveryId)).isFalse();
+        coalescer.shutdown();
+    }
+
+    @Test
+    void passesOtherEvents() {
+        var coalescer = new CiEventCoalescer(messageProcessor, dedupStore, true, 60_000, 600_000, 100);
+        assertThat(coalescer.offer(projectId, message("push", 1, new HashMap<>()))).isFalse();
+
+        var disabled = new CiEventCoalescer(messageProcessor, dedupStore, false, 60_000, 600_000, 100);
+        assertThat(disabled.offer(projectId, status("ci/build", "pending", 1))).isFalse();
+
+        coalescer.shutdown();
+        disabled.shutdown();
+        assertThat(processed).isEmpty();
+    }
+
+    private Message workflowRun(UUID eventId, String action, long timestamp, String status) {
+        Map<String, Object> content = new HashMap<>();
+        content.put("workflow_run", new HashMap<>(Map.of("id", 7, "run_attempt", 1, "status", status)));
+        content.put("workflow", Map.of("id", 3, "name", "CI"));
+        return new Message(new Metadata(eventId, "workflow_run " + action, null, timestamp, projectId), content);
+    }
+
+    private Message workflowJob(String action, long timestamp, int jobId, String status, String conclusion) {
+        Map<String, Object> job = new HashMap<>(Map.of("id", jobId, "run_id", 7, "run_attempt", 1, "status", status));
+        if (conclusion != null) {
+            job.put("conclusion", conclusion);
+            job.put("steps", List.of(
+                    Map.of("name", "Build", "conclusion", "success"),
+                    Map.of("name", "Test", "conclusion", conclusion)));
+        }
+        Map<String, Object> content = new HashMap<>();
+        content.put("workflow_job", job);
+        return message("workflow_job " + action, timestamp, content);
+    }
+
+    private Message status(String context, String state, long timestamp) {
+        Map<String, Object> content = new HashMap<>(Map.of("sha", "abc123", "context", context, "state", state));
+        return message("status", timestamp, content);
+    }
+
+    private Message message(String type, long timestamp, Map<String, Object> content) {
+        return new Message(new Metadata(UUID.randomUUID(), type, null, timestamp, projectId), content);
+    }
+}
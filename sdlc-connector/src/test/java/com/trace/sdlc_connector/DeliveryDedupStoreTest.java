@@ -0,0 +1,48 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.DeliveryDedupStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryDedupStoreTest {
+
+    @Test
+    void absorbsRedeliveries() {
+        var store = new DeliveryDedupStore(60, 100, false, null);
+        var deliveryId = UUID.randomUUID();
+
+        assertThat(store.markDelivered(deliveryId)).isTrue();
+        assertThat(store.markDelivered(deliveryId)).isFalse();
+        assertThat(store.markDelivered(UUID.randomUUID())).isTrue();
+
+        assertThat(store.getAccepted()).isEqualTo(2);
+        assertThat(store.getDuplicates()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsOldestDeliveriesWhenFull() {
+        var store = new DeliveryDedupStore(60, 2, false, null);
+        var first = UUID.randomUUID();
+
+        store.markDelivered(first);
+        store.markDelivered(UUID.randomUUID());
+        store.markDelivered(UUID.randomUUID());
+
+        assertThat(store.getSize()).isEqualTo(2);
+        assertThat(store.markDelivered(first)).isTrue();
+    }
+
+    @Test
+    void acceptsForgottenDeliveries() {
+        var store = new DeliveryDedupStore(60, 100, false, null);
+        var deliveryId = UUID.randomUUID();
+
+        store.markDelivered(deliveryId);
+        store.forget(deliveryId);
+
+        assertThat(store.markDelivered(deliveryId)).isTrue();
+    }
+}
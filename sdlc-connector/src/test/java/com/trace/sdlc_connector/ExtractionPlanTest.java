@@ -0,0 +1,78 @@
+package com.trace.sdlc_connector;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtractionPlanTest {
+
+    private static final byte[] PAYLOAD = """
+            {
+              "action": "opened",
+              "number": 42,
+              "repository": {"id": 1, "owner": {"login": "octocat"}, "topics": ["a", "b"]},
+              "issue": {"id": 7, "title": "Bug", "labels": [{"name": "bug"}], "milestone": null},
+              "sender": {"id": 95364200, "login": "octocat"},
+              "changes": null,
+              "branches": [{"name": "main"}]
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void extractsNestedContent() throws Exception {
+        var plan = ExtractionPlan.content("$.sender.id", "$.sender.login", "$.issue.id", "$.issue.title", "$.number");
+
+        var result = plan.extract(PAYLOAD);
+
+        assertThat(result.content()).isEqualTo(Map.of(
+                "sender", Map.of("id", 95364200, "login", "octocat"),
+                "issue", Map.of("id", 7, "title", "Bug"),
+                "number", 42
+        ));
+    }
+
+    @Test
+    void capturesWholeSubtrees() throws Exception {
+        var plan = ExtractionPlan.content("$.issue", "$.issue.id");
+
+        var issue = (Map<?, ?>) plan.extract(PAYLOAD).content().get("issue");
+
+        assertThat(issue.get("id")).isEqualTo(7);
+        assertThat(issue.get("labels")).isEqualTo(List.of(Map.of("name", "bug")));
+        assertThat(issue.containsKey("milestone")).isTrue();
+    }
+
+    @Test
+    void leavesOutMissingAndNullValues() throws Exception {
+        var plan = ExtractionPlan.content("$.changes", "$.assignee.id", "$.issue.milestone.id", "changes");
+
+        assertThat(plan.extract(PAYLOAD).content()).isEmpty();
+    }
+
+    @Test
+    void readsFieldsWithoutCopyingThemIntoContent() throws Exception {
+        var plan = ExtractionPlan.content("$.sender.login").fields("$.action", "$.sender.id", "$.branches");
+
+        var result = plan.extract(PAYLOAD);
+
+        assertThat(result.content()).isEqualTo(Map.of("sender", Map.of("login", "octocat")));
+        assertThat(result.read("$.action", String.class)).isEqualTo("opened");
+        assertThat(result.read("$.sender.id", String.class)).isEqualTo("95364200");
+        assertThat(result.read("$.branches", List.class)).isEqualTo(List.of(Map.of("name", "main")));
+        assertThat(result.read("$.ref_type", String.class)).isNull();
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        var plan = ExtractionPlan.content("$.sender.id");
+
+        assertThatThrownBy(() -> plan.extract("{\"sender\": ".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class);
+    }
+}
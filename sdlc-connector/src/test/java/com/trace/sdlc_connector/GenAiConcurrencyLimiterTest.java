@@ -0,0 +1,87 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.message.forward.GenAiConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenAiConcurrencyLimiterTest {
+
+    @Test
+    void decreasesLimitOnErrors() {
+        var limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 2.0, 100, 1000);
+
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw new IllegalStateException("GenAI unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    void increasesLimitWhenSaturated() {
+        var limiter = new GenAiConcurrencyLimiter(1, 1, 64, 0.5, 2.0, 100, 1000);
+
+        limiter.execute(() -> "ok");
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void adaptsLatencyThresholdToEndpoint() {
+        var limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 3.0, 1, 1000);
+
+        // uniformly slow calls raise the threshold instead of cutting the limit
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> sleep(30));
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        assertThat(limiter.getLatencyThresholdMillis()).isGreaterThanOrEqualTo(90);
+
+        limiter.execute(() -> sleep(300));
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shedsRequestsOverTheLimit() throws Exception {
+        var limiter = new GenAiConcurrencyLimiter(1, 1, 1, 0.5, 2.0, 100, 50);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiter.execute(() -> {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> limiter.execute(() -> "ok"))
+                    .isInstanceOf(GenAiConcurrencyLimiter.LimitExceededException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.trace.sdlc_connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.persist.MessageEntity;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.message.persist.MessageRepo;
+import com.trace.sdlc_connector.token.TokenEntity;
+import com.trace.sdlc_connector.token.TokenRepo;
+import com.trace.sdlc_connector.utils.JwtUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(MockKeycloakConfig.class)
+class GithubBackfillTest {
+
+    private static final String TOKEN = "github-api-token";
+
+    // a local stub of the GitHub REST API, serving one repository
+    private static HttpServer github;
+    private static final Map<String, String> authorizations = new ConcurrentHashMap<>();
+    private static volatile boolean issueAdded = false;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessageRepo messageRepo;
+
+    @Autowired
+    private TokenRepo tokenRepo;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startGithub() throws IOException {
+        github = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        github.createContext("/repos/octo/repo/", GithubBackfillTest::serve);
+        github.start();
+    }
+
+    @AfterAll
+    static void stopGithub() {
+        github.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void githubProperties(DynamicPropertyRegistry registry) {
+        registry.add("trace.sdlc.github.api-url", () -> "http://localhost:" + github.getAddress().getPort());
+    }
+
+    @Test
+    void importsRepositoryHistory() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        tokenRepo.save(new TokenEntity(TOKEN, projectId, SupportedSystem.GITHUB));
+
+        JsonNode job = runBackfill(projectId);
+        assertThat(job.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("importedEvents").asInt()).isEqualTo(5);
+        assertThat(authorizations.get("/repos/octo/repo/issues")).isEqualTo("Bearer " + TOKEN);
+
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        var types = messageRepo.findAllByProjectId(projectId).stream().map(MessageEntity::getType).toList();
+        assertThat(types).containsExactlyInAnyOrder(
+                "issues opened", "issues opened", "issues closed", "push", "workflow_run completed");
+
+        // unchanged pages are answered with 304 and nothing is imported again
+        JsonNode repeated = runBackfill(projectId);
+        assertThat(repeated.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(repeated.get("importedEvents").asInt()).isZero();
+        assertThat(repeated.get("notModifiedPages").asInt()).isEqualTo(5);
+
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        assertThat(messageRepo.findAllByProjectId(projectId)).hasSize(5);
+
+        // issues are listed oldest first, a new one is added to the last page while the first is unchanged
+        issueAdded = true;
+        try {
+            JsonNode updated = runBackfill(projectId);
+            assertThat(updated.get("state").asText()).isEqualTo("COMPLETED");
+            // the changed page is imported again, its known events are not stored twice
+            assertThat(updated.get("importedEvents").asInt()).isEqualTo(3);
+        } finally {
+            issueAdded = false;
+        }
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        assertThat(messageRepo.findAllByProjectId(projectId)).hasSize(6);
+    }
+
+    @Test
+    void rejectsInvalidRepository() throws Exception {
+        UUID projectId = UUID.randomUUID();
+
+        mockMvc.perform(post("/projects/{projectId}/backfill/github", projectId)
+                        .param("owner", "octo")
+                        .param("repository", "../repo")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode runBackfill(UUID projectId) throws Exception {
+        String jwt = jwtUtils.constructJWT(UUID.randomUUID(), projectId);
+        var started = mockMvc.perform(post("/projects/{projectId}/backfill/github", projectId)
+                        .param("owner", "octo")
+                        .param("repository", "repo")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse();
+        String jobId = objectMapper.readTree(started.getContentAsString()).get("id").asText();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            var response = mockMvc.perform(get("/projects/{projectId}/backfill/github/{jobId}", projectId, jobId)
+                            .header("Authorization", "Bearer " + jwt))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            JsonNode job = objectMapper.readTree(response.getContentAsString());
+            if (!"RUNNING".equals(job.get("state").asText()) || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization != null) {
+            authorizations.put(path, authorization);
+        }
+
+        boolean secondPage = query != null && query.endsWith("&page=2");
+        String base = "http://localhost:" + github.getAddress().getPort() + path;
+        String link = null;
+
+        String body = switch (path) {
+            case "/repos/octo/repo/issues" -> {
+                if (secondPage) {
+                    yield "[" + issue(2, "2024-01-02T00:00:00Z") + (issueAdded ? ", " + issue(4, null) : "") + "]";
+                }
+                link = "<" + base + "?" + query + "&page=2>; rel=\"next\", <" + base + "?" + query + "&page=2>; rel=\"last\"";
+                // the issues endpoint also lists pull requests, they are imported from the pulls endpoint
+                yield "[" + issue(1, null) + ", {\"id\": 3, \"pull_request\": {}, \"created_at\": \"2024-01-01T00:00:00Z\"}]";
+            }
+            case "/repos/octo/repo/pulls" -> "[]";
+            case "/repos/octo/repo/commits" -> """
+                    [{"sha": "abc123", "html_url": "https://github.com/octo/repo/commit/abc123",
+                      "commit": {"message": "Initial commit", "author": {"name": "Octo", "email": "octo@example.com", "date": "2024-01-01T10:00:00Z"}},
+                      "author": {"id": 42, "login": "octo"}}]""";
+            case "/repos/octo/repo/actions/runs" -> """
+                    {"total_count": 1, "workflow_runs": [{"id": 7, "name": "CI", "status": "completed", "conclusion": "success",
+                      "created_at": "2024-01-01T10:00:00Z", "updated_at": "2024-01-01T10:05:00Z",
+                      "actor": {"id": 42, "login": "octo"}, "repository": {"id": 1, "full_name": "octo/repo"}}]}""";
+            default -> null;
+        };
+
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        String etag = "\"" + path.hashCode() + "-" + secondPage + "-" + (secondPage && issueAdded) + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4999");
+        if (link != null) {
+            exchange.getResponseHeaders().add("Link", link);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String issue(int number, String closedAt) {
+        return """
+                {"id": %d, "number": %d, "title": "Issue %d", "state": "%s", "created_at": "2024-01-01T00:00:00Z",
+                 "closed_at": %s, "user": {"id": 42, "login": "octo"}}"""
+                .formatted(number, number, number, closedAt == null ? "open" : "closed",
+                        closedAt == null ? "null" : "\"" + closedAt + "\"");
+    }
+}
@@ -0,0 +1,87 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.forward.GenAiClient;
+import com.trace.sdlc_connector.message.forward.GenAiConcurrencyLimiter;
+import com.trace.sdlc_connector.message.forward.MessageForward;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class MessageForwardTest {
+
+    private static final String GENAI_URL = "http://genai";
+
+    private final RestClient.Builder restClientBuilder = RestClient.builder();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restClientBuilder).build();
+    private final GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 2.0, 100, 1000);
+
+    @Test
+    void flushesFullBatches() throws Exception {
+        server.expect(requestTo(GENAI_URL + "/content"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andRespond(withSuccess());
+
+        // the delay is long enough that only the batch size triggers the flush
+        var forward = new MessageForward(new GenAiClient(restClientBuilder, limiter, GENAI_URL), 3, 1_000_000, 60_000, 100, 0, 10, 1);
+        for (int i = 0; i < 3; i++) {
+            forward.processMessage(UUID.randomUUID(), message());
+        }
+
+        server.verify(Duration.ofSeconds(5));
+        assertThat(forward.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        forward.shutdown();
+    }
+
+    @Test
+    void flushesAfterMaxDelay() throws Exception {
+        server.expect(requestTo(GENAI_URL + "/content"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].content.platform").value("GITHUB"))
+                .andRespond(withSuccess());
+
+        var forward = new MessageForward(new GenAiClient(restClientBuilder, limiter, GENAI_URL), 100, 1_000_000, 50, 100, 0, 10, 1);
+        forward.processMessage(UUID.randomUUID(), message());
+        forward.processMessage(UUID.randomUUID(), message());
+
+        server.verify(Duration.ofSeconds(5));
+        forward.shutdown();
+    }
+
+    @Test
+    void retriesFailedBatches() throws Exception {
+        server.expect(requestTo(GENAI_URL + "/content")).andRespond(withServerError());
+        server.expect(requestTo(GENAI_URL + "/content"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andRespond(withSuccess());
+
+        var forward = new MessageForward(new GenAiClient(restClientBuilder, limiter, GENAI_URL), 1, 1_000_000, 60_000, 100, 1, 10, 1);
+        forward.processMessage(UUID.randomUUID(), message());
+
+        assertThat(forward.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        server.verify();
+        forward.shutdown();
+    }
+
+    private static Message message() {
+        Map<String, Object> content = new HashMap<>();
+        content.put("platform", SupportedSystem.GITHUB);
+        return new Message(
+                new Metadata(UUID.randomUUID(), "push", null, System.currentTimeMillis(), UUID.randomUUID()),
+                content
+        );
+    }
+}
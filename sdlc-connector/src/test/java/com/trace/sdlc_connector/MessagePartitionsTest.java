@@ -0,0 +1,126 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The conversion of message_entity into monthly partitions and the handling of redeliveries on it, which only
+ * happen on PostgreSQL.
+ */
+@SpringBootTest
+@Import(MockKeycloakConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MessagePartitionsTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // stored in the unpartitioned table before the application starts
+    private static final UUID LEGACY_ID = UUID.randomUUID();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    private final UUID projectId = UUID.randomUUID();
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @BeforeAll
+    static void createUnpartitionedTable() throws Exception {
+        try (var connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword()); var statement = connection.createStatement()) {
+            // as created by Hibernate before the partitioning existed
+            statement.execute("CREATE TABLE message_entity (id uuid PRIMARY KEY, type varchar(255), user_id uuid, " +
+                    "timestamp timestamp(6), project_id uuid, content jsonb)");
+            statement.execute("INSERT INTO message_entity (id, type, timestamp, project_id, content) VALUES ('" +
+                    LEGACY_ID + "', 'push', '2024-01-15 10:00:00', '" + UUID.randomUUID() + "', '{}')");
+        }
+    }
+
+    @Test
+    void convertsTableAndKeepsStoredMessages() {
+        assertThat(jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'message_entity'",
+                String.class)).isEqualTo("p");
+        assertThat(count(LEGACY_ID)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_id WHERE id = ?", Integer.class,
+                LEGACY_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void dropsRedeliveriesWithNewTimestamp() throws Exception {
+        UUID eventId = UUID.randomUUID();
+        Instant received = Instant.now();
+        store(eventId, received, "first");
+        // redelivered a month later, so it would fall into another partition
+        store(eventId, received.plus(Duration.ofDays(31)), "redelivered");
+        // redelivery of a message stored before the conversion
+        store(LEGACY_ID, received, "redelivered");
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        assertThat(count(eventId)).isEqualTo(1);
+        assertThat(title(eventId)).isEqualTo("first");
+        assertThat(count(LEGACY_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void replayReplacesMessage() throws Exception {
+        UUID eventId = UUID.randomUUID();
+        store(eventId, Instant.now(), "old");
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        messagePersist.replayMessage(projectId, message(eventId, Instant.now(), "new"));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        assertThat(count(eventId)).isEqualTo(1);
+        assertThat(title(eventId)).isEqualTo("new");
+    }
+
+    private void store(UUID eventId, Instant timestamp, String title) {
+        messagePersist.processMessage(projectId, message(eventId, timestamp, title));
+    }
+
+    private Message message(UUID eventId, Instant timestamp, String title) {
+        return new Message(new Metadata(eventId, "issues opened", null, timestamp.toEpochMilli(), projectId),
+                Map.of("issue", Map.of("title", title)));
+    }
+
+    private int count(UUID eventId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_entity WHERE id = ?", Integer.class, eventId);
+    }
+
+    private String title(UUID eventId) {
+        return jdbcTemplate.queryForObject("SELECT content -> 'issue' ->> 'title' FROM message_entity WHERE id = ?",
+                String.class, eventId);
+    }
+}
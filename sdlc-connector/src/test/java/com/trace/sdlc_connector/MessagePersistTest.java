@@ -0,0 +1,53 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.message.persist.MessageRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "trace.sdlc.persist.batch.max-delay-ms=500")
+@Import(MockKeycloakConfig.class)
+class MessagePersistTest {
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    @Autowired
+    private MessageRepo messageRepo;
+
+    @Test
+    void dropsOnlyRejectedRowsOfBatch() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        long rejected = messagePersist.getRejectedMessages();
+
+        UUID first = store(projectId, "push");
+        // longer than the type column, the database rejects the row
+        UUID invalid = store(projectId, "push".repeat(100));
+        UUID second = store(projectId, "push");
+        assertThat(messagePersist.awaitIdle(Duration.ofSeconds(10))).isTrue();
+
+        assertThat(messageRepo.findById(first)).isPresent();
+        assertThat(messageRepo.findById(second)).isPresent();
+        assertThat(messageRepo.findById(invalid)).isEmpty();
+        assertThat(messagePersist.getRejectedMessages()).isEqualTo(rejected + 1);
+        assertThat(messagePersist.getBatchBuffer().getDroppedItems()).isZero();
+    }
+
+    private UUID store(UUID projectId, String type) {
+        UUID eventId = UUID.randomUUID();
+        messagePersist.processMessage(projectId, new Message(
+                new Metadata(eventId, type, null, System.currentTimeMillis(), projectId), Map.of()));
+        return eventId;
+    }
+}
@@ -0,0 +1,173 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.forward.GenAiClient;
+import com.trace.sdlc_connector.message.persist.MessageRepo;
+import com.trace.sdlc_connector.message.pipeline.MessagePipeline;
+import com.trace.sdlc_connector.message.pipeline.OutboxRelay;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+        "trace.gen-ai.url=http://genai",
+        "trace.sdlc.outbox.retry-backoff-ms=10",
+        "trace.sdlc.outbox.max-attempts=3"
+})
+@ActiveProfiles("pipeline")
+@Import(MockKeycloakConfig.class)
+class MessagePipelineTest {
+
+    @Autowired
+    private MessagePipeline messagePipeline;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private MessageRepo messageRepo;
+
+    @MockitoBean
+    private GenAiClient genAiClient;
+
+    @Test
+    void storesAndForwardsMessage() throws Exception {
+        var message = message();
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+
+        assertThat(messageRepo.findById(message.getMetadata().getEventId())).isPresent();
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        verify(genAiClient, atLeastOnce()).sendContent(anyList());
+    }
+
+    @Test
+    void keepsMessagesWhileGenAiIsUnavailable() throws Exception {
+        doThrow(new IllegalStateException("unavailable"))
+                .doNothing()
+                .when(genAiClient).sendContent(anyList());
+
+        var message = message();
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+
+        // the failed batch stays in the outbox and is sent again after the backoff
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        verify(genAiClient, times(2)).sendContent(anyList());
+        assertThat(outboxRelay.getFailedBatches()).isPositive();
+    }
+
+    @Test
+    void forwardsRedeliveredMessageOnce() throws Exception {
+        var message = message();
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+        assertThat(outboxRelay.getSize()).isZero();
+        verify(genAiClient, times(1)).sendContent(anyList());
+    }
+
+    @Test
+    void deadLettersRejectedMessageWithoutBlockingOthers() throws Exception {
+        var rejected = message();
+        String rejectedId = rejected.getMetadata().getEventId().toString();
+        List<String> forwarded = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<byte[]> payloads = invocation.getArgument(0);
+            List<String> batch = payloads.stream().map(payload -> new String(payload, StandardCharsets.UTF_8)).toList();
+            if (batch.stream().anyMatch(payload -> payload.contains(rejectedId))) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            forwarded.addAll(batch);
+            return null;
+        }).when(genAiClient).sendContent(anyList());
+
+        long deadLettered = outboxRelay.getDeadLetteredEntries();
+        var first = message();
+        var second = message();
+        messagePipeline.processMessage(first.getMetadata().getProjectId(), first);
+        messagePipeline.processMessage(rejected.getMetadata().getProjectId(), rejected);
+        messagePipeline.processMessage(second.getMetadata().getProjectId(), second);
+
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(forwarded).anyMatch(payload -> payload.contains(first.getMetadata().getEventId().toString()));
+        assertThat(forwarded).anyMatch(payload -> payload.contains(second.getMetadata().getEventId().toString()));
+        assertThat(outboxRelay.getDeadLetteredEntries()).isEqualTo(deadLettered + 1);
+        assertThat(outboxRelay.getDeadLetters()).isPositive();
+
+        // once GenAI accepts the payload the dead letter can be forwarded again
+        doNothing().when(genAiClient).sendContent(anyList());
+        assertThat(outboxRelay.redriveDeadLetters(rejected.getMetadata().getProjectId())).isEqualTo(1);
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        verify(genAiClient, atLeastOnce()).sendContent(argThat(payloads -> payloads.stream()
+                .anyMatch(payload -> new String(payload, StandardCharsets.UTF_8).contains(rejectedId))));
+    }
+
+    @Test
+    void keepsAttemptsWhileGenAiIsUnavailable() throws Exception {
+        // more failures than max-attempts, none of them is a rejection of the payload
+        doThrow(new IllegalStateException("unavailable"))
+                .doThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .doThrow(new IllegalStateException("unavailable"))
+                .doThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .doNothing()
+                .when(genAiClient).sendContent(anyList());
+
+        long deadLettered = outboxRelay.getDeadLetteredEntries();
+        var message = message();
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        verify(genAiClient, times(5)).sendContent(anyList());
+        assertThat(outboxRelay.getDeadLetteredEntries()).isEqualTo(deadLettered);
+    }
+
+    @Test
+    void replacesPendingEntryOnReplay() throws Exception {
+        List<String> forwarded = new CopyOnWriteArrayList<>();
+        doThrow(new IllegalStateException("unavailable"))
+                .doAnswer(invocation -> {
+                    List<byte[]> payloads = invocation.getArgument(0);
+                    payloads.forEach(payload -> forwarded.add(new String(payload, StandardCharsets.UTF_8)));
+                    return null;
+                })
+                .when(genAiClient).sendContent(anyList());
+
+        var message = message();
+        messagePipeline.processMessage(message.getMetadata().getProjectId(), message);
+        message.getContent().put("title", "replayed");
+        messagePipeline.replayMessage(message.getMetadata().getProjectId(), message);
+
+        assertThat(outboxRelay.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(forwarded).anyMatch(payload -> payload.contains("replayed"));
+    }
+
+    private static Message message() {
+        Map<String, Object> content = new HashMap<>();
+        content.put("platform", SupportedSystem.GITHUB);
+        return new Message(
+                new Metadata(UUID.randomUUID(), "push", null, System.currentTimeMillis(), UUID.randomUUID()),
+                content
+        );
+    }
+}
@@ -0,0 +1,151 @@
+package com.trace.sdlc_connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.message.search.MessageSearchIndex;
+import com.trace.sdlc_connector.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(MockKeycloakConfig.class)
+class MessageSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UUID projectId = UUID.randomUUID();
+
+    @Test
+    void findsMessagesByContent() throws Exception {
+        UUID issue = store("issues opened", 1000, Map.of(
+                "sender", Map.of("id", 1, "login", "octocat"),
+                "issue", Map.of("id", 7, "number", 42, "title", "Login fails after token refresh",
+                        "body", "The session expires")));
+        UUID pullRequest = store("pull_request opened", 2000, Map.of(
+                "sender", Map.of("id", 2, "login", "hubot"),
+                "number", 43,
+                "pull_request", Map.of("title", "Refresh tokens in the auth filter",
+                        "head", Map.of("ref", "feature/auth-refresh"))));
+        UUID push = store("push", 3000, Map.of(
+                "ref", "refs/heads/main",
+                "commits", List.of(Map.of("message", "Fix auth token refresh\n\nCloses #42",
+                        "author", Map.of("name", "Mona Lisa", "username", "mona")))));
+        // another project is never found
+        store(UUID.randomUUID(), "issues opened", 4000, Map.of("issue", Map.of("number", 42, "title", "auth")));
+
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        messageSearchIndex.refresh();
+
+        assertThat(ids(search("number:42", null))).containsExactly(issue);
+        assertThat(ids(search("auth", null))).containsExactlyInAnyOrder(pullRequest, push);
+        assertThat(ids(search("auth", "pull_request"))).containsExactly(pullRequest);
+        assertThat(ids(search("user:octocat", null))).containsExactly(issue);
+        assertThat(ids(search("user:mona", null))).containsExactly(push);
+
+        JsonNode hit = search("\"token refresh\"", "issues").getFirst();
+        assertThat(hit.get("type").asText()).isEqualTo("issues opened");
+        assertThat(hit.get("summary").asText()).isEqualTo("Login fails after token refresh");
+    }
+
+    @Test
+    void replayedMessageReplacesDocument() throws Exception {
+        UUID eventId = store("issues opened", 1000, Map.of("issue", Map.of("number", 1, "title", "Old title")));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+
+        messagePersist.replayMessage(projectId, new Message(new Metadata(eventId, "issues opened", null, 1000,
+                projectId), Map.of("issue", Map.of("number", 1, "title", "New title"))));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        messageSearchIndex.refresh();
+
+        assertThat(search("old", null)).isEmpty();
+        assertThat(ids(search("new", null))).containsExactly(eventId);
+    }
+
+    @Test
+    void rejectsInvalidQuery() throws Exception {
+        mockMvc.perform(get("/projects/{projectId}/messages/search", projectId)
+                        .param("q", "title:(unbalanced")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId)))
+                .andExpect(status().isBadRequest());
+
+        // numbers are indexed without positions, so a phrase on them can not be run
+        mockMvc.perform(get("/projects/{projectId}/messages/search", projectId)
+                        .param("q", "number:\"4 2\"")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/projects/{projectId}/messages/search", UUID.randomUUID())
+                        .param("q", "auth")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void requiresDirectoryWhenEnabled() {
+        assertThatThrownBy(() -> new MessageSearchIndex(null, true, "", 1000, 60))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private UUID store(String type, long timestamp, Map<String, Object> content) {
+        return store(projectId, type, timestamp, content);
+    }
+
+    private UUID store(UUID projectId, String type, long timestamp, Map<String, Object> content) {
+        UUID eventId = UUID.randomUUID();
+        messagePersist.processMessage(projectId, new Message(new Metadata(eventId, type, null, timestamp, projectId),
+                content));
+        return eventId;
+    }
+
+    private List<JsonNode> search(String query, String type) throws Exception {
+        var request = get("/projects/{projectId}/messages/search", projectId)
+                .param("q", query)
+                .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId));
+        if (type != null) {
+            request.param("type", type);
+        }
+        var response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        List<JsonNode> hits = new ArrayList<>();
+        objectMapper.readTree(response.getContentAsString()).forEach(hits::add);
+        return hits;
+    }
+
+    private static List<UUID> ids(List<JsonNode> hits) {
+        return hits.stream().map(hit -> UUID.fromString(hit.get("id").asText())).toList();
+    }
+}
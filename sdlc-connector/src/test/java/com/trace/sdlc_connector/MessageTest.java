@@ -21,6 +21,8 @@ import java.util.UUID;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -80,4 +82,86 @@ class MessageTest {
         Message[] returnedMessages = new ObjectMapper().readValue(resp.getContentAsString(), Message[].class);
         assertThat(returnedMessages).isEmpty();
     }
+
+    @Test
+    void getMessagesPaged() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            messageRepo.save(new MessageEntity(UUID.randomUUID(), "push", userId, new Date(now + i), projectId,
+                    Map.of("index", i)));
+        }
+
+        var firstPage = mockMvc.perform(get("/projects/{projectId}/messages", projectId)
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId))
+                )
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        Message[] firstMessages = new ObjectMapper().readValue(firstPage.getContentAsString(), Message[].class);
+        assertThat(firstMessages.length).isEqualTo(2);
+        assertThat(firstMessages[0].getContent().get("index")).isEqualTo(0);
+        String cursor = firstPage.getHeader("X-Next-Cursor");
+        assertThat(cursor).isNotNull();
+
+        var secondPage = mockMvc.perform(get("/projects/{projectId}/messages", projectId)
+                        .param("limit", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId))
+                )
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        Message[] secondMessages = new ObjectMapper().readValue(secondPage.getContentAsString(), Message[].class);
+        assertThat(secondMessages.length).isEqualTo(1);
+        assertThat(secondMessages[0].getContent().get("index")).isEqualTo(2);
+        assertThat(secondPage.getHeader("X-Next-Cursor")).isNull();
+    }
+
+    @Test
+    void getMessagesFilteredByType() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        messageRepo.save(new MessageEntity(UUID.randomUUID(), "issues opened", userId, new Date(), projectId, Map.of()));
+        messageRepo.save(new MessageEntity(UUID.randomUUID(), "issues_comment created", userId, new Date(), projectId, Map.of()));
+        messageRepo.save(new MessageEntity(UUID.randomUUID(), "push", userId, new Date(), projectId, Map.of()));
+
+        var resp = mockMvc.perform(get("/projects/{projectId}/messages", projectId)
+                        .param("type", "issues")
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId))
+                )
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        Message[] returnedMessages = new ObjectMapper().readValue(resp.getContentAsString(), Message[].class);
+        assertThat(returnedMessages.length).isEqualTo(1);
+        assertThat(returnedMessages[0].getMetadata().getType()).isEqualTo("issues opened");
+    }
+
+    @Test
+    void streamMessagesAsNdjson() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            messageRepo.save(new MessageEntity(UUID.randomUUID(), "push", userId, new Date(), projectId, Map.of()));
+        }
+
+        var result = mockMvc.perform(get("/projects/{projectId}/messages", projectId)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(userId, projectId))
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var resp = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        var lines = resp.getContentAsString().strip().split("\n");
+        assertThat(lines.length).isEqualTo(3);
+        Message message = new ObjectMapper().readValue(lines[0], Message.class);
+        assertThat(message.getMetadata().getProjectId()).isEqualTo(projectId);
+    }
 }
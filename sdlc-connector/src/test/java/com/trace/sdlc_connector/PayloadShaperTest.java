@@ -0,0 +1,129 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.content.GitActor;
+import com.trace.sdlc_connector.github.content.PushContent;
+import com.trace.sdlc_connector.message.Message;
+import com.trace.sdlc_connector.message.Metadata;
+import com.trace.sdlc_connector.message.PayloadShaper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadShaperTest {
+
+    private static final PayloadShape SHAPE = PayloadShape.of()
+            .allow("$.commits[*]", "id", "message", "added")
+            .allow("$.head_commit", "id", "message");
+
+    @Test
+    void shapesContent() {
+        var shaper = new PayloadShaper(new MockEnvironment(), true, 2, 10);
+        Map<String, Object> content = pushContent(5);
+
+        long saved = shaper.shape("push", SHAPE, content);
+
+        List<?> commits = (List<?>) content.get("commits");
+        assertThat(commits).hasSize(2);
+        assertThat(content.get("commits_total")).isEqualTo(5);
+
+        Map<String, Object> commit = (Map<String, Object>) commits.getFirst();
+        assertThat(commit.keySet()).containsExactlyInAnyOrder("id", "message", "added", "added_total");
+        assertThat(commit.get("message")).isEqualTo("0123456789…");
+        assertThat((List<?>) commit.get("added")).hasSize(2);
+        assertThat(((Map<String, Object>) content.get("head_commit")).keySet()).containsExactlyInAnyOrder("id", "message");
+
+        // objects without a rule are kept
+        assertThat(((Map<String, Object>) content.get("pusher")).keySet()).containsExactlyInAnyOrder("name", "email");
+
+        assertThat(saved).isPositive();
+        assertThat(shaper.getBytesSaved()).isEqualTo(saved);
+        assertThat(shaper.getBytesSavedByType()).containsEntry("push", saved);
+        assertThat(shaper.getTruncatedArrays()).isPositive();
+        assertThat(shaper.getTruncatedStrings()).isPositive();
+        assertThat(shaper.getDroppedFields()).isPositive();
+    }
+
+    @Test
+    void usesLimitsOfEventType() {
+        var environment = new MockEnvironment()
+                .withProperty("trace.sdlc.shaping.types.push.max-array-items", "10");
+        var shaper = new PayloadShaper(environment, true, 2, 10);
+
+        Map<String, Object> content = pushContent(5);
+        shaper.shape("push", PayloadShape.NONE, content);
+        assertThat((List<?>) content.get("commits")).hasSize(5);
+        assertThat(content).doesNotContainKey("commits_total");
+
+        content = pushContent(5);
+        shaper.shape("workflow_run", PayloadShape.NONE, content);
+        assertThat((List<?>) content.get("commits")).hasSize(2);
+    }
+
+    @Test
+    void keepsContentWhenDisabled() {
+        var shaper = new PayloadShaper(new MockEnvironment(), false, 2, 10);
+        Map<String, Object> content = pushContent(5);
+
+        assertThat(shaper.shape("push", SHAPE, content)).isZero();
+        assertThat(content).isEqualTo(pushContent(5));
+    }
+
+    @Test
+    void shapesTypedContent() {
+        var shaper = new PayloadShaper(new MockEnvironment(), true, 2, 10);
+        var metadata = new Metadata(UUID.randomUUID(), "push", null, 1L, UUID.randomUUID());
+
+        // typed content within the limits stays typed
+        var small = new Message(metadata, typedPushContent(1, "short"));
+        assertThat(new PayloadShaper(new MockEnvironment(), true, 100, 10000).shape("push", PayloadShape.NONE, small))
+                .isSameAs(small);
+
+        var large = shaper.shape("push", SHAPE, new Message(metadata, typedPushContent(5, "0123456789 long")));
+        assertThat(large.getTypedContent()).isNull();
+        assertThat(large.getMetadata()).isSameAs(metadata);
+        Map<String, Object> content = large.getContent();
+        assertThat((List<?>) content.get("commits")).hasSize(2);
+        assertThat(content.get("commits_total")).isEqualTo(5);
+        Map<String, Object> commit = (Map<String, Object>) ((List<?>) content.get("commits")).getFirst();
+        assertThat(commit.keySet()).containsExactlyInAnyOrder("id", "message");
+        assertThat(commit.get("message")).isEqualTo("0123456789…");
+        assertThat(content.get("platform")).isEqualTo("GITHUB");
+    }
+
+    private static PushContent typedPushContent(int commits, String message) {
+        List<PushContent.Commit> commitList = new ArrayList<>();
+        for (int i = 0; i < commits; i++) {
+            commitList.add(new PushContent.Commit("sha" + i, "tree" + i, true, message, null, null,
+                    new GitActor("octocat", "octocat@example.com", null), null, null, null, null));
+        }
+        return new PushContent(null, "refs/heads/main", null, null, null, null, null, null, null, null,
+                commitList, null);
+    }
+
+    private static Map<String, Object> pushContent(int commits) {
+        List<Object> commitList = new ArrayList<>();
+        for (int i = 0; i < commits; i++) {
+            commitList.add(commit(i));
+        }
+
+        Map<String, Object> content = new HashMap<>();
+        content.put("platform", SupportedSystem.GITHUB);
+        content.put("commits", commitList);
+        content.put("head_commit", commit(commits));
+        content.put("pusher", new HashMap<>(Map.of("name", "octocat", "email", "octocat@example.com")));
+        return content;
+    }
+
+    private static Map<String, Object> commit(int i) {
+        Map<String, Object> commit = new HashMap<>();
+        commit.put("id", "sha" + i);
+        commit.put("message", "0123456789 long commit message");
+        commit.put("tree_id", "tree" + i);
+        commit.put("author", new HashMap<>(Map.of("name", "octocat", "email", "octocat@example.com")));
+        commit.put("added", new ArrayList<>(List.of("a.txt", "b.txt", "c.txt")));
+        return commit;
+    }
+}
@@ -0,0 +1,58 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.GithubConnector;
+import com.trace.sdlc_connector.github.SignedBody;
+import com.trace.sdlc_connector.token.WebhookKeyCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignedBodyTest {
+
+    private static final String PAYLOAD = "{\"ref\": \"refs/heads/main\", \"commits\": [" + "{\"id\": \"abc\"},".repeat(10000)
+            + "{\"id\": \"def\"}]}";
+
+    @Test
+    void signsBodyWhileReadingIt() throws Exception {
+        byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        byte[] expected = HexFormat.of().parseHex(GithubConnector.calculateSignature("secret", PAYLOAD));
+
+        // announced length and unknown length delivered in small chunks
+        for (long contentLength : new long[]{bytes.length, -1}) {
+            var body = SignedBody.read(trickle(bytes), contentLength,
+                    List.of(WebhookKeyCache.initMac("other"), WebhookKeyCache.initMac("secret")), bytes.length);
+            assertThat(body.bytes()).isEqualTo(bytes);
+            assertThat(body.matches(expected)).isTrue();
+        }
+
+        var unsigned = SignedBody.read(new ByteArrayInputStream(bytes), bytes.length, List.of(), bytes.length);
+        assertThat(unsigned.bytes()).isEqualTo(bytes);
+        assertThat(unsigned.matches(expected)).isFalse();
+    }
+
+    @Test
+    void rejectsTooLargeBody() {
+        byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> SignedBody.read(new ByteArrayInputStream(bytes), bytes.length, List.of(), 1024))
+                .isInstanceOf(SignedBody.TooLargeException.class);
+        assertThatThrownBy(() -> SignedBody.read(trickle(bytes), -1, List.of(), 1024))
+                .isInstanceOf(SignedBody.TooLargeException.class);
+    }
+
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return super.read(buffer, offset, Math.min(length, 1000));
+            }
+        };
+    }
+}
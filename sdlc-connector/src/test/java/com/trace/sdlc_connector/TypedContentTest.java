@@ -0,0 +1,56 @@
+package com.trace.sdlc_connector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trace.sdlc_connector.github.content.IssueContent;
+import com.trace.sdlc_connector.github.eventhandler.IssueEventHandler;
+import com.trace.sdlc_connector.message.MessageDTO;
+import com.trace.sdlc_connector.user.UserIdentityCache;
+import com.trace.sdlc_connector.user.UserMappingRepo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TypedContentTest {
+
+    @Test
+    void bindsAndSerializesTypedContent() throws Exception {
+        byte[] payload = Files.readAllBytes(
+                Path.of("src/test/java/com/trace/sdlc_connector/github/events", "issueTestPayload.json"));
+        var payloadMap = new ObjectMapper().readValue(payload, Map.class);
+
+        UserMappingRepo userMappingRepo = mock(UserMappingRepo.class);
+        when(userMappingRepo.findAllByProjectIdAndPlatform(any(), any())).thenReturn(List.of());
+
+        UUID eventId = UUID.randomUUID();
+        var message = new IssueEventHandler(new UserIdentityCache(userMappingRepo, 300))
+                .handleTypedEvent(UUID.randomUUID(), eventId, payload, System.currentTimeMillis());
+
+        assertThat(message.getMetadata().getType()).isEqualTo("issues unassigned");
+        assertThat(message.getContent()).isNull();
+        var content = (IssueContent) message.getTypedContent();
+        assertThat(content.issue().title()).isEqualTo(((Map) payloadMap.get("issue")).get("title"));
+
+        // serialized with the same top level keys as the generic content
+        var dto = new ObjectMapper().convertValue(new MessageDTO(message), Map.class);
+        var dtoContent = (Map) dto.get("content");
+        assertThat(dtoContent.get("platform")).isEqualTo("GITHUB");
+        assertThat(dtoContent.get("eventId")).isEqualTo(eventId.toString());
+        assertThat(id((Map) dtoContent.get("sender"))).isEqualTo(id((Map) payloadMap.get("sender")));
+        assertThat(id((Map) dtoContent.get("issue"))).isEqualTo(id((Map) payloadMap.get("issue")));
+        assertThat(dtoContent).doesNotContainKey("repository");
+    }
+
+    // the records keep ids as long while the parsed payload has them as int
+    private static long id(Map<?, ?> object) {
+        return ((Number) object.get("id")).longValue();
+    }
+}
@@ -0,0 +1,150 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.WebhookAdmission;
+import com.trace.sdlc_connector.github.WebhookDispatcher;
+import com.trace.sdlc_connector.github.WebhookEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookAdmissionTest {
+
+    @TempDir
+    private Path spoolDir;
+
+    private final List<WebhookEvent> processed = new CopyOnWriteArrayList<>();
+
+    @Test
+    void spoolsBurstOfOneProject() throws Exception {
+        var admission = new WebhookAdmission(new WebhookDispatcher(2, 100), 5, 2, 100, 100, spoolDir.toString(), 100);
+        admission.start(processed::add);
+
+        UUID noisy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        List<WebhookAdmission.Result> results = List.of(
+                admission.submit(event(noisy, "1")),
+                admission.submit(event(noisy, "2")),
+                admission.submit(event(noisy, "3")),
+                admission.submit(event(noisy, "4")),
+                admission.submit(event(quiet, "5"))
+        );
+
+        // the burst of one project does not use up the capacity of the others
+        assertThat(results).containsExactly(WebhookAdmission.Result.ADMITTED, WebhookAdmission.Result.ADMITTED,
+                WebhookAdmission.Result.SPOOLED, WebhookAdmission.Result.SPOOLED, WebhookAdmission.Result.ADMITTED);
+
+        assertThat(admission.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(processed.stream().filter(event -> event.projectId().equals(noisy)).map(WebhookEvent::payload))
+                .containsExactly("1", "2", "3", "4");
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).isEmpty();
+        }
+        admission.shutdown();
+    }
+
+    @Test
+    void limitsEventsInFlight() throws Exception {
+        var admission = new WebhookAdmission(new WebhookDispatcher(2, 100), 1000, 100, 1, 100, spoolDir.toString(),
+                100);
+        var release = new CountDownLatch(1);
+        admission.start(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.add(event);
+        });
+
+        assertThat(admission.submit(event(UUID.randomUUID(), "1"))).isEqualTo(WebhookAdmission.Result.ADMITTED);
+        assertThat(admission.submit(event(UUID.randomUUID(), "2"))).isEqualTo(WebhookAdmission.Result.SPOOLED);
+
+        release.countDown();
+        assertThat(admission.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(processed).hasSize(2);
+        admission.shutdown();
+    }
+
+    @Test
+    void limitsEventsInFlightPerProject() throws Exception {
+        var admission = new WebhookAdmission(new WebhookDispatcher(1, 100), 1000, 100, 100, 1, spoolDir.toString(),
+                100);
+        var release = new CountDownLatch(1);
+        admission.start(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.add(event);
+        });
+
+        UUID noisy = UUID.randomUUID();
+        assertThat(admission.submit(event(noisy, "1"))).isEqualTo(WebhookAdmission.Result.ADMITTED);
+        assertThat(admission.submit(event(noisy, "2"))).isEqualTo(WebhookAdmission.Result.SPOOLED);
+        // the other projects still have capacity
+        assertThat(admission.submit(event(UUID.randomUUID(), "3"))).isEqualTo(WebhookAdmission.Result.ADMITTED);
+
+        release.countDown();
+        assertThat(admission.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(processed).extracting(WebhookEvent::payload).containsExactlyInAnyOrder("1", "2", "3");
+        admission.shutdown();
+    }
+
+    @Test
+    void rejectsWithoutSpoolDir() {
+        var admission = new WebhookAdmission(new WebhookDispatcher(1, 100), 0.001, 1, 100, 100, "", 100);
+        admission.start(processed::add);
+
+        UUID projectId = UUID.randomUUID();
+        assertThat(admission.submit(event(projectId, "1"))).isEqualTo(WebhookAdmission.Result.ADMITTED);
+        assertThat(admission.submit(event(projectId, "2"))).isEqualTo(WebhookAdmission.Result.REJECTED);
+        admission.shutdown();
+    }
+
+    @Test
+    void rejectsWhenSpoolIsFull() {
+        var admission = new WebhookAdmission(new WebhookDispatcher(1, 100), 0.001, 1, 100, 100, spoolDir.toString(), 1);
+        admission.start(processed::add);
+
+        UUID projectId = UUID.randomUUID();
+        assertThat(admission.submit(event(projectId, "1"))).isEqualTo(WebhookAdmission.Result.ADMITTED);
+        assertThat(admission.submit(event(projectId, "2"))).isEqualTo(WebhookAdmission.Result.SPOOLED);
+        assertThat(admission.submit(event(projectId, "3"))).isEqualTo(WebhookAdmission.Result.REJECTED);
+        admission.shutdown();
+    }
+
+    @Test
+    void recoversSpoolAfterRestart() throws Exception {
+        var stopped = new WebhookAdmission(new WebhookDispatcher(1, 100), 0.001, 1, 100, 100, spoolDir.toString(), 100);
+        stopped.start(processed::add);
+
+        UUID projectId = UUID.randomUUID();
+        stopped.submit(event(projectId, "1"));
+        stopped.submit(event(projectId, "2"));
+        stopped.submit(event(projectId, "3"));
+        stopped.shutdown();
+
+        var restarted = new WebhookAdmission(new WebhookDispatcher(1, 100), 20, 10, 100, 100, spoolDir.toString(), 100);
+        List<WebhookEvent> recovered = new CopyOnWriteArrayList<>();
+        restarted.start(recovered::add);
+
+        assertThat(restarted.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(recovered).extracting(WebhookEvent::payload).containsExactly("2", "3");
+        assertThat(recovered).extracting(WebhookEvent::eventType).containsOnly("push");
+        restarted.shutdown();
+    }
+
+    private static WebhookEvent event(UUID projectId, String payload) {
+        return new WebhookEvent(projectId, UUID.randomUUID(), "push", payload, System.currentTimeMillis());
+    }
+}
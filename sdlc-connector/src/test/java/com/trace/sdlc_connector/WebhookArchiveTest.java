@@ -0,0 +1,119 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.archive.ArchivedWebhook;
+import com.trace.sdlc_connector.github.archive.WebhookArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private final UUID projectId = UUID.randomUUID();
+
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    void readsDeliveriesOfProjectInTimeRange() throws Exception {
+        var archive = new WebhookArchive(true, dir.toString(), 64 * 1024 * 1024, 60, 30);
+        try {
+            archive.append(webhook(projectId, now - 4000, "{\"action\": \"opened\"}"));
+            archive.append(webhook(UUID.randomUUID(), now - 3000, "{}"));
+            archive.append(webhook(projectId, now - 2000, "{\"action\": \"closed\"}"));
+            archive.append(webhook(projectId, now, "{\"action\": \"reopened\"}"));
+            assertThat(archive.awaitIdle(Duration.ofSeconds(10))).isTrue();
+
+            // the open segment is only flushed, it is read like after a crash
+            assertThat(payloads(archive, null, null)).containsExactly(
+                    "{\"action\": \"opened\"}", "{\"action\": \"closed\"}", "{\"action\": \"reopened\"}");
+            assertThat(payloads(archive, Instant.ofEpochMilli(now - 4000), Instant.ofEpochMilli(now))).containsExactly(
+                    "{\"action\": \"opened\"}", "{\"action\": \"closed\"}");
+
+            List<ArchivedWebhook> read = new ArrayList<>();
+            archive.read(projectId, null, null, read::add);
+            assertThat(read.getFirst().eventType()).isEqualTo("issues");
+            assertThat(read.getFirst().headers()).containsEntry("X-GitHub-Hook-ID", "42");
+            assertThat(archive.getArchivedEvents()).isEqualTo(4);
+        } finally {
+            archive.shutdown();
+        }
+    }
+
+    @Test
+    void rollsSegmentsBySize() throws Exception {
+        var archive = new WebhookArchive(true, dir.toString(), 1, 60, 30);
+        try {
+            for (int i = 0; i < 3; i++) {
+                archive.append(webhook(projectId, now + i, "{\"number\": " + i + "}"));
+                assertThat(archive.awaitIdle(Duration.ofSeconds(10))).isTrue();
+            }
+        } finally {
+            archive.shutdown();
+        }
+
+        try (var segments = Files.list(dir)) {
+            assertThat(segments.count()).isEqualTo(3);
+        }
+        // the closed segments are read back in order by a new instance
+        var reopened = new WebhookArchive(true, dir.toString(), 1, 60, 30);
+        try {
+            assertThat(payloads(reopened, null, null))
+                    .containsExactly("{\"number\": 0}", "{\"number\": 1}", "{\"number\": 2}");
+        } finally {
+            reopened.shutdown();
+        }
+    }
+
+    @Test
+    void deletesExpiredSegments() throws Exception {
+        long day = Duration.ofDays(1).toMillis();
+        var expired = dir.resolve(String.format("segment-%013d-%06d.gz", now - 3 * day, 0));
+        var kept = dir.resolve(String.format("segment-%013d-%06d.gz", now - 2 * day, 1));
+        Files.createFile(expired);
+        Files.createFile(kept);
+
+        var archive = new WebhookArchive(true, dir.toString(), 64 * 1024 * 1024, 60, 1);
+        try {
+            archive.append(webhook(projectId, now, "{}"));
+            assertThat(archive.awaitIdle(Duration.ofSeconds(10))).isTrue();
+        } finally {
+            archive.shutdown();
+        }
+
+        // the deliveries of the second segment were received until the new segment started
+        assertThat(expired).doesNotExist();
+        assertThat(kept).exists();
+    }
+
+    @Test
+    void requiresDirectoryWhenEnabled() {
+        assertThatThrownBy(() -> new WebhookArchive(true, "", 64 * 1024 * 1024, 60, 30))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<String> payloads(WebhookArchive archive, Instant from, Instant to) throws Exception {
+        List<String> payloads = new ArrayList<>();
+        archive.read(projectId, from, to,
+                webhook -> payloads.add(new String(webhook.payload(), StandardCharsets.UTF_8)));
+        return payloads;
+    }
+
+    private static ArchivedWebhook webhook(UUID projectId, long receivedAt, String payload) {
+        return new ArchivedWebhook(projectId, UUID.randomUUID(), "issues", receivedAt,
+                Map.of("X-GitHub-Hook-ID", "42"), payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.security.SecurityService;
+import com.trace.sdlc_connector.token.TokenEntity;
+import com.trace.sdlc_connector.token.TokenRepo;
+import com.trace.sdlc_connector.token.TokenService;
+import com.trace.sdlc_connector.token.WebhookKeyCache;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WebhookKeyCacheTest {
+
+    private final UUID projectId = UUID.randomUUID();
+
+    private final TokenRepo tokenRepo = mock(TokenRepo.class);
+
+    @Test
+    void servesHitsWithoutQuerying() throws Exception {
+        returnSecret("secret");
+        var cache = new WebhookKeyCache(tokenRepo, 300);
+
+        var first = cache.getMacs(projectId, SupportedSystem.GITHUB);
+        var second = cache.getMacs(projectId, SupportedSystem.GITHUB);
+
+        verify(tokenRepo, times(1)).findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB);
+        assertThat(second).hasSize(1);
+        // every lookup hands out its own instance
+        assertThat(second.getFirst()).isNotSameAs(first.getFirst());
+        assertThat(sign(second)).isEqualTo(sign(WebhookKeyCache.initMac("secret")));
+    }
+
+    @Test
+    void reloadsExpiredEntries() throws Exception {
+        returnSecret("secret");
+        var cache = new WebhookKeyCache(tokenRepo, 0);
+
+        cache.getMacs(projectId, SupportedSystem.GITHUB);
+        returnSecret("rotated");
+        var macs = cache.getMacs(projectId, SupportedSystem.GITHUB);
+
+        verify(tokenRepo, times(2)).findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB);
+        assertThat(sign(macs)).isEqualTo(sign(WebhookKeyCache.initMac("rotated")));
+    }
+
+    @Test
+    void savingTokenInvalidatesEntry() throws Exception {
+        returnSecret("secret");
+        var cache = new WebhookKeyCache(tokenRepo, 300);
+        var securityService = mock(SecurityService.class);
+        when(securityService.hasProjectAccess(projectId)).thenReturn(true);
+        when(tokenRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        var tokenService = new TokenService(tokenRepo, securityService, cache);
+
+        cache.getMacs(projectId, SupportedSystem.GITHUB);
+        tokenService.saveToken(projectId, SupportedSystem.GITHUB, "rotated");
+        returnSecret("rotated");
+        var macs = cache.getMacs(projectId, SupportedSystem.GITHUB);
+
+        verify(tokenRepo, times(2)).findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB);
+        assertThat(sign(macs)).isEqualTo(sign(WebhookKeyCache.initMac("rotated")));
+    }
+
+    private void returnSecret(String secret) {
+        when(tokenRepo.findAllByProjectIdAndSupportedSystem(projectId, SupportedSystem.GITHUB))
+                .thenReturn(List.of(new TokenEntity(secret, projectId, SupportedSystem.GITHUB)));
+    }
+
+    private static String sign(List<Mac> macs) {
+        assertThat(macs).hasSize(1);
+        return sign(macs.getFirst());
+    }
+
+    private static String sign(Mac mac) {
+        return HexFormat.of().formatHex(mac.doFinal("payload".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.trace.sdlc_connector;
+
+import com.trace.sdlc_connector.github.WebhookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WebhookMetrics metrics = new WebhookMetrics(registry);
+
+    @Test
+    void recordsWebhooksByEventType() {
+        metrics.received("push", 100);
+        metrics.received("push", 300);
+        metrics.received("check_run", 50);
+        metrics.unhandled("check_run");
+        metrics.signatureVerified(TimeUnit.MICROSECONDS.toNanos(20), true);
+        metrics.signatureVerified(TimeUnit.MICROSECONDS.toNanos(20), false);
+        metrics.handled("push", "PushEventHandler", "success", TimeUnit.MILLISECONDS.toNanos(2));
+
+        assertThat(registry.get("sdlc.webhook.received").tag("event", "push").counter().count()).isEqualTo(2);
+        assertThat(registry.get("sdlc.webhook.unhandled").tag("event", "check_run").counter().count()).isEqualTo(1);
+
+        var payloadSize = registry.get("sdlc.webhook.payload.size").tag("event", "push").summary();
+        assertThat(payloadSize.count()).isEqualTo(2);
+        assertThat(payloadSize.totalAmount()).isEqualTo(400);
+
+        assertThat(registry.get("sdlc.webhook.signature").tag("result", "invalid").timer().count()).isEqualTo(1);
+        var handler = registry.get("sdlc.webhook.handler")
+                .tag("event", "push").tag("handler", "PushEventHandler").tag("outcome", "success").timer();
+        assertThat(handler.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    void boundsEventTypeTags() {
+        // the event type header is chosen by the caller
+        for (int i = 0; i < 500; i++) {
+            metrics.received("type" + i, 10);
+        }
+
+        assertThat(registry.find("sdlc.webhook.received").counters()).hasSizeLessThanOrEqualTo(101);
+        assertThat(registry.get("sdlc.webhook.received").tag("event", "other").counter().count()).isPositive();
+    }
+}
@@ -35,7 +35,7 @@ class CommitCommentTest extends EventTest{
                 """;
 
         this.performEventRequest(eventId, "commit_comment", payload)
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted());
 
         // verify that the returned message is equal to what we saved
         MessageEntity savedMessage = messageRepo.findById(eventId).orElseThrow();
@@ -3,6 +3,8 @@ package com.trace.sdlc_connector.github.events;
 import com.trace.sdlc_connector.SupportedSystem;
 import com.trace.sdlc_connector.config.MockKeycloakConfig;
 import com.trace.sdlc_connector.github.GithubConnector;
+import com.trace.sdlc_connector.github.WebhookAdmission;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
 import com.trace.sdlc_connector.message.persist.MessageRepo;
 import com.trace.sdlc_connector.token.TokenEntity;
 import com.trace.sdlc_connector.token.TokenRepo;
@@ -18,6 +20,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.UUID;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -36,6 +39,12 @@ abstract class EventTest {
     @Autowired
     private TokenRepo tokenRepo;
 
+    @Autowired
+    private WebhookAdmission webhookAdmission;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
     protected UUID projectId;
 
     private String secret;
@@ -50,12 +59,17 @@ abstract class EventTest {
     }
 
     protected ResultActions performEventRequest(UUID eventId, String eventType, String payload) throws Exception {
-        return mockMvc.perform(post("/projects/{projectId}/webhook/github", this.projectId)
+        var result = mockMvc.perform(post("/projects/{projectId}/webhook/github", this.projectId)
                 .header("X-GitHub-Delivery", eventId)
                 .header("X-GitHub-Event", eventType)
                 .header("X-Hub-Signature-256", "sha256=" + GithubConnector.calculateSignature(this.secret, payload))
                 .content(payload)
                 .contentType(MediaType.APPLICATION_JSON));
+
+        // events are processed asynchronously after the webhook is acknowledged and persisted write-behind
+        webhookAdmission.awaitIdle(Duration.ofSeconds(10));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        return result;
     }
 
     protected String readPayloadFromFile(String fileName) throws Exception {
@@ -0,0 +1,153 @@
+package com.trace.sdlc_connector.github.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.trace.sdlc_connector.config.MockKeycloakConfig;
+import com.trace.sdlc_connector.github.GithubConnector;
+import com.trace.sdlc_connector.github.WebhookAdmission;
+import com.trace.sdlc_connector.message.persist.MessageEntity;
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import com.trace.sdlc_connector.message.persist.MessageRepo;
+import com.trace.sdlc_connector.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(MockKeycloakConfig.class)
+class FanInTest {
+
+    private static final String SECRET = "fan-in-secret";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessageRepo messageRepo;
+
+    @Autowired
+    private WebhookAdmission webhookAdmission;
+
+    @Autowired
+    private MessagePersist messagePersist;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // unique per test, so the subscriptions of other tests do not match
+    private final long accountId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final long repositoryId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    @Test
+    void fansOutDeliveryToSubscribedProjects() throws Exception {
+        UUID wholeAccount = UUID.randomUUID();
+        UUID oneRepository = UUID.randomUUID();
+        UUID otherRepository = UUID.randomUUID();
+        subscribe(wholeAccount, accountId, null);
+        subscribe(oneRepository, accountId, repositoryId);
+        subscribe(otherRepository, accountId, repositoryId + 1);
+        // subscribing twice does not deliver twice
+        subscribe(oneRepository, accountId, repositoryId);
+
+        UUID deliveryId = UUID.randomUUID();
+        String payload = payload();
+        deliver(deliveryId, payload, GithubConnector.calculateSignature(SECRET, payload))
+                .andExpect(status().isAccepted());
+
+        for (UUID projectId : new UUID[]{wholeAccount, oneRepository}) {
+            MessageEntity message = messageRepo.findById(GithubConnector.fanOutEventId(projectId, deliveryId))
+                    .orElseThrow();
+            assertThat(message.getProjectId()).isEqualTo(projectId);
+            assertThat(message.getType()).isEqualTo("issues unassigned");
+            assertThat(((Map<?, ?>) message.getContent().get("issue")).get("number")).isNotNull();
+        }
+        assertThat(messageRepo.findAllByProjectId(wholeAccount)).hasSize(1);
+        assertThat(messageRepo.findAllByProjectId(otherRepository)).isEmpty();
+
+        // the redelivery is dropped for all projects
+        deliver(deliveryId, payload, GithubConnector.calculateSignature(SECRET, payload))
+                .andExpect(status().isOk());
+        assertThat(messageRepo.findAllByProjectId(oneRepository)).hasSize(1);
+    }
+
+    @Test
+    void requiresValidSignature() throws Exception {
+        UUID projectId = UUID.randomUUID();
+        subscribe(projectId, accountId, null);
+        String payload = payload();
+
+        deliver(UUID.randomUUID(), payload, null)
+                .andExpect(status().isBadRequest());
+        deliver(UUID.randomUUID(), payload, GithubConnector.calculateSignature("test-token", payload))
+                .andExpect(status().isBadRequest());
+
+        assertThat(messageRepo.findAllByProjectId(projectId)).isEmpty();
+    }
+
+    @Test
+    void rejectsSubscriptionOfOtherProject() throws Exception {
+        mockMvc.perform(post("/projects/{projectId}/github/subscriptions", UUID.randomUUID())
+                        .param("accountId", String.valueOf(accountId))
+                        .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), UUID.randomUUID())))
+                .andExpect(status().isForbidden());
+    }
+
+    private void subscribe(UUID projectId, long accountId, Long repositoryId) throws Exception {
+        var request = post("/projects/{projectId}/github/subscriptions", projectId)
+                .param("accountId", String.valueOf(accountId))
+                .header("Authorization", "Bearer " + jwtUtils.constructJWT(UUID.randomUUID(), projectId));
+        if (repositoryId != null) {
+            request.param("repositoryId", repositoryId.toString());
+        }
+        mockMvc.perform(request).andExpect(status().isCreated());
+    }
+
+    private ResultActions deliver(UUID deliveryId, String payload, String signature) throws Exception {
+        var request = post("/github/webhook")
+                .header("X-GitHub-Delivery", deliveryId)
+                .header("X-GitHub-Event", "issues")
+                .header("X-GitHub-Hook-Installation-Target-ID", accountId)
+                .content(payload)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (signature != null) {
+            request.header("X-Hub-Signature-256", "sha256=" + signature);
+        }
+        var result = mockMvc.perform(request);
+
+        // events are processed asynchronously after the webhook is acknowledged and persisted write-behind
+        webhookAdmission.awaitIdle(Duration.ofSeconds(10));
+        messagePersist.awaitIdle(Duration.ofSeconds(10));
+        return result;
+    }
+
+    // the issue payload of a user owned repository, moved to the account and repository of the test
+    private String payload() throws Exception {
+        var payload = (ObjectNode) objectMapper.readTree(Files.readString(
+                Path.of("src/test/java/com/trace/sdlc_connector/github/events/issueTestPayload.json"),
+                StandardCharsets.UTF_8));
+        var repository = (ObjectNode) payload.get("repository");
+        repository.put("id", repositoryId);
+        ((ObjectNode) repository.get("owner")).put("id", accountId);
+        return objectMapper.writeValueAsString(payload);
+    }
+}
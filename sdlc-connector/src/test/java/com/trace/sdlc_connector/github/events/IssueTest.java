@@ -22,7 +22,7 @@ class IssueTest extends EventTest {
         String payload = readPayloadFromFile("issueTestPayload.json");
 
         this.performEventRequest(eventId, "issues", payload)
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted());
 
         // verify that the returned message is equal to what we saved
         MessageEntity savedMessage = messageRepo.findById(eventId).orElseThrow();
@@ -36,4 +36,20 @@ class IssueTest extends EventTest {
         assertThat(((Map)savedMessage.getContent().get("issue")).get("id")).isEqualTo(((Map)payloadMap.get("issue")).get("id"));
 
     }
+
+    @Test
+    void sendRedeliveredIssueEvent() throws Exception {
+        UUID eventId = UUID.randomUUID();
+        String payload = readPayloadFromFile("issueTestPayload.json");
+
+        this.performEventRequest(eventId, "issues", payload)
+                .andExpect(status().isAccepted());
+        this.performEventRequest(eventId, "issues", payload)
+                .andExpect(status().isOk());
+
+        // the redelivery is dropped before it is processed
+        MessageEntity savedMessage = messageRepo.findById(eventId).orElseThrow();
+        assertThat(savedMessage.getType()).isEqualTo("issues unassigned");
+        assertThat(messageRepo.findAllByProjectId(this.projectId).size()).isEqualTo(1);
+    }
 }
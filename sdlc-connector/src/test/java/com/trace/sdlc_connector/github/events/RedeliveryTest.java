@@ -0,0 +1,38 @@
+package com.trace.sdlc_connector.github.events;
+
+import com.trace.sdlc_connector.message.persist.MessagePersist;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RedeliveryTest extends EventTest {
+
+    @MockitoSpyBean
+    private MessagePersist messagePersist;
+
+    @Test
+    void processesRedeliveryOfFailedEvent() throws Exception {
+        doThrow(new IllegalStateException("unavailable"))
+                .doCallRealMethod()
+                .when(messagePersist).processMessage(any(), any());
+
+        UUID eventId = UUID.randomUUID();
+        String payload = readPayloadFromFile("issueTestPayload.json");
+
+        this.performEventRequest(eventId, "issues", payload)
+                .andExpect(status().isAccepted());
+        assertThat(messageRepo.findById(eventId)).isEmpty();
+
+        // the failed delivery is not remembered, so the redelivery is processed instead of dropped
+        this.performEventRequest(eventId, "issues", payload)
+                .andExpect(status().isAccepted());
+        assertThat(messageRepo.findById(eventId)).isPresent();
+        verify(messagePersist, times(2)).processMessage(any(), any());
+    }
+}
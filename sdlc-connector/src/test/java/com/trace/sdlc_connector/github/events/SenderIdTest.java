@@ -2,6 +2,7 @@ package com.trace.sdlc_connector.github.events;
 
 import com.trace.sdlc_connector.SupportedSystem;
 import com.trace.sdlc_connector.message.persist.MessageEntity;
+import com.trace.sdlc_connector.user.UserController;
 import com.trace.sdlc_connector.user.UserMapping;
 import com.trace.sdlc_connector.user.UserMappingRepo;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,9 @@ class SenderIdTest extends EventTest {
     @Autowired
     private UserMappingRepo userMappingRepo;
 
+    @Autowired
+    private UserController userController;
+
     @Test
     void sendMappedUser() throws Exception {
         UUID eventId = UUID.randomUUID();
@@ -31,11 +35,36 @@ class SenderIdTest extends EventTest {
         ));
 
         this.performEventRequest(eventId, "issues", payload)
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted());
 
         // verify that the returned message is equal to what we saved
         MessageEntity savedMessage = messageRepo.findById(eventId).orElseThrow();
         assertThat(savedMessage.getId()).isEqualTo(eventId);
         assertThat(savedMessage.getUserId()).isEqualTo(userId);
     }
+
+    @Test
+    void sendUserMappedAfterFirstEvent() throws Exception {
+        String payload = readPayloadFromFile("issueTestPayload.json");
+
+        // the first event caches the sender as unmapped
+        UUID firstEventId = UUID.randomUUID();
+        this.performEventRequest(firstEventId, "issues", payload)
+                .andExpect(status().isAccepted());
+        assertThat(messageRepo.findById(firstEventId).orElseThrow().getUserId()).isNull();
+
+        // saving a mapping invalidates the cached identities of the project
+        UUID userId = UUID.randomUUID();
+        userController.saveUserMapping(this.projectId, new UserMapping(
+                this.projectId,
+                SupportedSystem.GITHUB,
+                "95364200",
+                userId
+        ));
+
+        UUID secondEventId = UUID.randomUUID();
+        this.performEventRequest(secondEventId, "issues", payload)
+                .andExpect(status().isAccepted());
+        assertThat(messageRepo.findById(secondEventId).orElseThrow().getUserId()).isEqualTo(userId);
+    }
 }
@@ -1,6 +1,7 @@
 package com.trace.transcription.controller;
 
 import com.trace.transcription.repository.TranscriptRepository;
+import com.trace.transcription.service.GenAiConcurrencyLimiter;
 import com.trace.transcription.service.TranscriptService;
 import com.trace.transcription.model.TranscriptEntity;
 
@@ -69,21 +70,29 @@ public class TranscriptController {
      */
     private final TranscriptRepository transcriptRepository;
 
+    /**
+     * Adaptive concurrency limiter shared by all requests to the GenAI core service.
+     */
+    private final GenAiConcurrencyLimiter genAiLimiter;
+
     /**
      * Constructs a TranscriptController with required dependencies.
      *
      * @param executor          thread pool executor for asynchronous processing
      * @param genaiServiceUrl   base URL of the GenAI core service (e.g., "http://genai:8080")
      * @param transcriptService service for persisting and retrieving transcripts
+     * @param genAiLimiter      adaptive concurrency limiter for requests to the GenAI core service
      */
     public TranscriptController(
             ThreadPoolTaskExecutor executor,
             @Value("${genai.service.url}") String genaiServiceUrl,
-            TranscriptService transcriptService, TranscriptRepository transcriptRepository) {
+            TranscriptService transcriptService, TranscriptRepository transcriptRepository,
+            GenAiConcurrencyLimiter genAiLimiter) {
         this.executor = executor;
         this.genaiServiceUrl = genaiServiceUrl;
         this.transcriptService = transcriptService;
         this.transcriptRepository = transcriptRepository;
+        this.genAiLimiter = genAiLimiter;
     }
 
     /**
@@ -173,14 +182,15 @@ public class TranscriptController {
                 transcriptService.updateEntityWithTranscript(transcriptId, transcriptJson);
                 logger.info("Transcript completed for project {}: {}", projectId, transcriptJson);
 
-                // Forward to GenAI core service
+                // Forward to GenAI core service, queued or shed by the adaptive concurrency limit
                 try {
                     HttpHeaders headers = new HttpHeaders();
                     headers.setContentType(MediaType.APPLICATION_JSON);
 
                     HttpEntity<String> entity = new HttpEntity<>(transcriptJson, headers);
                     String endpoint = genaiServiceUrl + "/content";
-                    ResponseEntity<String> response = restTemplate.postForEntity(endpoint, entity, String.class);
+                    ResponseEntity<String> response = genAiLimiter.execute(
+                            () -> restTemplate.postForEntity(endpoint, entity, String.class));
                     logger.info("Successfully forwarded transcript to GenAI service: {}", response.getStatusCode());
                 } catch (Exception ex) {
                     logger.error("Error forwarding transcript to GenAI service for project {}: {}", projectId, ex.getMessage(), ex);
@@ -0,0 +1,170 @@
+package com.trace.transcription.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive client-side concurrency limiter for requests to the GenAI core service's /content endpoint.
+ * <p>
+ * Uses additive increase / multiplicative decrease (AIMD): the limit grows by one per window of successful
+ * calls while it is fully used, and is multiplied by the backoff ratio when a call fails or is slow. A call is
+ * slow when it takes longer than the latency tolerance times the moving average of the observed latency (and at
+ * least the minimum latency threshold), so long transcript requests do not count as overload by themselves.
+ * Calls over the limit are queued for up to the maximum wait time and are shed with a
+ * {@link LimitExceededException} otherwise, so transcript bursts cannot flood the GenAI service.
+ * </p>
+ */
+@Component
+public class GenAiConcurrencyLimiter {
+
+    // weight of a new latency sample in the moving average
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final long minLatencyThresholdNanos;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight = 0;
+    // moving average of the latency of successful calls, 0 until the first one
+    private double averageLatencyNanos = 0;
+
+    public GenAiConcurrencyLimiter(
+            @Value("${trace.genai.limiter.initial:8}") int initialLimit,
+            @Value("${trace.genai.limiter.min:1}") int minLimit,
+            @Value("${trace.genai.limiter.max:64}") int maxLimit,
+            @Value("${trace.genai.limiter.backoff-ratio:0.5}") double backoffRatio,
+            @Value("${trace.genai.limiter.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${trace.genai.limiter.min-latency-threshold-ms:100}") long minLatencyThresholdMillis,
+            @Value("${trace.genai.limiter.max-wait-ms:30000}") long maxWaitMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.minLatencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(minLatencyThresholdMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Runs a call to GenAI once a permit is available and adjusts the limit by its outcome.
+     *
+     * @param call the request to GenAI
+     * @return the result of the call
+     * @throws LimitExceededException if no permit became available within the maximum wait time
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquire();
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            release(System.nanoTime() - start, success);
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the latency above which a successful call counts as slow, 0 until the first call succeeded
+     */
+    public long getLatencyThresholdMillis() {
+        lock.lock();
+        try {
+            return averageLatencyNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latencyThresholdNanos());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            long remainingNanos = maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    throw new LimitExceededException((int) limit, inFlight);
+                }
+                remainingNanos = permitReleased.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LimitExceededException((int) limit, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+
+            // compared to the latency observed so far, so an endpoint that is slow by nature is not seen as overloaded
+            boolean slow = success && averageLatencyNanos > 0 && latencyNanos > latencyThresholdNanos();
+            if (success) {
+                averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos
+                        : averageLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - averageLatencyNanos);
+            }
+
+            if (!success || slow) {
+                // multiplicative decrease on errors and slow responses
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (saturated) {
+                // additive increase of one per window of successful calls, only while the limit is actually used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller must hold the lock
+    private long latencyThresholdNanos() {
+        return Math.max(minLatencyThresholdNanos, (long) (latencyTolerance * averageLatencyNanos));
+    }
+
+    /**
+     * Thrown when a call to GenAI is shed because the concurrency limit stayed exhausted for the maximum wait time.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(int limit, int inFlight) {
+            super("GenAI concurrency limit reached (limit " + limit + ", in flight " + inFlight + "), request shed");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.trace.transcription;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.trace.transcription.service.GenAiConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+class GenAiConcurrencyLimiterTest {
+
+    @Test
+    void decreasesLimitOnErrors() {
+        GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 2.0, 100, 1000);
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            throw new IllegalStateException("GenAI unavailable");
+        }));
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void adaptsLatencyThresholdToEndpoint() {
+        GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(8, 1, 64, 0.5, 3.0, 1, 1000);
+
+        // long transcript requests raise the threshold instead of cutting the limit
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> sleep(30));
+        }
+        assertEquals(8, limiter.getLimit());
+        assertTrue(limiter.getLatencyThresholdMillis() >= 90);
+
+        limiter.execute(() -> sleep(300));
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void shedsRequestsOverTheLimit() {
+        GenAiConcurrencyLimiter limiter = new GenAiConcurrencyLimiter(1, 1, 1, 0.5, 2.0, 100, 50);
+
+        assertThrows(GenAiConcurrencyLimiter.LimitExceededException.class,
+                () -> limiter.execute(() -> limiter.execute(() -> "ok")));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}